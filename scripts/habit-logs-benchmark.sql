@@ -0,0 +1,123 @@
+-- habit_logs month queries: JOIN habits (before V4) vs denormalized user_id + covering index (V4).
+-- Builds a synthetic data set in a scratch schema, so it can run against any PostgreSQL 12+ database:
+--
+--   psql "$JDBC_DATABASE_URL" -f scripts/habit-logs-benchmark.sql
+--   psql ... -v users=20000 -v days=100 -f scripts/habit-logs-benchmark.sql     -- smaller run
+--
+-- Defaults: 100 000 users x 5 habits x 100 days = 50M logs, inserted day by day the way the app
+-- writes them, so one user's rows are spread over the whole heap. Needs ~10 GB of disk.
+-- Each query is timed over :iterations random users after a warm-up pass.
+
+\set ON_ERROR_STOP on
+\if :{?users}
+\else
+    \set users 100000
+\endif
+\if :{?habits}
+\else
+    \set habits 5
+\endif
+\if :{?days}
+\else
+    \set days 100
+\endif
+\if :{?iterations}
+\else
+    \set iterations 2000
+\endif
+
+DROP SCHEMA IF EXISTS habit_logs_bench CASCADE;
+CREATE SCHEMA habit_logs_bench;
+SET search_path = habit_logs_bench;
+
+CREATE TABLE habits (
+    id      BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL
+);
+CREATE TABLE habit_logs (
+    id       BIGINT PRIMARY KEY,
+    habit_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    date     DATE   NOT NULL,
+    status   VARCHAR(50)
+);
+
+\echo 'Generating' :users 'users x' :habits 'habits x' :days 'days'
+\timing on
+INSERT INTO habits
+SELECT h, (h - 1) / :habits + 1 FROM generate_series(1, :users * :habits) h;
+
+INSERT INTO habit_logs
+SELECT (d - 1)::BIGINT * (:users * :habits) + h, h, (h - 1) / :habits + 1, DATE '2024-01-01' + d - 1,
+       CASE WHEN random() < 0.7 THEN 'COMPLETED' ELSE 'SKIPPED' END
+FROM generate_series(1, :days) d, generate_series(1, :users * :habits) h;
+
+-- Indexes as of V3
+CREATE INDEX idx_habits_user_id ON habits (user_id);
+CREATE UNIQUE INDEX ux_habit_logs_habit_date ON habit_logs (habit_id, date);
+VACUUM ANALYZE habits;
+VACUUM ANALYZE habit_logs;
+\timing off
+
+-- Runs a query with $1 = random user id :iterations times and returns the mean in milliseconds
+CREATE FUNCTION bench(query TEXT, users INT, iterations INT) RETURNS NUMERIC AS $$
+DECLARE
+    started TIMESTAMPTZ;
+BEGIN
+    FOR i IN 1..least(iterations, 200) LOOP
+        EXECUTE query USING 1 + floor(random() * users)::BIGINT;
+    END LOOP;
+    started := clock_timestamp();
+    FOR i IN 1..iterations LOOP
+        EXECUTE query USING 1 + floor(random() * users)::BIGINT;
+    END LOOP;
+    RETURN round((extract(EPOCH FROM clock_timestamp() - started) * 1000 / iterations)::NUMERIC, 3);
+END $$ LANGUAGE plpgsql;
+
+CREATE TABLE results (query TEXT, variant TEXT, mean_ms NUMERIC);
+
+-- Before: navigate hl.habit.user.id
+INSERT INTO results VALUES
+    ('month logs', 'join habits', bench($q$
+        SELECT count(*) FROM (SELECT hl.id, hl.habit_id, hl.date, hl.status
+            FROM habit_logs hl JOIN habits h ON h.id = hl.habit_id
+            WHERE h.user_id = $1 AND hl.date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31') s
+        $q$, :users, :iterations)),
+    ('completed count', 'join habits', bench($q$
+        SELECT count(*) FROM habit_logs hl JOIN habits h ON h.id = hl.habit_id
+        WHERE h.user_id = $1 AND hl.date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' AND hl.status = 'COMPLETED'
+        $q$, :users, :iterations));
+
+\echo 'Plan before:'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM habit_logs hl JOIN habits h ON h.id = hl.habit_id
+WHERE h.user_id = 4242 AND hl.date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' AND hl.status = 'COMPLETED';
+
+-- After: V4 covering index
+\timing on
+CREATE INDEX idx_habit_logs_user_date_status ON habit_logs (user_id, date, status, habit_id, id);
+VACUUM ANALYZE habit_logs;
+\timing off
+
+INSERT INTO results VALUES
+    ('month logs', 'user_id covering index', bench($q$
+        SELECT count(*) FROM (SELECT id, habit_id, date, status FROM habit_logs
+            WHERE user_id = $1 AND date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31') s
+        $q$, :users, :iterations)),
+    ('completed count', 'user_id covering index', bench($q$
+        SELECT count(*) FROM habit_logs
+        WHERE user_id = $1 AND date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' AND status = 'COMPLETED'
+        $q$, :users, :iterations));
+
+\echo 'Plan after:'
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT count(*) FROM habit_logs
+WHERE user_id = 4242 AND date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' AND status = 'COMPLETED';
+
+SELECT (SELECT count(*) FROM habit_logs) AS logs,
+       pg_size_pretty(pg_relation_size('habit_logs')) AS heap,
+       pg_size_pretty(pg_relation_size('idx_habit_logs_user_date_status')) AS covering_index;
+SELECT query, variant, mean_ms FROM results ORDER BY query, variant;
+
+RESET search_path;
+DROP SCHEMA habit_logs_bench CASCADE;
@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Startup benchmark: plain jar vs the fast-startup build (Spring AOT + AppCDS + lazy init).
+# For each mode starts the application RUNS times and reports the median of
+#   first_request_ms  launch -> first 200 from $FIRST_REQUEST
+#   ready_ms          launch -> 200 from /actuator/health/readiness (includes StartupWarmup)
+#   rss_mb            VmRSS once ready
+#
+#   mvn -B -Pfast-startup package -DskipTests
+#   JDBC_DATABASE_URL=jdbc:postgresql://localhost:5432/postgres scripts/startup-benchmark.sh [runs] [port]
+#
+# Both modes run the same jar with the same JAVA_OPTS; only the startup flags differ.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${2:-18080}
+FIRST_REQUEST=${FIRST_REQUEST:-/api/posts/trending}
+JAVA_OPTS=${JAVA_OPTS:--Xmx512m}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+FAST_DIR="$ROOT/target/fast-startup"
+JAR_NAME=$(cd "$FAST_DIR" 2>/dev/null && ls health-tracker-*.jar 2>/dev/null | head -1 || true)
+if [[ -z "$JAR_NAME" || ! -f "$FAST_DIR/application.jsa" ]]; then
+    echo "Build first: mvn -B -Pfast-startup package -DskipTests" >&2
+    exit 1
+fi
+
+now_ms() { date +%s%3N; }
+
+http_code() { curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT$1" || true; }
+
+# run_once <mode> -> prints "first_request_ms ready_ms rss_mb"
+run_once() {
+    local mode=$1 pid start first="" ready=""
+    local flags=(-Dserver.port="$PORT")
+    if [[ $mode == fast ]]; then
+        flags+=(-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup)
+    fi
+    start=$(now_ms)
+    # shellcheck disable=SC2086
+    (cd "$FAST_DIR" && exec java $JAVA_OPTS "${flags[@]}" -jar "$JAR_NAME") >"$ROOT/target/startup-$mode.log" 2>&1 &
+    pid=$!
+    while [[ -z "$ready" ]]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited, see target/startup-$mode.log" >&2
+            return 1
+        fi
+        if (( $(now_ms) - start > TIMEOUT_S * 1000 )); then
+            kill "$pid"; echo "timed out, see target/startup-$mode.log" >&2
+            return 1
+        fi
+        if [[ -z "$first" && $(http_code "$FIRST_REQUEST") == 200 ]]; then
+            first=$(( $(now_ms) - start ))
+        fi
+        if [[ -n "$first" && $(http_code /actuator/health/readiness) == 200 ]]; then
+            ready=$(( $(now_ms) - start ))
+        fi
+        sleep 0.02
+    done
+    local rss_kb
+    rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$first $ready $(( rss_kb / 1024 ))"
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+printf '%-8s %6s %18s %10s %8s\n' mode runs first_request_ms ready_ms rss_mb
+for mode in default fast; do
+    results=()
+    for ((i = 0; i < RUNS; i++)); do
+        results+=("$(run_once "$mode")")
+    done
+    first=$(printf '%s\n' "${results[@]}" | awk '{print $1}' | median)
+    ready=$(printf '%s\n' "${results[@]}" | awk '{print $2}' | median)
+    rss=$(printf '%s\n' "${results[@]}" | awk '{print $3}' | median)
+    printf '%-8s %6d %18d %10d %8d\n' "$mode" "$RUNS" "$first" "$ready" "$rss"
+done
@@ -0,0 +1,120 @@
+package com.helthtracer.controller.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.helthtracer.model.Post;
+import com.helthtracer.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Сборка и сериализация ответа горячих эндпоинтов: как было (HashMap + сущность) и типизированной записью.
+// Главная метрика — gc.alloc.rate.norm (байт на вызов) из -prof gc. ObjectMapper — как у Spring Boot
+// (Jackson2ObjectMapperBuilder), вывод — в пустой поток, чтобы мерить ответ, а не буфер.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    // Как у Spring MVC: поток ответа после записи не закрывается
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter statsWriter;
+    private ObjectWriter likeWriter;
+    private ObjectWriter postWriter;
+    private ObjectWriter loginWriter;
+    private User user;
+    private Post post;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        statsWriter = objectMapper.writerFor(UserStatsResponse.class);
+        likeWriter = objectMapper.writerFor(LikeResponse.class);
+        postWriter = objectMapper.writerFor(PostResponse.class);
+        loginWriter = objectMapper.writerFor(LoginResponse.class);
+        user = new User("runner", "runner@example.com", "secret");
+        user.setId(42L);
+        post = new Post(user, "Morning run", "5 km before breakfast", "fitness");
+        post.setId(7L);
+        post.setCreatedAt(LocalDateTime.of(2024, 3, 1, 7, 30));
+        post.setUpdatedAt(post.getCreatedAt());
+    }
+
+    @Benchmark
+    public void userStatsMap() throws IOException {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalHabits", 5);
+        stats.put("completedThisMonth", 37);
+        stats.put("expectedThisMonth", 45);
+        stats.put("completionRate", 82L);
+        stats.put("averageSleep", 7.4);
+        stats.put("sleepScores", null);
+        stats.put("currentStreak", 9);
+        objectMapper.writeValue(sink, stats);
+    }
+
+    @Benchmark
+    public void userStatsRecord() throws IOException {
+        statsWriter.writeValue(sink, new UserStatsResponse(5, 37, 45, 82L, 7.4, null, 9));
+    }
+
+    @Benchmark
+    public void toggleLikeMap() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("liked", true);
+        response.put("message", "Post liked");
+        objectMapper.writeValue(sink, response);
+    }
+
+    @Benchmark
+    public void toggleLikeRecord() throws IOException {
+        likeWriter.writeValue(sink, new LikeResponse(true, true, "Post liked"));
+    }
+
+    @Benchmark
+    public void createPostMap() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("post", post);
+        objectMapper.writeValue(sink, response);
+    }
+
+    @Benchmark
+    public void createPostRecord() throws IOException {
+        postWriter.writeValue(sink, new PostResponse(true, PostView.of(post)));
+    }
+
+    @Benchmark
+    public void loginMap() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("user", user);
+        response.put("token", "jwt-token-1700000000000");
+        objectMapper.writeValue(sink, response);
+    }
+
+    @Benchmark
+    public void loginRecord() throws IOException {
+        loginWriter.writeValue(sink, new LoginResponse(true, UserView.of(user), "jwt-token-1700000000000"));
+    }
+}
@@ -2,8 +2,10 @@ package com.helthtracer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 //оооо
 @SpringBootApplication
+@EnableScheduling
 public class HealthTracerApplication {
     public static void main(String[] args) {
         SpringApplication.run(HealthTracerApplication.class, args);
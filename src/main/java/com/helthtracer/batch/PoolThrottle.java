@@ -0,0 +1,39 @@
+package com.helthtracer.batch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Занятость пулов соединений по метрикам Hikari (hikaricp.connections.*), по всем пулам — и записи, и реплики.
+// Пул насыщен, если в нём кто-то ждёт соединение или занято не меньше maxUsage соединений.
+class PoolThrottle {
+
+    private final MeterRegistry meterRegistry;
+    private final double maxUsage;
+
+    PoolThrottle(MeterRegistry meterRegistry, double maxUsage) {
+        this.meterRegistry = meterRegistry;
+        this.maxUsage = maxUsage;
+    }
+
+    boolean saturated() {
+        return usage() >= maxUsage;
+    }
+
+    // active / max самого загруженного пула; 1, если есть ожидающие
+    double usage() {
+        for (Gauge pending : meterRegistry.find("hikaricp.connections.pending").gauges()) {
+            if (pending.value() > 0) {
+                return 1;
+            }
+        }
+        double usage = 0;
+        for (Gauge active : meterRegistry.find("hikaricp.connections.active").gauges()) {
+            Gauge max = meterRegistry.find("hikaricp.connections.max")
+                    .tag("pool", active.getId().getTag("pool")).gauge();
+            if (max != null && max.value() > 0) {
+                usage = Math.max(usage, active.value() / max.value());
+            }
+        }
+        return usage;
+    }
+}
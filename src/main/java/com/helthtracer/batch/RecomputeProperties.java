@@ -0,0 +1,32 @@
+package com.helthtracer.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+// app.recompute.*: scheduledTasks — задачи, запускаемые по app.recompute.cron.
+// Пространство id пользователей делится на partitions диапазонов, их обрабатывают concurrency потоков
+// порциями по chunkSize пользователей в транзакции. Перед порцией поток ждёт по throttlePause,
+// пока занятость пула соединений не ниже maxPoolUsage.
+// Запуск, не продлевавший heartbeat дольше leaseTimeout, считается брошенным и продолжается с чекпойнтов.
+@ConfigurationProperties("app.recompute")
+public record RecomputeProperties(boolean enabled,
+                                  List<String> scheduledTasks,
+                                  int partitions,
+                                  int concurrency,
+                                  int chunkSize,
+                                  double maxPoolUsage,
+                                  Duration throttlePause,
+                                  Duration leaseTimeout) {
+
+    public RecomputeProperties {
+        scheduledTasks = scheduledTasks != null ? List.copyOf(scheduledTasks) : List.of();
+        partitions = partitions > 0 ? partitions : 16;
+        concurrency = concurrency > 0 ? concurrency : 2;
+        chunkSize = chunkSize > 0 ? chunkSize : 100;
+        maxPoolUsage = maxPoolUsage > 0 ? maxPoolUsage : 0.75;
+        throttlePause = throttlePause != null ? throttlePause : Duration.ofMillis(200);
+        leaseTimeout = leaseTimeout != null ? leaseTimeout : Duration.ofMinutes(5);
+    }
+}
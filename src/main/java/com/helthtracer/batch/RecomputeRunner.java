@@ -0,0 +1,408 @@
+package com.helthtracer.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пакетный пересчёт производных данных (RecomputeTask) по всем пользователям.
+// Запуск делит users.id на partitions диапазонов (recompute_ranges), их обрабатывают concurrency потоков —
+// порциями по chunkSize пользователей. Каждый пользователь пересчитывается и коммитится отдельно (иначе
+// строки уже пройденных пользователей оставались бы заблокированы для живых записей до конца порции),
+// после порции сдвигается position диапазона. Прерванный запуск (рестарт, падение узла) продолжается
+// с последнего чекпойнта — этим или другим узлом, как только heartbeat запуска устареет на leaseTimeout;
+// пользователи недописанной порции пересчитываются повторно, поэтому recompute идемпотентен.
+// Перед каждой порцией поток ждёт, пока пулы соединений не разгрузятся (PoolThrottle), —
+// пересчёт не отнимает соединения у живого трафика.
+@Service
+@EnableConfigurationProperties(RecomputeProperties.class)
+public class RecomputeRunner {
+
+    public record RunStatus(String task,
+                            String status,
+                            LocalDateTime startedAt,
+                            LocalDateTime heartbeatAt,
+                            LocalDateTime finishedAt,
+                            int ranges,
+                            int rangesDone,
+                            long users,
+                            String error) {}
+
+    static final String RUNNING = "RUNNING";
+    static final String DONE = "DONE";
+    static final String FAILED = "FAILED";
+
+    private static final Logger log = LoggerFactory.getLogger(RecomputeRunner.class);
+
+    private static final String STATUS_SELECT = """
+            SELECT r.task, r.status, r.started_at, r.heartbeat_at, r.finished_at, r.error,
+                   (SELECT COUNT(*) FROM recompute_ranges g WHERE g.task = r.task) AS ranges,
+                   (SELECT COUNT(*) FROM recompute_ranges g WHERE g.task = r.task AND g.done) AS ranges_done,
+                   (SELECT COALESCE(SUM(g.users), 0) FROM recompute_ranges g WHERE g.task = r.task) AS users
+            FROM recompute_runs r
+            """;
+    private static final String RUN_INSERT = """
+            INSERT INTO recompute_runs (task, status, owner, heartbeat_at, started_at) VALUES (?, 'RUNNING', ?, ?, ?)
+            """;
+    // Захват по прочитанному heartbeat: из нескольких узлов запуск продолжит ровно один
+    private static final String RUN_CLAIM = """
+            UPDATE recompute_runs SET status = 'RUNNING', owner = ?, heartbeat_at = ?, finished_at = NULL, error = NULL
+            WHERE task = ? AND heartbeat_at = ?
+            """;
+    private static final String RUN_HEARTBEAT = """
+            UPDATE recompute_runs SET heartbeat_at = LOCALTIMESTAMP WHERE task = ? AND owner = ? AND status = 'RUNNING'
+            """;
+    private static final String RUN_FINISH = """
+            UPDATE recompute_runs SET status = ?, error = ?, finished_at = LOCALTIMESTAMP
+            WHERE task = ? AND owner = ? AND status = 'RUNNING'
+            """;
+    private static final String RANGES_SELECT =
+            "SELECT range_start, range_end, position FROM recompute_ranges WHERE task = ? AND NOT done ORDER BY range_start";
+    private static final String RANGE_INSERT =
+            "INSERT INTO recompute_ranges (task, range_start, range_end, position) VALUES (?, ?, ?, ?)";
+    private static final String RANGE_UPDATE = """
+            UPDATE recompute_ranges SET position = ?, users = users + ?, done = ? WHERE task = ? AND range_start = ?
+            """;
+    private static final String USERS_SELECT = "SELECT id FROM users WHERE id > ? AND id < ? ORDER BY id LIMIT ?";
+
+    private record Range(long start, long end, long position) {}
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, RecomputeTask> tasks = new LinkedHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecomputeProperties properties;
+    private final PoolThrottle throttle;
+    private final MeterRegistry meterRegistry;
+    private final Counter throttled;
+    private final ExecutorService executor;
+    // Запуски, которые исполняет этот узел
+    private final Map<String, Execution> executions = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    public RecomputeRunner(List<RecomputeTask> tasks,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           RecomputeProperties properties,
+                           MeterRegistry meterRegistry) {
+        for (RecomputeTask task : tasks) {
+            this.tasks.put(task.name(), task);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.throttle = new PoolThrottle(meterRegistry, properties.maxPoolUsage());
+        this.meterRegistry = meterRegistry;
+        this.throttled = Counter.builder("recompute.throttled").register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.concurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "recompute-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Set<String> taskNames() {
+        return tasks.keySet();
+    }
+
+    public List<RunStatus> statuses() {
+        return jdbcTemplate.query(STATUS_SELECT + " ORDER BY r.task", statusMapper());
+    }
+
+    public Optional<RunStatus> status(String task) {
+        return jdbcTemplate.query(STATUS_SELECT + " WHERE r.task = ?", statusMapper(), task).stream().findFirst();
+    }
+
+    // Новый запуск с начала; resume — продолжить незавершённый (FAILED или брошенный) с чекпойнтов.
+    // IllegalArgumentException — нет такой задачи, IllegalStateException — запуск уже идёт.
+    public RunStatus start(String name, boolean resume) {
+        RecomputeTask task = tasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown recompute task " + name);
+        }
+        if (executions.containsKey(name)) {
+            throw new IllegalStateException("Recompute of " + name + " is already running");
+        }
+        LocalDateTime now = now();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                RunStatus current = status(name).orElse(null);
+                if (current != null && RUNNING.equals(current.status()) && !abandoned(current, now)) {
+                    throw new IllegalStateException("Recompute of " + name + " is already running");
+                }
+                if (resume && current != null && !DONE.equals(current.status())) {
+                    if (!claim(name, current.heartbeatAt(), now)) {
+                        throw new IllegalStateException("Recompute of " + name + " was resumed by another node");
+                    }
+                    return;
+                }
+                jdbcTemplate.update("DELETE FROM recompute_ranges WHERE task = ?", name);
+                jdbcTemplate.update("DELETE FROM recompute_runs WHERE task = ?", name);
+                jdbcTemplate.update(RUN_INSERT, name, nodeId, now, now);
+                createRanges(name);
+            });
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("Recompute of " + name + " was started by another node", e);
+        }
+        execute(task);
+        return status(name).orElseThrow();
+    }
+
+    @Scheduled(cron = "${app.recompute.cron:-}")
+    public void scheduledRun() {
+        if (!properties.enabled()) {
+            return;
+        }
+        for (String name : properties.scheduledTasks()) {
+            try {
+                start(name, false);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                log.warn("Scheduled recompute of {} skipped: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    // Подхватывает запуски, чей узел перестал продлевать heartbeat (рестарт, падение)
+    @Scheduled(fixedDelayString = "${app.recompute.resume-check-ms:60000}",
+            initialDelayString = "${app.recompute.resume-check-ms:60000}")
+    public void resumeAbandoned() {
+        if (!properties.enabled()) {
+            return;
+        }
+        LocalDateTime now = now();
+        for (RunStatus run : statuses()) {
+            RecomputeTask task = tasks.get(run.task());
+            if (task != null && RUNNING.equals(run.status()) && abandoned(run, now)
+                    && !executions.containsKey(run.task()) && claim(run.task(), run.heartbeatAt(), now)) {
+                log.info("Resuming abandoned recompute of {}: {} of {} ranges done",
+                        run.task(), run.rangesDone(), run.ranges());
+                execute(task);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Незаконченные диапазоны продолжит resumeAbandoned — здесь или на другом узле
+        shuttingDown = true;
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private boolean claim(String name, LocalDateTime heartbeatAt, LocalDateTime now) {
+        return jdbcTemplate.update(RUN_CLAIM, nodeId, now, name, heartbeatAt) == 1;
+    }
+
+    private boolean abandoned(RunStatus run, LocalDateTime now) {
+        return run.heartbeatAt().isBefore(now.minus(properties.leaseTimeout()));
+    }
+
+    // Равные по ширине диапазоны id; последний закрывается max(id) + 1 — новые пользователи и так свежие
+    private void createRanges(String name) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM users");
+        if (bounds.get("min_id") == null) {
+            return;
+        }
+        long min = ((Number) bounds.get("min_id")).longValue();
+        long max = ((Number) bounds.get("max_id")).longValue();
+        long width = (max - min) / properties.partitions() + 1;
+        List<Object[]> ranges = new ArrayList<>();
+        for (long start = min; start <= max; start += width) {
+            ranges.add(new Object[]{name, start, Math.min(start + width, max + 1), start - 1});
+        }
+        jdbcTemplate.batchUpdate(RANGE_INSERT, ranges);
+    }
+
+    private void execute(RecomputeTask task) {
+        List<Range> ranges = jdbcTemplate.query(RANGES_SELECT,
+                (rs, rowNum) -> new Range(rs.getLong(1), rs.getLong(2), rs.getLong(3)), task.name());
+        Execution execution = new Execution(task, ranges.size());
+        if (executions.putIfAbsent(task.name(), execution) != null) {
+            return;
+        }
+        log.info("Recompute of {} started: {} ranges, {} threads", task.name(), ranges.size(), properties.concurrency());
+        if (ranges.isEmpty()) {
+            finish(execution);
+            return;
+        }
+        for (Range range : ranges) {
+            executor.execute(() -> processRange(execution, range));
+        }
+    }
+
+    private void processRange(Execution execution, Range range) {
+        String name = execution.task.name();
+        long position = range.position();
+        try {
+            while (!execution.stopped) {
+                awaitCapacity(execution);
+                if (execution.stopped) {
+                    break;
+                }
+                long after = position;
+                long[] ids = execution.chunkTimer.record(() -> {
+                    long[] chunk = nextUserIds(after, range.end());
+                    // каждый пользователь — своя транзакция задачи: блокировки строк не держатся до конца порции
+                    for (long userId : chunk) {
+                        execution.task.recompute(userId);
+                    }
+                    long last = chunk.length > 0 ? chunk[chunk.length - 1] : after;
+                    jdbcTemplate.update(RANGE_UPDATE, last, chunk.length, chunk.length < properties.chunkSize(),
+                            name, range.start());
+                    return chunk;
+                });
+                execution.users.increment(ids.length);
+                execution.processed.addAndGet(ids.length);
+                if (ids.length < properties.chunkSize()) {
+                    break;
+                }
+                position = ids[ids.length - 1];
+                heartbeat(execution);
+            }
+        } catch (RuntimeException e) {
+            if (!shuttingDown) {
+                log.error("Recompute of {} failed in range {}..{} after user {}",
+                        name, range.start(), range.end() - 1, position, e);
+                execution.fail(e);
+            }
+        } finally {
+            if (execution.remaining.decrementAndGet() == 0) {
+                finish(execution);
+            }
+        }
+    }
+
+    private void awaitCapacity(Execution execution) {
+        while (!execution.stopped && throttle.saturated()) {
+            throttled.increment();
+            heartbeat(execution);
+            try {
+                Thread.sleep(properties.throttlePause().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                execution.stopped = true;
+            }
+        }
+    }
+
+    // Не чаще раза в десятую долю аренды; чужой владелец — запуск перехвачен, останавливаемся
+    private void heartbeat(Execution execution) {
+        long now = System.nanoTime();
+        long last = execution.lastHeartbeatNanos.get();
+        if (now - last < properties.leaseTimeout().toNanos() / 10
+                || !execution.lastHeartbeatNanos.compareAndSet(last, now)) {
+            return;
+        }
+        if (jdbcTemplate.update(RUN_HEARTBEAT, execution.task.name(), nodeId) == 0) {
+            log.warn("Recompute of {} was taken over by another node, stopping", execution.task.name());
+            execution.lost = true;
+            execution.stopped = true;
+        }
+    }
+
+    private void finish(Execution execution) {
+        String name = execution.task.name();
+        executions.remove(name);
+        if (execution.lost || shuttingDown) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - execution.startedNanos);
+        if (execution.error != null) {
+            meterRegistry.counter("recompute.failures", "task", name).increment();
+            jdbcTemplate.update(RUN_FINISH, FAILED, truncate(execution.error.toString()), name, nodeId);
+            return;
+        }
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM recompute_ranges WHERE task = ? AND NOT done", Integer.class, name);
+        if (pending != null && pending == 0) {
+            jdbcTemplate.update(RUN_FINISH, DONE, null, name, nodeId);
+            log.info("Recompute of {} finished: {} users in {} ms", name, execution.processed.get(), millis);
+        }
+    }
+
+    private long[] nextUserIds(long afterId, long endId) {
+        long[] ids = new long[properties.chunkSize()];
+        int[] count = {0};
+        jdbcTemplate.query(USERS_SELECT, rs -> {
+            ids[count[0]++] = rs.getLong(1);
+        }, afterId, endId, properties.chunkSize());
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    private LocalDateTime now() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static RowMapper<RunStatus> statusMapper() {
+        return (rs, rowNum) -> new RunStatus(
+                rs.getString("task"),
+                rs.getString("status"),
+                rs.getObject("started_at", LocalDateTime.class),
+                rs.getObject("heartbeat_at", LocalDateTime.class),
+                rs.getObject("finished_at", LocalDateTime.class),
+                rs.getInt("ranges"),
+                rs.getInt("ranges_done"),
+                rs.getLong("users"),
+                rs.getString("error"));
+    }
+
+    // Исполнение одного запуска на этом узле
+    private final class Execution {
+
+        final RecomputeTask task;
+        final AtomicInteger remaining;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong lastHeartbeatNanos = new AtomicLong(System.nanoTime());
+        final long startedNanos = System.nanoTime();
+        final Counter users;
+        final Timer chunkTimer;
+        volatile boolean stopped;
+        volatile boolean lost;
+        volatile Throwable error;
+
+        Execution(RecomputeTask task, int ranges) {
+            this.task = task;
+            this.remaining = new AtomicInteger(ranges);
+            this.users = Counter.builder("recompute.users").tag("task", task.name()).register(meterRegistry);
+            this.chunkTimer = Timer.builder("recompute.chunk").tag("task", task.name()).register(meterRegistry);
+        }
+
+        // Первая ошибка останавливает остальные диапазоны после их текущей порции
+        void fail(Throwable e) {
+            if (error == null) {
+                error = e;
+            }
+            stopped = true;
+        }
+    }
+}
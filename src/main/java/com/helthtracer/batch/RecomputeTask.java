@@ -0,0 +1,13 @@
+package com.helthtracer.batch;
+
+// Производные данные пользователя, которые можно пересобрать из первичных (счётчики, оценки, серии).
+// RecomputeRunner вызывает recompute вне транзакции: задача сама коммитит пересчёт пользователя
+// (и, если пишет под своей блокировкой, — до её снятия). Вызов должен быть идемпотентным —
+// после сбоя порция повторяется целиком.
+public interface RecomputeTask {
+
+    // Имя в API и в recompute_runs
+    String name();
+
+    void recompute(Long userId);
+}
@@ -0,0 +1,43 @@
+package com.helthtracer.cache;
+
+import java.util.Objects;
+
+// Что выбросить из кешей на всех узлах: один ключ региона или (key == null) весь регион.
+// Для сущностей Hibernate регион — имя сущности, ключ — id (см. HibernateCacheInvalidator).
+public record CacheInvalidation(String region, String key) {
+
+    // Регион "*" без ключа — сбросить все кеши (узел мог пропустить часть инвалидаций)
+    public static final String ALL_REGIONS = "*";
+
+    public CacheInvalidation {
+        Objects.requireNonNull(region, "region");
+    }
+
+    public static CacheInvalidation key(String region, Object key) {
+        return new CacheInvalidation(region, String.valueOf(key));
+    }
+
+    public static CacheInvalidation region(String region) {
+        return new CacheInvalidation(region, null);
+    }
+
+    public static CacheInvalidation entity(Class<?> entityType, Object id) {
+        return key(entityType.getName(), id);
+    }
+
+    public static CacheInvalidation entities(Class<?> entityType) {
+        return region(entityType.getName());
+    }
+
+    public static CacheInvalidation all() {
+        return region(ALL_REGIONS);
+    }
+
+    public boolean isWholeRegion() {
+        return key == null;
+    }
+
+    public boolean isAll() {
+        return ALL_REGIONS.equals(region);
+    }
+}
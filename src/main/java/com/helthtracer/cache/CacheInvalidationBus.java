@@ -0,0 +1,228 @@
+package com.helthtracer.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Шина инвалидации кешей между узлами за балансировщиком.
+// publish после коммита сразу чистит кеши этого узла и ставит инвалидацию в очередь для остальных;
+// поток шины раз в flushInterval отправляет очередь одним батчем (дубли в окне схлопываются)
+// и раз в pollInterval забирает чужие батчи из транспорта.
+// Свой поток, а не @Scheduled: общий планировщик однопоточный, и архивация держала бы его минутами.
+@Component
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheInvalidationProperties properties;
+    private final InvalidationTransport transport;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final Set<CacheInvalidation> pending = ConcurrentHashMap.newKeySet();
+    // Момент, с которого в pending лежит самая старая инвалидация (0 — пусто)
+    private final AtomicLong pendingSinceNanos = new AtomicLong();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter overflows;
+    private final Counter sendErrors;
+    private final Counter pollErrors;
+    private final DistributionSummary batchSize;
+    private final Timer queuedLag;
+    private final Timer deliveredLag;
+
+    private ScheduledExecutorService executor;
+
+    public CacheInvalidationBus(CacheInvalidationProperties properties,
+                                InvalidationTransport transport,
+                                ObjectProvider<CacheInvalidationListener> listeners,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.transport = transport;
+        this.listeners = listeners;
+        this.sent = Counter.builder("cache.invalidation.sent").register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.received").register(meterRegistry);
+        this.overflows = Counter.builder("cache.invalidation.overflows").register(meterRegistry);
+        this.sendErrors = Counter.builder("cache.invalidation.errors").tag("operation", "send").register(meterRegistry);
+        this.pollErrors = Counter.builder("cache.invalidation.errors").tag("operation", "poll").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("cache.invalidation.batch.size").register(meterRegistry);
+        // queued — от коммита до отправки, delivered — от отправки до получения другим узлом;
+        // их сумма — задержка распространения, бакет maxLag показывает долю, уложившуюся в границу
+        this.queuedLag = Timer.builder("cache.invalidation.lag").tag("stage", "queued")
+                .serviceLevelObjectives(properties.maxLag()).register(meterRegistry);
+        this.deliveredLag = Timer.builder("cache.invalidation.lag").tag("stage", "delivered")
+                .serviceLevelObjectives(properties.maxLag()).register(meterRegistry);
+        Gauge.builder("cache.invalidation.pending", pending, Set::size).register(meterRegistry);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // Сбросить на всех узлах, включая этот; внутри транзакции — после коммита
+    public void publish(CacheInvalidation invalidation) {
+        afterCommit(() -> {
+            deliver(List.of(invalidation));
+            enqueue(invalidation);
+        });
+    }
+
+    // Только другим узлам: данные уже закоммичены, а свой кеш их владелец обновил сам
+    // (так делает Hibernate для своих сущностей, см. HibernateCacheInvalidator)
+    public void publishToOtherNodes(CacheInvalidation invalidation) {
+        enqueue(invalidation);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.enabled() || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = properties.flushInterval().toMillis();
+        long pollMillis = properties.pollInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+        log.info("Cache invalidation bus started: node {}, transport {}", nodeId, properties.transport());
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        if (executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            flush();
+        }
+        executor = null;
+    }
+
+    // Отправить накопленное; вызывается потоком шины (и тестами)
+    void flush() {
+        long since = pendingSinceNanos.getAndSet(0);
+        List<CacheInvalidation> batch = drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < batch.size(); from += properties.maxBatch()) {
+            List<CacheInvalidation> chunk = batch.subList(from, Math.min(batch.size(), from + properties.maxBatch()));
+            try {
+                transport.send(nodeId, chunk);
+            } catch (RuntimeException e) {
+                // не отправленное вернётся в очередь и уйдёт следующим flush
+                sendErrors.increment();
+                log.warn("Failed to send {} cache invalidations", batch.size() - from, e);
+                batch.subList(from, batch.size()).forEach(this::enqueue);
+                pendingSinceNanos.accumulateAndGet(since, CacheInvalidationBus::olderNonZero);
+                return;
+            }
+            sent.increment(chunk.size());
+            batchSize.record(chunk.size());
+        }
+        if (since != 0) {
+            queuedLag.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Забрать инвалидации других узлов; вызывается потоком шины (и тестами)
+    void poll() {
+        try {
+            transport.poll(nodeId, this::receive);
+        } catch (RuntimeException e) {
+            pollErrors.increment();
+            log.warn("Failed to poll cache invalidations", e);
+        }
+    }
+
+    private void receive(List<CacheInvalidation> invalidations, Duration lag) {
+        received.increment(invalidations.size());
+        deliveredLag.record(lag);
+        if (lag.compareTo(properties.maxLag()) > 0) {
+            log.debug("Cache invalidations arrived {} ms after send", lag.toMillis());
+        }
+        deliver(invalidations);
+    }
+
+    private void deliver(List<CacheInvalidation> invalidations) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onInvalidations(invalidations);
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    private void enqueue(CacheInvalidation invalidation) {
+        if (!properties.enabled()) {
+            return;
+        }
+        if (pending.size() >= properties.maxPending()) {
+            // Не успеваем отправлять — другим узлам дешевле сбросить всё, чем копить память
+            overflows.increment();
+            pending.clear();
+            invalidation = CacheInvalidation.all();
+        }
+        pending.add(invalidation);
+        pendingSinceNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    private List<CacheInvalidation> drain() {
+        List<CacheInvalidation> batch = new ArrayList<>();
+        Iterator<CacheInvalidation> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long olderNonZero(long current, long candidate) {
+        if (current == 0 || candidate == 0) {
+            return Math.max(current, candidate);
+        }
+        return current - candidate < 0 ? current : candidate;
+    }
+}
@@ -0,0 +1,11 @@
+package com.helthtracer.cache;
+
+import java.util.List;
+
+// Владелец внутрипроцессного кеша: получает инвалидации после коммита (свои) и от других узлов.
+// Вызывается из потока шины или из потока, закоммитившего транзакцию, — реализация должна быть быстрой
+// и потокобезопасной; регионы, которых она не знает, пропускает.
+public interface CacheInvalidationListener {
+
+    void onInvalidations(List<CacheInvalidation> invalidations);
+}
@@ -0,0 +1,33 @@
+package com.helthtracer.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// app.cache-invalidation.*: transport — local (один узел) или jdbc (таблица cache_invalidations).
+// Инвалидация доходит до других узлов не позже flushInterval + pollInterval + время опроса;
+// maxLag — граница, относительно которой считается гистограмма cache.invalidation.lag.
+// maxBatch — строк за одну отправку, maxPending — сколько неотправленных держим, дальше сбрасываем всё.
+// lookback и retention — окно перечитывания и срок хранения строк (JdbcInvalidationTransport).
+@ConfigurationProperties("app.cache-invalidation")
+public record CacheInvalidationProperties(boolean enabled,
+                                          String transport,
+                                          Duration flushInterval,
+                                          Duration pollInterval,
+                                          Duration maxLag,
+                                          int maxBatch,
+                                          int maxPending,
+                                          Duration lookback,
+                                          Duration retention) {
+
+    public CacheInvalidationProperties {
+        transport = transport != null ? transport : "local";
+        flushInterval = flushInterval != null ? flushInterval : Duration.ofMillis(100);
+        pollInterval = pollInterval != null ? pollInterval : Duration.ofMillis(500);
+        maxLag = maxLag != null ? maxLag : Duration.ofSeconds(1);
+        maxBatch = maxBatch > 0 ? maxBatch : 500;
+        maxPending = maxPending > 0 ? maxPending : 10_000;
+        lookback = lookback != null ? lookback : Duration.ofSeconds(5);
+        retention = retention != null ? retention : Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,118 @@
+package com.helthtracer.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Второй уровень Hibernate (users, habits, tags) и кеш запросов живут в памяти каждого узла.
+// Запись своего узла Hibernate учитывает сам; остальным после коммита уходит инвалидация
+// "имя сущности + id" (для некешируемых сущностей — без id: важны только их таблицы в кеше запросов).
+// Получив её, узел выбрасывает сущность из региона и помечает таблицы сущности изменёнными
+// в update-timestamps — кешированные запросы по ним перестают считаться свежими.
+// Массовые записи мимо Hibernate (JdbcTemplate) публикуют CacheInvalidation.entities(...) сами.
+@Component
+public class HibernateCacheInvalidator implements CacheInvalidationListener,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final CacheInvalidationBus bus;
+
+    public HibernateCacheInvalidator(EntityManagerFactory entityManagerFactory, CacheInvalidationBus bus) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.bus = bus;
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onInvalidations(List<CacheInvalidation> invalidations) {
+        CacheImplementor cache = sessionFactory.getCache();
+        Set<String> querySpaces = new LinkedHashSet<>();
+        for (CacheInvalidation invalidation : invalidations) {
+            if (invalidation.isAll()) {
+                cache.evictAllRegions();
+                return;
+            }
+            EntityPersister persister = sessionFactory.getMappingMetamodel().findEntityDescriptor(invalidation.region());
+            if (persister == null) {
+                continue;
+            }
+            if (persister.canWriteToCache()) {
+                if (invalidation.isWholeRegion()) {
+                    cache.evictEntityData(persister.getEntityName());
+                } else {
+                    Object id = persister.getIdentifierMapping().getJavaType().fromString(invalidation.key());
+                    cache.evictEntityData(persister.getEntityName(), id);
+                }
+            }
+            persister.visitQuerySpaces(querySpaces::add);
+        }
+        if (!querySpaces.isEmpty() && sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            try (Session session = sessionFactory.openSession()) {
+                cache.getTimestampsCache().invalidate(querySpaces.toArray(String[]::new),
+                        (SharedSessionContractImplementor) session);
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(EntityPersister persister, Object id) {
+        bus.publishToOtherNodes(persister.canWriteToCache()
+                ? CacheInvalidation.key(persister.getEntityName(), id)
+                : CacheInvalidation.region(persister.getEntityName()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.helthtracer.cache;
+
+import java.time.Duration;
+import java.util.List;
+
+// Доставка инвалидаций между узлами. Обоими методами пользуется только поток CacheInvalidationBus.
+public interface InvalidationTransport {
+
+    // Разослать батч остальным узлам
+    void send(String nodeId, List<CacheInvalidation> invalidations);
+
+    // Передать receiver новые инвалидации других узлов (свои узел не получает)
+    void poll(String nodeId, Receiver receiver);
+
+    interface Receiver {
+        // lag — от отправки до получения этим узлом
+        void receive(List<CacheInvalidation> invalidations, Duration lag);
+    }
+}
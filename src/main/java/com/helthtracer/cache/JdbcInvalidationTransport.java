@@ -0,0 +1,105 @@
+package com.helthtracer.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Транспорт через таблицу cache_invalidations (V5): send — батч INSERT, poll — выборка строк других узлов.
+// Работает на любой БД проекта (PostgreSQL, H2 в тестах) и не держит отдельного соединения, как LISTEN.
+//
+// id из sequence выдаются до коммита, поэтому курсор по id терял бы строки медленных транзакций.
+// Читаем по времени БД с запасом lookback и помним уже виденные id этого окна.
+// Строки старше retention удаляются; узел, не опрашивавший таблицу дольше retention, сбрасывает все кеши.
+@Component
+@ConditionalOnProperty(name = "app.cache-invalidation.transport", havingValue = "jdbc")
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_invalidations (node_id, region, cache_key) VALUES (?, ?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT id, node_id, region, cache_key, created_at FROM cache_invalidations"
+                    + " WHERE created_at >= ? ORDER BY id";
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(1);
+
+    private record Row(long id, String nodeId, CacheInvalidation invalidation, LocalDateTime createdAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration lookback;
+    private final Duration retention;
+
+    // Состояние опроса; меняется только потоком шины
+    private LocalDateTime watermark;
+    private LocalDateTime lastCleanup;
+    private final Map<Long, LocalDateTime> seen = new HashMap<>();
+
+    public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate, CacheInvalidationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lookback = properties.lookback();
+        this.retention = properties.retention();
+    }
+
+    @Override
+    public void send(String nodeId, List<CacheInvalidation> invalidations) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, invalidations, invalidations.size(), (ps, invalidation) -> {
+            ps.setString(1, nodeId);
+            ps.setString(2, invalidation.region());
+            ps.setString(3, invalidation.key());
+        });
+    }
+
+    @Override
+    public void poll(String nodeId, Receiver receiver) {
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+        // Новый узел начинает с пустыми кешами — история ему не нужна, строки окна только запоминаем
+        boolean firstPoll = watermark == null;
+        if (firstPoll) {
+            watermark = now;
+            lastCleanup = now;
+        } else if (Duration.between(watermark, now).compareTo(retention) > 0) {
+            // Нужные строки могли быть уже удалены
+            receiver.receive(List.of(CacheInvalidation.all()), Duration.between(watermark, now));
+            seen.clear();
+            watermark = now;
+            return;
+        }
+
+        List<Row> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Row(
+                rs.getLong("id"),
+                rs.getString("node_id"),
+                new CacheInvalidation(rs.getString("region"), rs.getString("cache_key")),
+                rs.getObject("created_at", LocalDateTime.class)), watermark.minus(lookback));
+
+        List<CacheInvalidation> received = new ArrayList<>();
+        LocalDateTime oldest = null;
+        for (Row row : rows) {
+            if (seen.putIfAbsent(row.id(), row.createdAt()) != null || firstPoll || row.nodeId().equals(nodeId)) {
+                continue;
+            }
+            received.add(row.invalidation());
+            if (oldest == null || row.createdAt().isBefore(oldest)) {
+                oldest = row.createdAt();
+            }
+        }
+        LocalDateTime horizon = now.minus(lookback);
+        seen.values().removeIf(createdAt -> createdAt.isBefore(horizon));
+        watermark = now;
+
+        if (!received.isEmpty()) {
+            Duration lag = Duration.between(oldest, now);
+            receiver.receive(received, lag.isNegative() ? Duration.ZERO : lag);
+        }
+        if (Duration.between(lastCleanup, now).compareTo(CLEANUP_INTERVAL) >= 0) {
+            jdbcTemplate.update("DELETE FROM cache_invalidations WHERE created_at < ?", now.minus(retention));
+            lastCleanup = now;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.helthtracer.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Транспорт в пределах одной JVM: один узел или несколько шин на общем экземпляре (тесты).
+// Узел получает почтовый ящик при первом poll; батчи кладутся в ящики всех остальных узлов.
+@Component
+@ConditionalOnProperty(name = "app.cache-invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private record Message(List<CacheInvalidation> invalidations, long sentAtNanos) {}
+
+    private final Map<String, Queue<Message>> inboxes = new ConcurrentHashMap<>();
+
+    @Override
+    public void send(String nodeId, List<CacheInvalidation> invalidations) {
+        Message message = new Message(List.copyOf(invalidations), System.nanoTime());
+        inboxes.forEach((node, inbox) -> {
+            if (!node.equals(nodeId)) {
+                inbox.add(message);
+            }
+        });
+    }
+
+    @Override
+    public void poll(String nodeId, Receiver receiver) {
+        Queue<Message> inbox = inboxes.computeIfAbsent(nodeId, node -> new ConcurrentLinkedQueue<>());
+        List<CacheInvalidation> received = new ArrayList<>();
+        long oldestSentAt = 0;
+        Message message;
+        while ((message = inbox.poll()) != null) {
+            if (received.isEmpty()) {
+                oldestSentAt = message.sentAtNanos();
+            }
+            received.addAll(message.invalidations());
+        }
+        if (!received.isEmpty()) {
+            receiver.receive(received, Duration.ofNanos(System.nanoTime() - oldestSentAt));
+        }
+    }
+}
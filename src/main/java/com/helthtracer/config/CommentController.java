@@ -1,5 +1,10 @@
 package com.helthtracer.config;
 
+import com.helthtracer.controller.response.CommentResponse;
+import com.helthtracer.controller.response.CommentView;
+import com.helthtracer.controller.response.MessageResponse;
+import com.helthtracer.event.CommentAddedEvent;
+import com.helthtracer.event.DomainEventBus;
 import com.helthtracer.model.Comment;
 import com.helthtracer.model.Post;
 import com.helthtracer.model.User;
@@ -10,10 +15,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -29,10 +33,13 @@ public class CommentController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DomainEventBus domainEventBus;
+
     // Получить комментарии поста
     @GetMapping("/post/{postId}")
-    public List<Comment> getPostComments(@PathVariable Long postId) {
-        return commentRepository.findByPostIdOrderByCreatedAtDesc(postId);
+    public List<CommentView> getPostComments(@PathVariable Long postId) {
+        return commentRepository.findByPostIdOrderByCreatedAtDesc(postId).stream().map(CommentView::of).toList();
     }
 
     // Добавить комментарий
@@ -43,22 +50,20 @@ public class CommentController {
             Optional<User> user = userRepository.findById(request.getUserId());
 
             if (post.isEmpty() || user.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Post or User not found"));
+                return ResponseEntity.badRequest().body(MessageResponse.error("Post or User not found"));
             }
 
             Comment comment = new Comment(post.get(), user.get(), request.getContent());
             comment.setCreatedAt(LocalDateTime.now());
 
             Comment savedComment = commentRepository.save(comment);
+            domainEventBus.publish(new CommentAddedEvent(savedComment.getId(), post.get().getId(), user.get().getId(),
+                    user.get().getUsername(), savedComment.getBody(), Instant.now()));
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("comment", savedComment);
-            response.put("message", "Comment added");
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new CommentResponse(true, CommentView.of(savedComment), "Comment added"));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 
@@ -67,14 +72,14 @@ public class CommentController {
     public ResponseEntity<?> deleteComment(@PathVariable Long id) {
         try {
             if (!commentRepository.existsById(id)) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Comment not found"));
+                return ResponseEntity.badRequest().body(MessageResponse.error("Comment not found"));
             }
 
             commentRepository.deleteById(id);
-            return ResponseEntity.ok(Map.of("success", true, "message", "Comment deleted"));
+            return ResponseEntity.ok(MessageResponse.ok("Comment deleted"));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.helthtracer.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Один ConcurrencyLimiter на узел: допуск делает ConcurrencyLimitFilter, замеры задержки — RepositoryLatencyAspect
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    ConcurrencyLimiter concurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties.initialLimit(), properties.minLimit(),
+                properties.maxLimit(), properties.latencyThreshold().toNanos(), properties.backoffRatio(),
+                properties.lowPriorityShare(), System::nanoTime);
+        Gauge.builder("concurrency.limit", limiter, ConcurrencyLimiter::limit).register(meterRegistry);
+        Gauge.builder("concurrency.in.flight", limiter, ConcurrencyLimiter::inFlight).register(meterRegistry);
+        return limiter;
+    }
+}
@@ -0,0 +1,108 @@
+package com.helthtracer.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Сброс нагрузки перед базой: запрос допускается, только если ConcurrencyLimiter даёт место для его приоритета.
+// Решение принимается до контроллера, а не на обращении к репозиторию: контроллеры ловят Exception и отвечают 400,
+// а отказ посреди запроса оставил бы запись сделанной наполовину. Отказ — 503 с Retry-After.
+// Стоит после RateLimitFilter (тот режет отдельного клиента) и до IdempotencyFilter (повтор сам идёт в базу).
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 15)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // Поток обслуживает допущенный запрос: только его обращения к репозиториям двигают лимит,
+    // пакетные задачи и фоновые сбросы на него не влияют
+    private static final ThreadLocal<Boolean> ADMITTED = new ThreadLocal<>();
+
+    private final ConcurrencyLimitProperties properties;
+    private final ConcurrencyLimiter limiter;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<ConcurrencyLimiter.Priority, Counter> admitted = new EnumMap<>(ConcurrencyLimiter.Priority.class);
+    private final Map<ConcurrencyLimiter.Priority, Counter> rejected = new EnumMap<>(ConcurrencyLimiter.Priority.class);
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, ConcurrencyLimiter limiter,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = limiter;
+        for (ConcurrencyLimiter.Priority priority : ConcurrencyLimiter.Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            admitted.put(priority, Counter.builder("concurrency.requests")
+                    .tag("priority", tag).tag("outcome", "admitted").register(meterRegistry));
+            rejected.put(priority, Counter.builder("concurrency.requests")
+                    .tag("priority", tag).tag("outcome", "rejected").register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || !pathMatcher.match(properties.path(), path(request));
+    }
+
+    // SSE и прочие async-запросы держат соединение с клиентом, а не с базой — их повторные диспатчи не считаем
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConcurrencyLimiter.Priority priority = priority(request);
+        if (!limiter.tryAcquire(priority)) {
+            rejected.get(priority).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, properties.retryAfter().toSeconds())));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"Server is busy, retry later\"}");
+            return;
+        }
+        admitted.get(priority).increment();
+        ADMITTED.set(Boolean.TRUE);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ADMITTED.remove();
+            limiter.release();
+        }
+    }
+
+    static boolean isAdmittedRequest() {
+        return ADMITTED.get() != null;
+    }
+
+    private ConcurrencyLimiter.Priority priority(HttpServletRequest request) {
+        String path = path(request);
+        for (ConcurrencyLimitProperties.Rule rule : properties.rules()) {
+            List<String> methods = rule.methods();
+            if ((methods == null || methods.isEmpty() || methods.contains(request.getMethod()))
+                    && pathMatcher.match(rule.path(), path)) {
+                return rule.priority();
+            }
+        }
+        return ConcurrencyLimiter.Priority.NORMAL;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,35 @@
+package com.helthtracer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+// app.concurrency-limit.*: адаптивный лимит одновременных запросов под path, см. application.properties
+@ConfigurationProperties("app.concurrency-limit")
+public record ConcurrencyLimitProperties(boolean enabled,
+                                         String path,
+                                         int initialLimit,
+                                         int minLimit,
+                                         int maxLimit,
+                                         Duration latencyThreshold,
+                                         double backoffRatio,
+                                         double lowPriorityShare,
+                                         Duration retryAfter,
+                                         List<Rule> rules) {
+
+    // Приоритет запросов по шаблону Ant и методам (пусто — любые); остальные запросы под path — NORMAL
+    public record Rule(String path, List<String> methods, ConcurrencyLimiter.Priority priority) {}
+
+    public ConcurrencyLimitProperties {
+        path = path != null && !path.isBlank() ? path : "/api/**";
+        minLimit = minLimit > 0 ? minLimit : 4;
+        maxLimit = Math.max(maxLimit > 0 ? maxLimit : 64, minLimit);
+        initialLimit = Math.min(Math.max(initialLimit > 0 ? initialLimit : 16, minLimit), maxLimit);
+        latencyThreshold = latencyThreshold != null ? latencyThreshold : Duration.ofMillis(250);
+        backoffRatio = backoffRatio > 0 && backoffRatio < 1 ? backoffRatio : 0.9;
+        lowPriorityShare = lowPriorityShare > 0 && lowPriorityShare <= 1 ? lowPriorityShare : 0.5;
+        retryAfter = retryAfter != null ? retryAfter : Duration.ofSeconds(1);
+        rules = rules != null ? rules : List.of();
+    }
+}
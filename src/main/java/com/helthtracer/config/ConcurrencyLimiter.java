@@ -0,0 +1,85 @@
+package com.helthtracer.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// AIMD-лимит одновременных запросов. Лимит подстраивается по задержке обращений к репозиториям (onSample):
+// медленнее latencyThreshold или отказ в соединении — лимит умножается на backoffRatio (не чаще раза
+// за latencyThreshold, чтобы пачка медленных ответов одного всплеска не обвалила его до минимума);
+// быстрый ответ при загрузке не меньше половины лимита — лимит +1.
+// Допуск по приоритету: CRITICAL проходит всегда (только учитывается), NORMAL — пока в работе меньше limit,
+// LOW — меньше limit * lowPriorityShare, т.е. фоновая лента отсекается первой, как только лимит пошёл вниз.
+// onSample вызывается на каждом обращении к репозиторию, поэтому без блокировок — только атомики и CAS.
+public class ConcurrencyLimiter {
+
+    public enum Priority { CRITICAL, NORMAL, LOW }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final double lowPriorityShare;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong lastBackoffNanos;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                              double backoffRatio, double lowPriorityShare, LongSupplier nanoClock) {
+        this.limit = new AtomicInteger(initialLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.lowPriorityShare = lowPriorityShare;
+        this.nanoClock = nanoClock;
+        // первое же медленное обращение может снизить лимит
+        this.lastBackoffNanos = new AtomicLong(nanoClock.getAsLong() - latencyThresholdNanos);
+    }
+
+    // true — запрос допущен, по завершении обязателен release()
+    public boolean tryAcquire(Priority priority) {
+        if (priority == Priority.CRITICAL) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int current = limit.get();
+        int cap = priority == Priority.LOW ? Math.max(1, (int) (current * lowPriorityShare)) : current;
+        while (true) {
+            int running = inFlight.get();
+            if (running >= cap) {
+                return false;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    // dropped — обращение не дождалось соединения (пул исчерпан).
+    // Снижение — не чаще раза за latencyThreshold: окно занимает тот, чей CAS по lastBackoffNanos прошёл.
+    public void onSample(long latencyNanos, boolean dropped) {
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            long now = nanoClock.getAsLong();
+            long last = lastBackoffNanos.get();
+            if (now - last >= latencyThresholdNanos && lastBackoffNanos.compareAndSet(last, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (inFlight.get() * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,39 @@
+package com.helthtracer.config;
+
+import com.helthtracer.cache.CacheInvalidationListener;
+import com.helthtracer.event.DomainEventConsumer;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.annotation.Annotation;
+
+// При spring.main.lazy-initialization=true (профиль fast-startup) бин создаётся при первом обращении.
+// Фоновым бинам это не подходит: @Scheduled регистрируется только у созданного бина, прогревы на
+// ApplicationReadyEvent, потребители событий и владельцы кешей (HibernateCacheInvalidator подключается к событиям
+// Hibernate при создании) должны быть готовы до первого запроса — их создаём сразу.
+@Configuration(proxyBeanMethods = false)
+public class FastStartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeansStayEager() {
+        return (beanName, beanDefinition, beanType) -> isBackgroundBean(beanType);
+    }
+
+    static boolean isBackgroundBean(Class<?> beanType) {
+        return DomainEventConsumer.class.isAssignableFrom(beanType)
+                || CacheInvalidationListener.class.isAssignableFrom(beanType)
+                || hasAnnotatedMethod(beanType, Scheduled.class)
+                || hasAnnotatedMethod(beanType, EventListener.class);
+    }
+
+    private static boolean hasAnnotatedMethod(Class<?> beanType, Class<? extends Annotation> annotation) {
+        return !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                        AnnotatedElementUtils.hasAnnotation(method, annotation) ? Boolean.TRUE : null).isEmpty();
+    }
+}
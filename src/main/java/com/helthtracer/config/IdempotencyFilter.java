@@ -0,0 +1,427 @@
+package com.helthtracer.config;
+
+import com.helthtracer.model.IdempotencyRecord;
+import com.helthtracer.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Idempotency-Key для POST: мобильные клиенты повторяют запрос после обрыва сети,
+// и без ключа это дубли постов, комментариев и двойное переключение лайка.
+// Повтор с тем же ключом получает сохранённый ответ (Idempotent-Replayed: true) без повторной записи;
+// дубль, пришедший пока первый запрос выполняется, ждёт его результата.
+// Ключ привязан к пользователю (RequestUserContext), к методу с путём и к хэшу тела —
+// тот же ключ с другим запросом даёт 422.
+// Между узлами ключ захватывается вставкой строки в idempotency_keys до выполнения: проигравший узел получает 409.
+// Запоминаются только окончательные ответы (2xx и осознанные отказы 4xx); остальные освобождают ключ для повтора.
+// Стоит после RateLimitFilter: отклонённая по лимиту попытка ключ не занимает.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyRecordRepository recordRepository;
+    private final IdempotencyStore store;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotencyFilter(IdempotencyProperties properties, IdempotencyRecordRepository recordRepository,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.recordRepository = recordRepository;
+        this.meterRegistry = meterRegistry;
+        this.store = new IdempotencyStore(properties.maxKeys(), properties.ttl().toMillis(), System::currentTimeMillis);
+        Gauge.builder("idempotency.keys", store, IdempotencyStore::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String key = request.getHeader(KEY_HEADER);
+        return !properties.enabled() || !HttpMethod.POST.matches(request.getMethod()) || key == null || key.isBlank();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(KEY_HEADER).trim();
+        if (key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String userKey = RequestUserContext.current();
+        String storeKey = (userKey != null && userKey.startsWith("user:") ? userKey : "anonymous") + "|" + key;
+        BufferedRequest buffered = buffer(request);
+        request = buffered.request();
+        if (buffered.digest() == null) {
+            // тело больше maxRequestBytes: хэш не посчитать, выполняем без защиты ключом
+            count("bypassed");
+            chain.doFilter(request, response);
+            return;
+        }
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + " " + buffered.digest();
+        long deadline = System.nanoTime() + properties.waitTimeout().toNanos();
+
+        while (true) {
+            IdempotencyStore.Claim claim = store.begin(storeKey, fingerprint);
+            if (claim == null) {
+                count("bypassed");
+                chain.doFilter(request, response);
+                return;
+            }
+            if (!claim.entry().fingerprint().equals(fingerprint)) {
+                count("mismatch");
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            if (claim.owner()) {
+                execute(request, response, chain, storeKey, claim.entry());
+                return;
+            }
+
+            IdempotencyStore.StoredResponse stored;
+            try {
+                stored = claim.entry().result().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                count("in-progress");
+                writeError(response, HttpStatus.CONFLICT, "A request with this " + KEY_HEADER + " is still in progress");
+                return;
+            } catch (ExecutionException e) {
+                stored = null;
+            }
+            if (stored != null) {
+                count("replayed");
+                replay(response, stored);
+                return;
+            }
+            // первый запрос не сохранил ответ — выполняем сами
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         String storeKey, IdempotencyStore.Entry entry) throws ServletException, IOException {
+        PersistedClaim claim = claimPersisted(storeKey, entry.fingerprint());
+        if (claim.stored() != null) {
+            if (!claim.stored().fingerprint().equals(entry.fingerprint())) {
+                store.abandon(storeKey, entry);
+                count("mismatch");
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            if (claim.stored().status() == IdempotencyRecord.IN_PROGRESS) {
+                // запрос с этим ключом выполняет другой узел
+                store.abandon(storeKey, entry);
+                count("in-progress");
+                writeError(response, HttpStatus.CONFLICT, "A request with this " + KEY_HEADER + " is still in progress");
+                return;
+            }
+            store.complete(entry, claim.stored());
+            count("replayed");
+            replay(response, claim.stored());
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (isFinal(wrapper.getStatus()) && wrapper.getContentSize() <= properties.maxBodyBytes()) {
+                IdempotencyStore.StoredResponse result = new IdempotencyStore.StoredResponse(entry.fingerprint(),
+                        wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+                persist(storeKey, claim.claimedAt(), result);
+                store.complete(entry, result);
+                stored = true;
+            }
+            count("executed");
+        } finally {
+            if (!stored) {
+                release(storeKey, claim.claimedAt());
+                store.abandon(storeKey, entry);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // Окончательный ответ повтор не изменит: 2xx и отказы 4xx. 400 контроллеры отдают и на любое
+    // перехваченное исключение (таймаут пула, дедлок), а отклонённый запрос ничего не записал — его
+    // безопасно выполнить заново. 408 и 429 временные по определению, 5xx — сбой.
+    static boolean isFinal(int status) {
+        if (status >= 200 && status < 300) {
+            return true;
+        }
+        return status > 400 && status < 500 && status != 408 && status != 429;
+    }
+
+    // claimedAt — created_at нашей строки-заявки (null, если хранение выключено или база недоступна);
+    // stored — уже записанный ответ или чужая заявка (status IN_PROGRESS)
+    private record PersistedClaim(LocalDateTime claimedAt, IdempotencyStore.StoredResponse stored) {
+        static final PersistedClaim UNCLAIMED = new PersistedClaim(null, null);
+    }
+
+    private PersistedClaim claimPersisted(String storeKey, String fingerprint) {
+        if (!properties.persist()) {
+            return PersistedClaim.UNCLAIMED;
+        }
+        try {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+                if (recordRepository.insertClaim(storeKey, fingerprint, now) == 1) {
+                    return new PersistedClaim(now, null);
+                }
+                // ключ уже занят — смотрим, кем и чем
+                IdempotencyRecord existing = recordRepository.findClaim(storeKey).orElse(null);
+                if (existing == null) {
+                    continue; // заявку только что освободили
+                }
+                boolean inProgress = existing.getStatus() == IdempotencyRecord.IN_PROGRESS;
+                Duration lifetime = inProgress ? properties.claimTimeout() : properties.ttl();
+                if (existing.getCreatedAt().isAfter(now.minus(lifetime))) {
+                    return new PersistedClaim(null, new IdempotencyStore.StoredResponse(existing.getFingerprint(),
+                            existing.getStatus(), existing.getContentType(),
+                            existing.getBody() != null ? existing.getBody() : new byte[0]));
+                }
+                // ответ истёк или узел-владелец умер, не освободив заявку
+                if (recordRepository.takeOverClaim(storeKey, fingerprint, now, existing.getCreatedAt()) == 1) {
+                    return new PersistedClaim(now, null);
+                }
+            }
+            log.warn("Could not claim idempotency key {}: it keeps changing", storeKey);
+        } catch (DataAccessException e) {
+            log.warn("Could not claim idempotency key {}", storeKey, e);
+        }
+        // без базы работаем как раньше — только на локальной таблице
+        return PersistedClaim.UNCLAIMED;
+    }
+
+    private void persist(String storeKey, LocalDateTime claimedAt, IdempotencyStore.StoredResponse result) {
+        if (claimedAt == null) {
+            return;
+        }
+        try {
+            recordRepository.completeClaim(storeKey, claimedAt, result.status(), result.contentType(), result.body(),
+                    LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        } catch (DataAccessException e) {
+            // ответ уже записан в базу приложения; без копии ключ просто не переживёт рестарт
+            log.warn("Could not persist idempotency key {}", storeKey, e);
+        }
+    }
+
+    private void release(String storeKey, LocalDateTime claimedAt) {
+        if (claimedAt == null) {
+            return;
+        }
+        try {
+            recordRepository.releaseClaim(storeKey, claimedAt);
+        } catch (DataAccessException e) {
+            // заявку перехватят после claimTimeout
+            log.warn("Could not release idempotency key {}", storeKey, e);
+        }
+    }
+
+    // request — тот, что идёт дальше по цепочке; digest — SHA-256 тела или null, если тело больше maxRequestBytes
+    private record BufferedRequest(HttpServletRequest request, String digest) {}
+
+    private BufferedRequest buffer(HttpServletRequest request) throws IOException, ServletException {
+        long limit = properties.maxRequestBytes();
+        if (request.getContentLengthLong() > limit) {
+            return new BufferedRequest(request, null);
+        }
+        MessageDigest digest = sha256();
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            // части уже разобраны контейнером и перечитываются сколько угодно
+            long size = 0;
+            for (Part part : request.getParts()) {
+                size += part.getSize();
+            }
+            if (size > limit) {
+                return new BufferedRequest(request, null);
+            }
+            for (Part part : request.getParts()) {
+                update(digest, part.getName());
+                update(digest, part.getSubmittedFileName());
+                try (InputStream in = part.getInputStream()) {
+                    in.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+                }
+            }
+            return new BufferedRequest(request, HexFormat.of().formatHex(digest.digest()));
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+            // форму контейнер разбирает сам, тело после этого уже не прочитать — хэшируем параметры
+            for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+                update(digest, parameter.getKey());
+                for (String value : parameter.getValue()) {
+                    update(digest, value);
+                }
+            }
+            return new BufferedRequest(request, HexFormat.of().formatHex(digest.digest()));
+        }
+        InputStream in = request.getInputStream();
+        byte[] body = in.readNBytes((int) limit + 1);
+        if (body.length > limit) {
+            return new BufferedRequest(new CachedBodyRequest(request, new SequenceInputStream(new ByteArrayInputStream(body), in)), null);
+        }
+        return new BufferedRequest(new CachedBodyRequest(request, new ByteArrayInputStream(body)),
+                HexFormat.of().formatHex(digest.digest(body)));
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // длина перед значением: ("ab","c") и ("a","bc") дают разные хэши
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value != null ? bytes.length : -1).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Тело, прочитанное ради хэша, отдаётся дальше по цепочке из памяти
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+        private BufferedReader reader;
+
+        CachedBodyRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.body = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = body.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = body.read(buffer, offset, length);
+                    finished = n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Async reads are not supported for idempotent requests");
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(body,
+                        encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1));
+            }
+            return reader;
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"success\":false,\"message\":\"" + message + "\"}");
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("idempotency.requests", "outcome", outcome).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.evict-interval-ms:60000}")
+    public void evictExpired() {
+        store.evictExpired();
+        if (properties.persist()) {
+            try {
+                int removed = recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(properties.ttl()));
+                if (removed > 0) {
+                    log.debug("Removed {} expired idempotency keys", removed);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not remove expired idempotency keys", e);
+            }
+        }
+    }
+}
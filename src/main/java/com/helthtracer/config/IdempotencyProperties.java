@@ -0,0 +1,30 @@
+package com.helthtracer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// app.idempotency.*: повтор POST с тем же Idempotency-Key отдаёт сохранённый ответ.
+// ttl — сколько помним ключ, maxKeys — предел таблицы в памяти, maxBodyBytes — ответы крупнее не сохраняем,
+// waitTimeout — сколько дубль ждёт первый запрос, persist — копия в idempotency_keys для рестартов и других инстансов,
+// maxRequestBytes — тела крупнее не хэшируем и выполняем без ключа, claimTimeout — через сколько заявку
+// незавершённого запроса (узел упал) можно перехватить.
+@ConfigurationProperties("app.idempotency")
+public record IdempotencyProperties(boolean enabled,
+                                    Duration ttl,
+                                    int maxKeys,
+                                    int maxBodyBytes,
+                                    Duration waitTimeout,
+                                    boolean persist,
+                                    long maxRequestBytes,
+                                    Duration claimTimeout) {
+
+    public IdempotencyProperties {
+        ttl = ttl != null ? ttl : Duration.ofHours(24);
+        maxKeys = maxKeys > 0 ? maxKeys : 100_000;
+        maxBodyBytes = maxBodyBytes > 0 ? maxBodyBytes : 64 * 1024;
+        waitTimeout = waitTimeout != null ? waitTimeout : Duration.ofSeconds(30);
+        maxRequestBytes = maxRequestBytes > 0 ? maxRequestBytes : 1024 * 1024;
+        claimTimeout = claimTimeout != null ? claimTimeout : Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,93 @@
+package com.helthtracer.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Ключи идемпотентности в памяти. Первый запрос с ключом становится владельцем и выполняет запись,
+// остальные ждут его CompletableFuture: сохранённый ответ — повторяем, null — владелец упал, пробуем заново.
+// Завершённые ключи живут ttl; при переполнении сначала чистим просроченные, потом отказываемся (fail open).
+final class IdempotencyStore {
+
+    record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {}
+
+    static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        String fingerprint() {
+            return fingerprint;
+        }
+
+        CompletableFuture<StoredResponse> result() {
+            return result;
+        }
+    }
+
+    record Claim(Entry entry, boolean owner) {}
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    IdempotencyStore(int maxKeys, long ttlMillis, LongSupplier clock) {
+        this.maxKeys = maxKeys;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    // null — таблица заполнена, запрос выполняется без защиты от повторов
+    Claim begin(String key, String fingerprint) {
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing == null) {
+                if (entries.size() >= maxKeys) {
+                    evictExpired();
+                    if (entries.size() >= maxKeys) {
+                        return null;
+                    }
+                }
+                Entry created = new Entry(fingerprint, clock.getAsLong() + ttlMillis);
+                existing = entries.putIfAbsent(key, created);
+                if (existing == null) {
+                    return new Claim(created, true);
+                }
+            }
+            if (isExpired(existing)) {
+                entries.remove(key, existing);
+                continue;
+            }
+            return new Claim(existing, false);
+        }
+    }
+
+    void complete(Entry entry, StoredResponse response) {
+        entry.expiresAt = clock.getAsLong() + ttlMillis;
+        entry.result.complete(response);
+    }
+
+    // Ответ не сохраняем (5xx, исключение, слишком большое тело): ключ освобождается, ждущие повторят сами
+    void abandon(String key, Entry entry) {
+        entries.remove(key, entry);
+        entry.result.complete(null);
+    }
+
+    void evictExpired() {
+        entries.values().removeIf(this::isExpired);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.result.isDone() && entry.expiresAt - clock.getAsLong() <= 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.helthtracer.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Лимиты на пишущие эндпоинты, чтобы один клиент не выбрал весь пул соединений.
+// Два бакета на запрос: по пользователю (RequestUserContext) и по IP с запасом ipMultiplier
+// на NAT; без пользователя остаётся только IP-бакет. Отказ — 429 с Retry-After.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final RateLimiter rateLimiter;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Counter> allowed = new HashMap<>();
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiter = new RateLimiter(properties.maxKeys(), System::nanoTime);
+        for (RateLimitProperties.Rule rule : properties.rules()) {
+            allowed.put(rule.name(), Counter.builder("rate.limit.requests")
+                    .tag("rule", rule.name()).tag("outcome", "allowed").register(meterRegistry));
+            rejected.put(rule.name(), Counter.builder("rate.limit.requests")
+                    .tag("rule", rule.name()).tag("outcome", "rejected").register(meterRegistry));
+        }
+        Gauge.builder("rate.limit.keys", rateLimiter, RateLimiter::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || findRule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimitProperties.Rule rule = findRule(request);
+        String userKey = RequestUserContext.current();
+
+        // Сначала IP: пользовательский ключ берётся из заголовка клиента, и бакет под него заводится, только
+        // если IP-бакет пропустил — перебором X-User-Id таблицу не забить
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(rule.name() + "|ip:" + request.getRemoteAddr(),
+                rule.ratePerSecond() * properties.ipMultiplier(),
+                (int) Math.ceil(rule.burst() * properties.ipMultiplier()));
+        if (decision.allowed() && userKey != null && userKey.startsWith("user:")) {
+            decision = rateLimiter.tryAcquire(rule.name() + "|" + userKey, rule.ratePerSecond(), rule.burst());
+        }
+
+        if (!decision.allowed()) {
+            rejected.get(rule.name()).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"Too many requests\"}");
+            return;
+        }
+        allowed.get(rule.name()).increment();
+        chain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        rateLimiter.evictIdle();
+    }
+
+    private RateLimitProperties.Rule findRule(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Rule rule : properties.rules()) {
+            List<String> methods = rule.methods();
+            if ((methods == null || methods.isEmpty() || methods.contains(request.getMethod()))
+                    && pathMatcher.match(rule.path(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
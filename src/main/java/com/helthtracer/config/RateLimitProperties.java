@@ -0,0 +1,23 @@
+package com.helthtracer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+// app.rate-limit.*: правила для пишущих эндпоинтов, см. application.properties
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(boolean enabled,
+                                  double ipMultiplier,
+                                  int maxKeys,
+                                  List<Rule> rules) {
+
+    // path — шаблон Ant (/api/habit-logs/**), methods — пусто значит любые.
+    // ratePerSecond — устойчивая скорость, burst — сколько можно сразу после простоя.
+    public record Rule(String name, String path, List<String> methods, double ratePerSecond, int burst) {}
+
+    public RateLimitProperties {
+        ipMultiplier = ipMultiplier > 0 ? ipMultiplier : 4;
+        maxKeys = maxKeys > 0 ? maxKeys : 100_000;
+        rules = rules != null ? rules : List.of();
+    }
+}
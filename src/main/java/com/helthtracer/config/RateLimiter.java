@@ -0,0 +1,80 @@
+package com.helthtracer.config;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Токен-бакет в форме GCRA: на ключ хранится одно число — теоретическое время
+// прибытия (TAT) следующего запроса. Запрос проходит, если TAT + interval не уходит
+// дальше чем burst * interval вперёд от now; обновление — CAS без блокировок.
+// Ключ с TAT в прошлом — полный бакет, его можно удалить без потери состояния.
+// Таблица ограничена maxKeys: новому ключу при полной таблице освобождается место — удаляется первый
+// полный бакет из EVICTION_PROBES просмотренных; не нашлось — новому ключу отказ (но не пропуск без учёта).
+// Полная чистка — evictIdle по расписанию, не на пути запроса.
+class RateLimiter {
+
+    // retryAfterNanos > 0 только для отказа
+    record Decision(boolean allowed, long retryAfterNanos) {}
+
+    private static final Decision ALLOWED = new Decision(true, 0);
+    private static final int EVICTION_PROBES = 8;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    RateLimiter(int maxKeys, LongSupplier clock) {
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    Decision tryAcquire(String key, double ratePerSecond, int burst) {
+        long now = clock.getAsLong();
+        long interval = (long) (1_000_000_000L / ratePerSecond);
+        long tolerance = interval * burst;
+
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            if (buckets.size() >= maxKeys && !evictOneIdle(now)) {
+                return new Decision(false, interval);
+            }
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > tolerance) {
+                return new Decision(false, next - tolerance - now);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    private boolean evictOneIdle(long now) {
+        Iterator<AtomicLong> probes = buckets.values().iterator();
+        for (int i = 0; i < EVICTION_PROBES && probes.hasNext(); i++) {
+            if (probes.next().get() <= now) {
+                probes.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Полные бакеты ничего не помнят — удаляем
+    int evictIdle() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() <= now);
+        return before - buckets.size();
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
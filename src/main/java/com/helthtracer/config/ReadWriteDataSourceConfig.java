@@ -0,0 +1,51 @@
+package com.helthtracer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+// Включается, только если задан пул чтения (app.datasource.read.jdbc-url)
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.read.jdbc-url")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("write");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.read")
+    public HikariDataSource readDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("read");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.read-your-writes-window-ms:2000}") long windowMillis,
+            @Value("${app.datasource.read-your-writes-max-users:100000}") int maxUsers) {
+        return new ReadYourWritesTracker(windowMillis, maxUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        return ReadWriteRoutingDataSource.create(writeDataSource, readDataSource, readYourWritesTracker);
+    }
+}
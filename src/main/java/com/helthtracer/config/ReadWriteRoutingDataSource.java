@@ -0,0 +1,50 @@
+package com.helthtracer.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Map;
+
+// readOnly-транзакции идут в пул чтения, всё остальное — в primary.
+// Ключ определяется при первом запросе к БД (см. LazyConnectionDataSourceProxy),
+// когда флаг readOnly текущей транзакции уже выставлен.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { WRITE, READ }
+
+    private final ReadYourWritesTracker tracker;
+
+    private ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource,
+                                       ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+        setTargetDataSources(Map.of(Route.WRITE, writeDataSource, Route.READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    public static DataSource create(DataSource writeDataSource, DataSource readDataSource,
+                                    ReadYourWritesTracker tracker) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        // иначе прокси сам возьмёт соединение, чтобы узнать значения по умолчанию
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.setTargetDataSource(new ReadWriteRoutingDataSource(writeDataSource, readDataSource, tracker));
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userKey = RequestUserContext.consistencyKey();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                tracker.recordWrite(userKey);
+            }
+            return Route.WRITE;
+        }
+        return tracker.isSticky(userKey) ? Route.WRITE : Route.READ;
+    }
+}
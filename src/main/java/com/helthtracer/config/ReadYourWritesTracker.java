@@ -0,0 +1,43 @@
+package com.helthtracer.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Помнит, кто недавно писал: такие клиенты читают с primary, пока реплика догоняет
+public class ReadYourWritesTracker {
+
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxEntries;
+
+    public ReadYourWritesTracker(long windowMillis, int maxEntries) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    public void recordWrite(String userKey) {
+        if (userKey == null || windowNanos <= 0) {
+            return;
+        }
+        if (lastWriteNanos.size() >= maxEntries) {
+            evictExpired();
+        }
+        if (lastWriteNanos.size() < maxEntries) {
+            lastWriteNanos.put(userKey, System.nanoTime());
+        }
+    }
+
+    public boolean isSticky(String userKey) {
+        if (userKey == null) {
+            return false;
+        }
+        Long writtenAt = lastWriteNanos.get(userKey);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
@@ -0,0 +1,54 @@
+package com.helthtracer.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+
+// Задержка вызовов Spring Data репозиториев из запросов, допущенных ConcurrencyLimitFilter, — сигнал для
+// ConcurrencyLimiter.onSample. Пересчёты, архивация и прочая фоновая работа не замеряются: их медленные
+// пакетные запросы не должны урезать лимит живого трафика.
+// Не дождались соединения из пула — отказ (dropped), лимит снижается сразу, без оглядки на время.
+@Aspect
+@Component
+public class RepositoryLatencyAspect {
+
+    private final ConcurrencyLimiter limiter;
+
+    public RepositoryLatencyAspect(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!ConcurrencyLimitFilter.isAdmittedRequest()) {
+            return joinPoint.proceed();
+        }
+        long started = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return joinPoint.proceed();
+        } catch (CannotCreateTransactionException | CannotGetJdbcConnectionException e) {
+            dropped = true;
+            throw e;
+        } catch (Throwable e) {
+            dropped = hasCause(e, SQLTransientConnectionException.class);
+            throw e;
+        } finally {
+            limiter.onSample(System.nanoTime() - started, dropped);
+        }
+    }
+
+    private static boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.helthtracer.config;
+
+// Ключ клиента текущего запроса: X-User-Id / userId / user_id, иначе IP.
+// Заполняется RequestUserFilter, используется лимитами.
+// Маршрутизация чтения берёт отдельный ключ консистентности: principal или HTTP-сессия,
+// которые клиент не может подставить сам (X-User-Id — просто заголовок).
+public final class RequestUserContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<String> CONSISTENCY_KEY = new ThreadLocal<>();
+
+    private RequestUserContext() {}
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String userKey) {
+        CURRENT.set(userKey);
+    }
+
+    public static String consistencyKey() {
+        return CONSISTENCY_KEY.get();
+    }
+
+    public static void setConsistencyKey(String key) {
+        CONSISTENCY_KEY.set(key);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        CONSISTENCY_KEY.remove();
+    }
+}
@@ -0,0 +1,71 @@
+package com.helthtracer.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Set;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestUserFilter extends OncePerRequestFilter {
+
+    public static final String USER_HEADER = "X-User-Id";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    // Трекер есть только при настроенной реплике (ReadWriteDataSourceConfig): без маршрутизации сессия не нужна
+    private final boolean readWriteRouting;
+
+    public RequestUserFilter(ObjectProvider<ReadYourWritesTracker> readYourWritesTracker) {
+        this.readWriteRouting = readYourWritesTracker.getIfAvailable() != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestUserContext.set(resolveUserKey(request));
+        RequestUserContext.setConsistencyKey(resolveConsistencyKey(request, readWriteRouting));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestUserContext.clear();
+        }
+    }
+
+    static String resolveUserKey(HttpServletRequest request) {
+        String userId = request.getHeader(USER_HEADER);
+        if (isBlank(userId)) {
+            userId = request.getParameter("userId");
+        }
+        if (isBlank(userId)) {
+            userId = request.getParameter("user_id");
+        }
+        return isBlank(userId) ? "ip:" + request.getRemoteAddr() : "user:" + userId.trim();
+    }
+
+    // Read-your-writes привязан к principal, а без него — к сессии: её id выдаёт сервер.
+    // Сессию заводим только на изменяющих запросах и только при маршрутизации на реплику,
+    // чтобы следующие чтения пришли с её cookie.
+    static String resolveConsistencyKey(HttpServletRequest request, boolean readWriteRouting) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        HttpSession session = request.getSession(readWriteRouting && !SAFE_METHODS.contains(request.getMethod()));
+        return session != null ? "session:" + session.getId() : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
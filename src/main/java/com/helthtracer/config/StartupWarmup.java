@@ -0,0 +1,97 @@
+package com.helthtracer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+// Прогрев после старта: несколько настоящих GET к своему же порту. Первый запрос платит за
+// DispatcherServlet, Jackson, ленивые бины (профиль fast-startup), Hibernate-запросы и пул соединений —
+// пусть это делает узел до того, как балансировщик пустит на него пользователей.
+// Фоновый поток: ApplicationReadyEvent не держим, готовность отражает WarmupHealthIndicator.
+@Component
+public class StartupWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final WarmupHealthIndicator indicator;
+    private final Environment environment;
+    private final boolean enabled;
+    private final List<String> paths;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    public StartupWarmup(WarmupHealthIndicator indicator,
+                         Environment environment,
+                         @Value("${app.warmup.enabled:true}") boolean enabled,
+                         @Value("${app.warmup.paths:/api/posts/trending,/api/leaderboard}") List<String> paths,
+                         @Value("${app.warmup.iterations:3}") int iterations,
+                         @Value("${app.warmup.max-duration:60s}") Duration maxDuration) {
+        this.indicator = indicator;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.paths = paths;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (!enabled || port == null || port <= 0) {
+            indicator.complete(enabled ? "skipped: no web server" : "disabled");
+            return;
+        }
+        String contextPath = environment.getProperty("server.servlet.context-path", "");
+        Thread thread = new Thread(() -> run("http://localhost:" + port + contextPath), "startup-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(String baseUrl) {
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        int requests = 0;
+        int failures = 0;
+        try {
+            for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+                for (String path : paths) {
+                    if (System.nanoTime() >= deadline) {
+                        break;
+                    }
+                    indicator.phase("GET " + path + " (" + (i + 1) + "/" + iterations + ")");
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .timeout(Duration.ofSeconds(10)).GET().build();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        requests++;
+                        if (status >= 500) {
+                            failures++;
+                        }
+                    } catch (IOException e) {
+                        failures++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            long millis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+            // Прогрев — оптимизация: ошибки и таймаут не оставляют узел навсегда неготовым
+            indicator.complete("done: " + requests + " requests, " + failures + " failed, " + millis + " ms");
+            log.info("Startup warm-up finished in {} ms ({} requests, {} failed)", millis, requests, failures);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.helthtracer.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Входит в группу readiness: пока StartupWarmup не прогнал первые запросы, узел трафик не получает.
+// Имя в /actuator/health — "warmup".
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private volatile boolean warmedUp;
+    private volatile String phase = "starting";
+
+    void phase(String phase) {
+        this.phase = phase;
+    }
+
+    void complete(String summary) {
+        this.phase = summary;
+        this.warmedUp = true;
+    }
+
+    @Override
+    public Health health() {
+        return (warmedUp ? Health.up() : Health.outOfService()).withDetail("phase", phase).build();
+    }
+}
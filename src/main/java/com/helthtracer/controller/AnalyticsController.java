@@ -0,0 +1,235 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.controller.response.MessageResponse;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitDailyCount;
+import com.helthtracer.model.HabitMonthlyCount;
+import com.helthtracer.model.SleepHabitCorrelation;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.SleepHabitCorrelationRepository;
+import com.helthtracer.schedule.HabitSchedule;
+import com.helthtracer.schedule.MonthMask;
+import com.helthtracer.service.SleepCorrelationJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.text.DecimalFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private SleepHabitCorrelationRepository sleepHabitCorrelationRepository;
+
+    @Autowired
+    private SleepCorrelationJob sleepCorrelationJob;
+
+    // Годовая тепловая карта + недельные тренды + процент по каждой привычке, одним ответом.
+    // Всё считается из предпосчитанных счётчиков, сырые логи не читаются.
+    @GetMapping("/users/{userId}/year")
+    public Map<String, Object> getYearAnalytics(@PathVariable Long userId,
+                                                @RequestParam(required = false) Integer year) {
+        LocalDate today = LocalDate.now();
+        int targetYear = year != null ? year : today.getYear();
+        LocalDate start = LocalDate.ofYearDay(targetYear, 1);
+        LocalDate end = start.withDayOfYear(start.lengthOfYear());
+
+        // days[i] — число выполненных привычек в (i + 1)-й день года
+        int[] days = new int[start.lengthOfYear()];
+        for (HabitDailyCount count : habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(userId, start, end)) {
+            days[count.getDate().getDayOfYear() - 1] = count.getCompleted();
+        }
+
+        int elapsedDays = targetYear < today.getYear() ? days.length
+                : targetYear > today.getYear() ? 0 : today.getDayOfYear();
+        List<Habit> habits = habitRepository.findByUserId(userId);
+        // due[i] — сколько привычек ожидалось в (i + 1)-й день года по их расписаниям (знаменатель тепловой карты)
+        int[] due = dueDays(targetYear, habits);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("year", targetYear);
+        result.put("days", days);
+        result.put("due", due);
+        result.put("totalCompleted", Arrays.stream(days).sum());
+        result.put("activeDays", (int) Arrays.stream(days).filter(c -> c > 0).count());
+        result.put("currentStreak", currentStreak(days, elapsedDays));
+        result.put("bestStreak", bestStreak(days, elapsedDays));
+        result.put("weeks", weeklyTrend(start, days, due, elapsedDays));
+        result.put("habits", habitRates(userId, targetYear, habits, today));
+        return result;
+    }
+
+    // Итог ночного SleepCorrelationJob; 404 — пользователь ещё не попал в расчёт или не трекает сон
+    @GetMapping("/users/{userId}/sleep-correlation")
+    public Map<String, Object> getSleepCorrelation(@PathVariable Long userId) {
+        SleepHabitCorrelation correlation = sleepHabitCorrelationRepository.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Sleep correlation not computed"));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userId", userId);
+        result.put("windowDays", correlation.getWindowDays());
+        result.put("pairedDays", correlation.getPairedDays());
+        result.put("correlation", round(correlation.getCorrelation()));
+        result.put("thresholdHours", correlation.getThresholdHours());
+        result.put("wellRestedDays", correlation.getWellRestedDays());
+        result.put("wellRestedAvg", round(correlation.getWellRestedAvg()));
+        result.put("shortDays", correlation.getShortDays());
+        result.put("shortAvg", round(correlation.getShortAvg()));
+        result.put("liftPercent", correlation.getLiftPercent() != null ? Math.round(correlation.getLiftPercent()) : null);
+        result.put("insight", insight(correlation));
+        result.put("computedAt", correlation.getComputedAt());
+        return result;
+    }
+
+    // Ручной запуск ночного расчёта (бэкфилл после импорта, смена окна): идёт в фоне, сразу 202;
+    // итоги — GET /users/{userId}/sleep-correlation по мере записи порций
+    @PostMapping("/sleep-correlation/run")
+    public ResponseEntity<MessageResponse> runSleepCorrelation() {
+        try {
+            sleepCorrelationJob.start(LocalDate.now());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        return ResponseEntity.accepted().body(MessageResponse.ok("Sleep correlation started"));
+    }
+
+    private static String insight(SleepHabitCorrelation correlation) {
+        if (correlation.getLiftPercent() == null) {
+            return null;
+        }
+        long lift = Math.round(correlation.getLiftPercent());
+        String threshold = new DecimalFormat("0.#").format(correlation.getThresholdHours());
+        if (lift == 0) {
+            return "You complete as many habits after " + threshold + "+ hours of sleep as after shorter nights";
+        }
+        return "You complete " + Math.abs(lift) + "% " + (lift > 0 ? "more" : "fewer")
+                + " habits after " + threshold + "+ hours of sleep";
+    }
+
+    private static Double round(Double value) {
+        return value != null ? Math.round(value * 100) / 100.0 : null;
+    }
+
+    private static int[] dueDays(int year, List<Habit> habits) {
+        int[] due = new int[Year.of(year).length()];
+        for (int m = 1; m <= 12; m++) {
+            YearMonth month = YearMonth.of(year, m);
+            int offset = month.atDay(1).getDayOfYear() - 1;
+            for (Habit habit : habits) {
+                int mask = HabitSchedule.ofStored(habit.getFrequency()).expected(month)
+                        & MonthMask.from(month, habit.getCreatedAt());
+                for (; mask != 0; mask &= mask - 1) {
+                    due[offset + Integer.numberOfTrailingZeros(mask)]++;
+                }
+            }
+        }
+        return due;
+    }
+
+    private List<Map<String, Object>> weeklyTrend(LocalDate start, int[] days, int[] due, int elapsedDays) {
+        List<Map<String, Object>> weeks = new ArrayList<>();
+        // недели с понедельника; первая может начинаться в прошлом году
+        LocalDate weekStart = start.with(DayOfWeek.MONDAY);
+        while (weekStart.getYear() <= start.getYear()) {
+            int completed = 0;
+            int possible = 0;
+            for (int i = 0; i < 7; i++) {
+                LocalDate day = weekStart.plusDays(i);
+                if (day.getYear() != start.getYear() || day.getDayOfYear() > elapsedDays) {
+                    continue;
+                }
+                completed += days[day.getDayOfYear() - 1];
+                possible += due[day.getDayOfYear() - 1];
+            }
+            Map<String, Object> week = new LinkedHashMap<>();
+            week.put("weekStart", weekStart.toString());
+            week.put("completed", completed);
+            // «N раз в неделю» можно выполнять и в неожидаемые дни — выше 100% не показываем
+            week.put("completionRate", possible > 0 ? Math.min(100, Math.round((double) completed / possible * 100)) : 0);
+            weeks.add(week);
+            weekStart = weekStart.plusWeeks(1);
+        }
+        return weeks;
+    }
+
+    // По месяцам: выполнено не больше, чем ожидалось за месяц; ожидаемое — прошедшие ожидаемые дни,
+    // но не меньше засчитанного (выполнение недельной квоты раньше её последних дней)
+    private List<Map<String, Object>> habitRates(Long userId, int year, List<Habit> habits, LocalDate today) {
+        Map<Long, int[]> completedByHabit = new HashMap<>();
+        for (HabitMonthlyCount count : habitMonthlyCountRepository
+                .findByUserIdAndPeriodBetween(userId, year * 100 + 1, year * 100 + 12)) {
+            completedByHabit.computeIfAbsent(count.getHabitId(), id -> new int[13])[count.getPeriod() % 100]
+                    += count.getCompleted();
+        }
+
+        List<Map<String, Object>> rates = new ArrayList<>();
+        for (Habit habit : habits) {
+            int[] completedByMonth = completedByHabit.getOrDefault(habit.getId(), new int[13]);
+            HabitSchedule schedule = HabitSchedule.ofStored(habit.getFrequency());
+            int completed = 0;
+            int credited = 0;
+            int expected = 0;
+            for (int m = 1; m <= 12; m++) {
+                YearMonth month = YearMonth.of(year, m);
+                int due = schedule.expected(month) & MonthMask.from(month, habit.getCreatedAt());
+                int monthCredited = Math.min(completedByMonth[m], Integer.bitCount(due));
+                completed += completedByMonth[m];
+                credited += monthCredited;
+                expected += Math.max(Integer.bitCount(due & MonthMask.through(month, today)), monthCredited);
+            }
+            Map<String, Object> rate = new LinkedHashMap<>();
+            rate.put("habitId", habit.getId());
+            rate.put("title", habit.getTitle());
+            rate.put("frequency", schedule.rule());
+            rate.put("completed", completed);
+            rate.put("expected", expected);
+            rate.put("completionRate", expected > 0 ? Math.round((double) credited / expected * 100) : 0);
+            rates.add(rate);
+        }
+        return rates;
+    }
+
+    // Сегодня может быть ещё не отмечено — тогда серия считается со вчерашнего дня
+    private static int currentStreak(int[] days, int elapsedDays) {
+        int i = elapsedDays - 1;
+        if (i >= 0 && days[i] == 0) {
+            i--;
+        }
+        int streak = 0;
+        while (i >= 0 && days[i] > 0) {
+            streak++;
+            i--;
+        }
+        return streak;
+    }
+
+    private static int bestStreak(int[] days, int elapsedDays) {
+        int best = 0;
+        int current = 0;
+        for (int i = 0; i < elapsedDays; i++) {
+            current = days[i] > 0 ? current + 1 : 0;
+            best = Math.max(best, current);
+        }
+        return best;
+    }
+}
@@ -1,13 +1,15 @@
 package com.helthtracer.controller;
 
+import com.helthtracer.controller.response.LoginResponse;
+import com.helthtracer.controller.response.MessageResponse;
+import com.helthtracer.controller.response.UserResponse;
+import com.helthtracer.controller.response.UserView;
 import com.helthtracer.model.User;
 import com.helthtracer.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,63 +25,39 @@ public class AuthController {
         Optional<User> user = userRepository.findByUsername(loginRequest.getUsername());
 
         if (user.isPresent() && user.get().getPassword().equals(loginRequest.getPassword())) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("user", user.get());
-            response.put("token", "jwt-token-" + System.currentTimeMillis());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new LoginResponse(true, UserView.of(user.get()), "jwt-token-" + System.currentTimeMillis()));
         }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", "Invalid username or password");
-        return ResponseEntity.status(401).body(response);
+        return ResponseEntity.status(401).body(MessageResponse.error("Invalid username or password"));
     }
 
     @PostMapping("/signup")
     public ResponseEntity<?> signup(@RequestBody User user) {
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Username already exists"));
+            return ResponseEntity.badRequest().body(MessageResponse.error("Username already exists"));
         }
 
         if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email already registered"));
+            return ResponseEntity.badRequest().body(MessageResponse.error("Email already registered"));
         }
 
         User savedUser = userRepository.save(user);
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("user", savedUser);
-        response.put("message", "User registered successfully");
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(new UserResponse(true, UserView.of(savedUser), "User registered successfully"));
     }
     @PostMapping("/register")
-    public ResponseEntity<Map<String, Object>> registerUser(@RequestBody User user) {
+    public ResponseEntity<?> registerUser(@RequestBody User user) {
         try {
             // Проверяем, нет ли уже пользователя с таким именем
             if (userRepository.existsByUsername(user.getUsername())) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "success", false,
-                        "message", "Username already exists"
-                ));
+                return ResponseEntity.badRequest().body(MessageResponse.error("Username already exists"));
             }
 
             // Сохраняем нового пользователя
             User savedUser = userRepository.save(user);
 
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "user", Map.of(
-                            "id", savedUser.getId(),
-                            "username", savedUser.getUsername()
-                    )
-            ));
+            return ResponseEntity.ok(new UserResponse(true, UserView.of(savedUser), null));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of(
-                    "success", false,
-                    "message", "Error: " + e.getMessage()
-            ));
+            return ResponseEntity.badRequest().body(MessageResponse.error("Error: " + e.getMessage()));
         }
     }
 }
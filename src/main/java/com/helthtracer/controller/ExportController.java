@@ -0,0 +1,75 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.ExportFormat;
+import com.helthtracer.service.ExportService;
+import com.helthtracer.service.ExportType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // GET /api/export/users/1?format=ndjson|csv&type=habit-logs&type=posts&gzip=true
+    // Без type — все наборы; CSV допускает только один набор (у каждого свои колонки).
+    // Ответ — StreamingResponseBody, поэтому ошибки параметров уходят через ResponseStatusException.
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<StreamingResponseBody> exportUser(@PathVariable Long userId,
+                                        @RequestParam(defaultValue = "ndjson") String format,
+                                        @RequestParam(required = false) List<String> type,
+                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        Optional<ExportFormat> exportFormat = ExportFormat.fromParam(format);
+        if (exportFormat.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+
+        Set<ExportType> types = EnumSet.noneOf(ExportType.class);
+        if (type == null || type.isEmpty()) {
+            types.addAll(EnumSet.allOf(ExportType.class));
+        } else {
+            for (String name : type) {
+                Optional<ExportType> exportType = ExportType.fromParam(name);
+                if (exportType.isEmpty()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown type: " + name);
+                }
+                types.add(exportType.get());
+            }
+        }
+        if (exportFormat.get() == ExportFormat.CSV && types.size() != 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV export needs exactly one type");
+        }
+
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        String filename = "user-" + userId + "-export"
+                + (types.size() == 1 ? "-" + types.iterator().next().param() : "")
+                + "." + exportFormat.get().extension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> exportService.export(userId, types, exportFormat.get(), gzip, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.get().contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -4,6 +4,7 @@ import com.helthtracer.model.Habit;
 import com.helthtracer.model.User;
 import com.helthtracer.repository.HabitRepository;
 import com.helthtracer.repository.UserRepository;
+import com.helthtracer.schedule.HabitSchedule;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -45,15 +46,30 @@ public class HabitController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
         habit.setUser(user);
+        normalizeFrequency(habit);
         return habitRepository.save(habit);
     }
 
     @PutMapping("/{id}")
     public Habit updateHabit(@PathVariable Long id, @RequestBody Habit habit) {
+        Habit existing = habitRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Habit not found"));
         habit.setId(id);
+        // Дата начала — от создания привычки, клиент её не меняет
+        habit.setCreatedAt(existing.getCreatedAt());
+        normalizeFrequency(habit);
         return habitRepository.save(habit);
     }
 
+    // Храним правило расписания в канонической записи; неразборчивое — 400
+    private static void normalizeFrequency(Habit habit) {
+        try {
+            habit.setFrequency(HabitSchedule.of(habit.getFrequency()).rule());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}")
     public void deleteHabit(@PathVariable Long id) {
         habitRepository.deleteById(id);
@@ -2,8 +2,13 @@ package com.helthtracer.controller;
 
 import com.helthtracer.model.Habit;
 import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
 import com.helthtracer.repository.HabitLogRepository;
 import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.service.HabitLogService;
+import com.helthtracer.storage.ArchiveReader;
+import com.helthtracer.storage.ArchivedHabitLog;
+import com.helthtracer.storage.PartitionedTable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -11,9 +16,14 @@ import org.springframework.transaction.annotation.Transactional; // ← доба
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/habit-logs")
@@ -25,15 +35,48 @@ public class HabitLogController {
     @Autowired
     private HabitRepository habitRepository;
 
+    @Autowired
+    private HabitLogService habitLogService;
+
+    @Autowired
+    private ArchiveReader archiveReader;
+
     @GetMapping
-    public List<HabitLog> getHabitLogs(
+    public List<?> getHabitLogs(
             @RequestParam Long user_id,
             @RequestParam int year,
             @RequestParam int month) {
 
+        YearMonth yearMonth = YearMonth.of(year, month);
         LocalDate startDate = LocalDate.of(year, month, 1);
         LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        return habitLogRepository.findByHabitUserIdAndDateBetween(user_id, startDate, endDate);
+        List<HabitLog> live = habitLogRepository.findByHabitUserIdAndDateBetween(user_id, startDate, endDate);
+        if (!archiveReader.isArchived(PartitionedTable.HABIT_LOGS, yearMonth)) {
+            return live;
+        }
+
+        // Месяцы за горизонтом хранения читаются из архива; записи задним числом лежат в БД
+        // до следующего прогона архиватора, который сольёт их с файлом
+        Set<Long> liveIds = new HashSet<>();
+        live.forEach(log -> liveIds.add(log.getId()));
+        List<Object> logs = new ArrayList<>();
+        for (ArchivedHabitLog archived : archiveReader.readHabitLogs(user_id, yearMonth)) {
+            if (!liveIds.contains(archived.id())) {
+                logs.add(toLogView(archived));
+            }
+        }
+        logs.addAll(live);
+        return logs;
+    }
+
+    // Та же форма, что у HabitLog в JSON: { id, habit: { id }, date, status }
+    private Map<String, Object> toLogView(ArchivedHabitLog archived) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", archived.id());
+        view.put("habit", Map.of("id", archived.habitId()));
+        view.put("date", archived.date());
+        view.put("status", archived.status());
+        return view;
     }
 
     @PostMapping
@@ -44,18 +87,8 @@ public class HabitLogController {
                 return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Habit not found"));
             }
 
-            List<HabitLog> existingLogs =
-                    habitLogRepository.findByHabitIdAndDate(request.getHabitId(), request.getDate());
-
-            HabitLog habitLog;
-            if (existingLogs.isEmpty()) {
-                habitLog = new HabitLog(habit.get(), request.getDate(), request.getStatus());
-            } else {
-                habitLog = existingLogs.get(0);
-                habitLog.setStatus(request.getStatus());
-            }
-
-            HabitLog savedLog = habitLogRepository.save(habitLog);
+            HabitLog savedLog = habitLogService.createOrUpdate(habit.get(), request.getDate(),
+                    HabitStatus.parse(request.getStatus()));
 
             return ResponseEntity.ok(Map.of("success", true, "habitLog", savedLog));
         } catch (Exception e) {
@@ -70,7 +103,7 @@ public class HabitLogController {
     public ResponseEntity<?> deleteHabitLog(@RequestParam Long habit_id,
                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         try {
-            habitLogRepository.deleteByHabitIdAndDate(habit_id, date);
+            habitLogService.delete(habit_id, date);
             return ResponseEntity.ok(Map.of("success", true, "message", "Habit log deleted"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
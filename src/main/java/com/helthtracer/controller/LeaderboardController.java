@@ -0,0 +1,95 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.model.User;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.Leaderboard;
+import com.helthtracer.service.LeaderboardService;
+import com.helthtracer.service.LeaderboardService.Board;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // GET /api/leaderboard?board=monthly|streak&limit=10
+    @GetMapping
+    public Map<String, Object> getLeaderboard(@RequestParam(defaultValue = "monthly") String board,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        Board type = parseBoard(board);
+        Leaderboard leaderboard = leaderboardService.board(type);
+        List<Leaderboard.Entry> top = leaderboard.top(Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+        Map<Long, String> usernames = userRepository.findAllById(top.stream().map(Leaderboard.Entry::userId).toList())
+                .stream().collect(Collectors.toMap(User::getId, User::getUsername));
+
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (int i = 0; i < top.size(); i++) {
+            Leaderboard.Entry entry = top.get(i);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", i + 1);
+            row.put("userId", entry.userId());
+            row.put("username", usernames.get(entry.userId()));
+            putScore(row, type, entry.score());
+            entries.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("board", board);
+        if (type == Board.MONTHLY_RATE) {
+            result.put("period", leaderboardService.boardPeriod());
+        }
+        result.put("total", leaderboard.size());
+        result.put("entries", entries);
+        return result;
+    }
+
+    // «Моё место» в обоих рейтингах; rank = null, если пользователь в рейтинг не попал
+    @GetMapping("/users/{userId}")
+    public Map<String, Object> getUserRank(@PathVariable Long userId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userId", userId);
+        result.put("monthly", rankOf(Board.MONTHLY_RATE, userId));
+        result.put("streak", rankOf(Board.STREAK, userId));
+        return result;
+    }
+
+    private Map<String, Object> rankOf(Board type, Long userId) {
+        Leaderboard leaderboard = leaderboardService.board(type);
+        OptionalInt rank = leaderboard.rank(userId);
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("rank", rank.isPresent() ? rank.getAsInt() : null);
+        putScore(row, type, leaderboard.entry(userId).map(Leaderboard.Entry::score).orElse(0.0));
+        row.put("total", leaderboard.size());
+        return row;
+    }
+
+    private void putScore(Map<String, Object> row, Board type, double score) {
+        if (type == Board.MONTHLY_RATE) {
+            row.put("completionRate", leaderboardService.monthlyRate(score));
+        } else {
+            row.put("streak", (int) score);
+        }
+    }
+
+    private static Board parseBoard(String board) {
+        return switch (board) {
+            case "monthly" -> Board.MONTHLY_RATE;
+            case "streak" -> Board.STREAK;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown board: " + board);
+        };
+    }
+}
@@ -1,17 +1,17 @@
 package com.helthtracer.controller;
 
-import com.helthtracer.model.Like;
+import com.helthtracer.controller.response.LikeResponse;
+import com.helthtracer.controller.response.MessageResponse;
 import com.helthtracer.model.Post;
 import com.helthtracer.model.User;
 import com.helthtracer.repository.LikeRepository;
 import com.helthtracer.repository.PostRepository;
 import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.LikeToggleCoalescer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -27,6 +27,9 @@ public class LikeController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LikeToggleCoalescer likeToggleCoalescer;
+
     @PostMapping
     public ResponseEntity<?> toggleLike(@RequestBody LikeRequest request) {
         try {
@@ -34,33 +37,16 @@ public class LikeController {
             Optional<User> user = userRepository.findById(request.getUserId());
 
             if (post.isEmpty() || user.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Post or User not found"));
+                return ResponseEntity.badRequest().body(MessageResponse.error("Post or User not found"));
             }
 
-            Optional<Like> existingLike = likeRepository.findByPostIdAndUserId(request.getPostId(), request.getUserId());
+            // Запись в БД откладывается на короткое окно, ответ — сразу итоговое состояние
+            boolean liked = likeToggleCoalescer.toggle(request.getPostId(), request.getUserId());
 
-            if (existingLike.isPresent()) {
-                // Удалить лайк
-                likeRepository.delete(existingLike.get());
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("liked", false);
-                response.put("message", "Like removed");
-                return ResponseEntity.ok(response);
-            } else {
-                // Добавить лайк
-                Like like = new Like(post.get(), user.get());
-                likeRepository.save(like);
-
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("liked", true);
-                response.put("message", "Post liked");
-                return ResponseEntity.ok(response);
-            }
+            return ResponseEntity.ok(new LikeResponse(true, liked, liked ? "Post liked" : "Like removed"));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 
@@ -68,10 +54,11 @@ public class LikeController {
     @GetMapping("/check")
     public ResponseEntity<?> checkLike(@RequestParam Long postId, @RequestParam Long userId) {
         try {
-            boolean isLiked = likeRepository.existsByPostIdAndUserId(postId, userId);
-            return ResponseEntity.ok(Map.of("success", true, "liked", isLiked));
+            boolean isLiked = likeToggleCoalescer.pendingState(postId, userId)
+                    .orElseGet(() -> likeRepository.existsByPostIdAndUserId(postId, userId));
+            return ResponseEntity.ok(new LikeResponse(true, isLiked, null));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 }
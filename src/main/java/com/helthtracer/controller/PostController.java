@@ -1,19 +1,26 @@
 package com.helthtracer.controller;
 
+import com.helthtracer.controller.response.MessageResponse;
+import com.helthtracer.controller.response.PostResponse;
+import com.helthtracer.controller.response.PostStatsResponse;
+import com.helthtracer.controller.response.PostView;
+import com.helthtracer.event.DomainEventBus;
+import com.helthtracer.event.PostCreatedEvent;
+import com.helthtracer.event.PostDeletedEvent;
 import com.helthtracer.model.Post;
 import com.helthtracer.model.User;
 import com.helthtracer.repository.CommentRepository;
 import com.helthtracer.repository.LikeRepository;
 import com.helthtracer.repository.PostRepository;
 import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.TrendingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -32,16 +39,28 @@ public class PostController {
     @Autowired
     private CommentRepository commentRepository;
 
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private TrendingService trendingService;
+
     // Получить все посты
     @GetMapping
-    public List<Post> getAllPosts() {
-        return postRepository.findAllByOrderByCreatedAtDesc();
+    public List<PostView> getAllPosts() {
+        return postRepository.findAllByOrderByCreatedAtDesc().stream().map(PostView::of).toList();
+    }
+
+    // Посты «в тренде»: готовый top-K из памяти, без запросов к БД
+    @GetMapping("/trending")
+    public List<TrendingService.TrendingPost> getTrendingPosts(@RequestParam(defaultValue = "20") int limit) {
+        return trendingService.trending(Math.max(0, limit));
     }
 
     // Получить посты пользователя
     @GetMapping("/user/{userId}")
-    public List<Post> getUserPosts(@PathVariable Long userId) {
-        return postRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public List<PostView> getUserPosts(@PathVariable Long userId) {
+        return postRepository.findByUserIdOrderByCreatedAtDesc(userId).stream().map(PostView::of).toList();
     }
 
     // Создать пост
@@ -50,7 +69,7 @@ public class PostController {
         try {
             Optional<User> user = userRepository.findById(request.getUserId());
             if (user.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "User not found"));
+                return ResponseEntity.badRequest().body(MessageResponse.error("User not found"));
             }
 
             Post post = new Post();
@@ -62,14 +81,13 @@ public class PostController {
             post.setUpdatedAt(LocalDateTime.now());
 
             Post savedPost = postRepository.save(post);
+            domainEventBus.publish(new PostCreatedEvent(savedPost.getId(), user.get().getId(), user.get().getUsername(),
+                    savedPost.getTitle(), savedPost.getTopic(), Instant.now()));
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("post", savedPost);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new PostResponse(true, PostView.of(savedPost)));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 
@@ -78,14 +96,15 @@ public class PostController {
     public ResponseEntity<?> deletePost(@PathVariable Long id) {
         try {
             if (!postRepository.existsById(id)) {
-                return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Post not found"));
+                return ResponseEntity.badRequest().body(MessageResponse.error("Post not found"));
             }
 
             postRepository.deleteById(id);
-            return ResponseEntity.ok(Map.of("success", true, "message", "Post deleted"));
+            domainEventBus.publish(new PostDeletedEvent(id, Instant.now()));
+            return ResponseEntity.ok(MessageResponse.ok("Post deleted"));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 
@@ -96,15 +115,10 @@ public class PostController {
             int likeCount = likeRepository.countByPostId(postId);
             int commentCount = commentRepository.countByPostId(postId);
 
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("likeCount", likeCount);
-            stats.put("commentCount", commentCount);
-            stats.put("success", true);
-
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok(new PostStatsResponse(true, likeCount, commentCount));
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+            return ResponseEntity.badRequest().body(MessageResponse.error(e.getMessage()));
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.batch.RecomputeRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/recompute")
+public class RecomputeController {
+
+    @Autowired
+    private RecomputeRunner recomputeRunner;
+
+    @GetMapping
+    public Map<String, Object> getRecomputeRuns() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tasks", recomputeRunner.taskNames());
+        result.put("runs", recomputeRunner.statuses());
+        return result;
+    }
+
+    @GetMapping("/{task}")
+    public RecomputeRunner.RunStatus getRecomputeRun(@PathVariable String task) {
+        return recomputeRunner.status(task)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recompute run not found"));
+    }
+
+    // Запускает пересчёт и сразу отвечает 202; resume=true продолжает прерванный запуск с чекпойнтов
+    @PostMapping("/{task}")
+    public ResponseEntity<RecomputeRunner.RunStatus> startRecompute(@PathVariable String task,
+                                                                    @RequestParam(defaultValue = "false") boolean resume) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(recomputeRunner.start(task, resume));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+}
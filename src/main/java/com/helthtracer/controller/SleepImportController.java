@@ -0,0 +1,49 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.SleepImportJob;
+import com.helthtracer.service.SleepImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/sleep-sessions/import")
+public class SleepImportController {
+
+    @Autowired
+    private SleepImportService sleepImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Принимает файл (CSV / JSON / NDJSON) и сразу отвечает 202 с id задачи,
+    // прогресс — через GET /api/sleep-sessions/import/{jobId}
+    @PostMapping
+    public ResponseEntity<SleepImportJob> importSleep(@RequestParam Long userId,
+                                                      @RequestParam MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(sleepImportService.submit(userId, file));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports in progress");
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public SleepImportJob getImport(@PathVariable String jobId) {
+        return sleepImportService.getJob(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.batch.RecomputeRunner;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.SleepScoreEngine;
+import com.helthtracer.service.SleepScoreService;
+import com.helthtracer.service.SleepSessionService;
+import com.helthtracer.service.SleepSessionService.SleepOverlapException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/sleep-sessions")
+public class SleepSessionController {
+
+    @Autowired
+    private SleepSessionService sleepSessionService;
+
+    @Autowired
+    private SleepScoreService sleepScoreService;
+
+    @Autowired
+    private RecomputeRunner recomputeRunner;
+
+    @Autowired
+    private SleepSessionRepository sleepSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // История для графиков: сессии, пересекающие [from, to); по умолчанию последние 30 дней
+    @GetMapping
+    public List<Map<String, Object>> getSleepSessions(
+            @RequestParam Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return sleepSessionService.findRange(userId, start, end).stream().map(this::toView).toList();
+    }
+
+    // Оценки сна из свёрнутого состояния: долг, регулярность, постоянство отбоя, тренд длительности
+    @GetMapping("/scores")
+    public SleepScoreEngine.Scores getSleepScores(@RequestParam Long userId) {
+        requireUser(userId);
+        return sleepScoreService.scores(userId);
+    }
+
+    // Полный пересчёт оценок из истории (бэкфилл). Одного пользователя — сразу;
+    // всех — запуском RecomputeRunner "sleep-scores" с чекпойнтами: 202, ход — GET /api/recompute/sleep-scores
+    @PostMapping("/scores/rebuild")
+    public ResponseEntity<?> rebuildSleepScores(@RequestParam(required = false) Long userId) {
+        if (userId != null) {
+            requireUser(userId);
+            sleepScoreService.rebuild(userId);
+            return ResponseEntity.ok(Map.of("users", 1));
+        }
+        try {
+            RecomputeRunner.RunStatus run = recomputeRunner.start(sleepScoreService.name(), false);
+            return ResponseEntity.accepted().location(URI.create("/api/recompute/" + run.task())).body(run);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public Map<String, Object> getSleepSession(@PathVariable Long id) {
+        return toView(findSession(id));
+    }
+
+    // { "userId": 1, "startTime": "2024-01-01T23:00:00", "endTime": "2024-01-02T07:00:00" }
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createSleepSession(@RequestBody Map<String, String> request) {
+        User user = findUser(request.get("userId"));
+        SleepSession saved = write(() -> sleepSessionService.create(user,
+                parseTime(request.get("startTime")), parseTime(request.get("endTime"))));
+        return ResponseEntity.status(HttpStatus.CREATED).body(toView(saved));
+    }
+
+    @PutMapping("/{id}")
+    public Map<String, Object> updateSleepSession(@PathVariable Long id, @RequestBody Map<String, String> request) {
+        SleepSession session = findSession(id);
+        return toView(write(() -> sleepSessionService.update(session,
+                parseTime(request.get("startTime")), parseTime(request.get("endTime")))));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSleepSession(@PathVariable Long id) {
+        sleepSessionService.delete(findSession(id));
+        return ResponseEntity.noContent().build();
+    }
+
+    // Кнопка «Лёг спать»: открывает сессию с текущим временем
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> startSleep(@RequestBody Map<String, String> request) {
+        User user = findUser(request.get("userId"));
+        return ResponseEntity.status(HttpStatus.CREATED).body(toView(write(() -> sleepSessionService.start(user))));
+    }
+
+    // Кнопка «Проснулся»: закрывает открытую сессию
+    @PostMapping("/stop")
+    public Map<String, Object> stopSleep(@RequestBody Map<String, String> request) {
+        User user = findUser(request.get("userId"));
+        return sleepSessionService.stop(user.getId()).map(this::toView)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "No sleep session in progress"));
+    }
+
+    private SleepSession write(Supplier<SleepSession> action) {
+        try {
+            return action.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (SleepOverlapException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private User findUser(String userId) {
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
+        }
+        return userRepository.findById(Long.valueOf(userId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    private void requireUser(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+    }
+
+    private SleepSession findSession(Long id) {
+        return sleepSessionRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Sleep session not found"));
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return value != null ? LocalDateTime.parse(value) : null;
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date-time: " + value);
+        }
+    }
+
+    private Map<String, Object> toView(SleepSession session) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", session.getId());
+        view.put("userId", session.getUser().getId());
+        view.put("startTime", session.getStartTime());
+        view.put("endTime", session.getEndTime());
+        view.put("durationHours", session.getEndTime() != null
+                ? Math.round(Duration.between(session.getStartTime(), session.getEndTime()).toMinutes() / 6.0) / 10.0
+                : null);
+        return view;
+    }
+}
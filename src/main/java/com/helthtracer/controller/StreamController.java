@@ -0,0 +1,29 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.service.SseBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    @Autowired
+    private SseBroadcaster sseBroadcaster;
+
+    // События ленты: post, post-deleted, like (delta), comment
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        SseEmitter emitter = sseBroadcaster.connect();
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open streams");
+        }
+        return emitter;
+    }
+}
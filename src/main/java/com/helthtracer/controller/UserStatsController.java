@@ -1,15 +1,16 @@
 // UserStatsController.java
 package com.helthtracer.controller;
 
+import com.helthtracer.controller.response.UserStatsResponse;
 import com.helthtracer.repository.HabitRepository;
 import com.helthtracer.repository.HabitLogRepository;
 import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.service.HabitProgressService;
+import com.helthtracer.service.SleepScoreService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,35 +25,30 @@ public class UserStatsController {
     @Autowired
     private SleepSessionRepository sleepSessionRepository;
 
-    @GetMapping("/{userId}/stats")
-    public Map<String, Object> getUserStats(@PathVariable Long userId) {
-        Map<String, Object> stats = new HashMap<>();
+    @Autowired
+    private SleepScoreService sleepScoreService;
 
+    @Autowired
+    private HabitProgressService habitProgressService;
+
+    @GetMapping("/{userId}/stats")
+    public UserStatsResponse getUserStats(@PathVariable Long userId) {
         // Habit statistics
         int totalHabits = habitRepository.countByUserId(userId);
-        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
-        LocalDate endOfMonth = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
+        LocalDate today = LocalDate.now();
+        LocalDate startOfMonth = today.withDayOfMonth(1);
+        LocalDate endOfMonth = today.withDayOfMonth(today.lengthOfMonth());
 
         int completedThisMonth = habitLogRepository.countCompletedHabitsThisMonth(userId, startOfMonth, endOfMonth);
-        int totalPossible = totalHabits * LocalDate.now().lengthOfMonth();
-        double completionRate = totalPossible > 0 ? (double) completedThisMonth / totalPossible * 100 : 0;
+        // Ожидаемое по расписанию каждой привычки на сегодня, а не привычки × дни месяца
+        HabitProgressService.MonthProgress progress = habitProgressService.monthProgress(userId, today);
         // Sleep statistics
         Double avgSleep = sleepSessionRepository.findAverageSleepDurationByUserId(userId);
         double averageSleep = avgSleep != null ? avgSleep : 0.0;
 
-
-        stats.put("totalHabits", totalHabits);
-        stats.put("completedThisMonth", completedThisMonth);
-        stats.put("completionRate", Math.round(completionRate));
-        stats.put("averageSleep", averageSleep);
-        stats.put("currentStreak", calculateCurrentStreak(userId));
-
-        return stats;
-    }
-
-    private int calculateCurrentStreak(Long userId) {
-        // Implementation for calculating current streak
-        // This would check consecutive days where all habits were completed
-        return 0; // Placeholder
+        // Долг, регулярность, постоянство отбоя и тренд — из свёрнутого состояния, без прохода по истории
+        return new UserStatsResponse(totalHabits, completedThisMonth, progress.expected(), progress.completionRate(),
+                averageSleep, avgSleep != null ? sleepScoreService.scores(userId) : null,
+                habitProgressService.currentStreak(userId, today));
     }
 }
\ No newline at end of file
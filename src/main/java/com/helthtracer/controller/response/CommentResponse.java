@@ -0,0 +1,3 @@
+package com.helthtracer.controller.response;
+
+public record CommentResponse(boolean success, CommentView comment, String message) {}
@@ -0,0 +1,16 @@
+package com.helthtracer.controller.response;
+
+import com.helthtracer.model.Comment;
+
+import java.time.LocalDateTime;
+
+// { id, post: { id }, user: { id, username, email }, body, createdAt } — пост только ссылкой, как habit у логов
+public record CommentView(Long id, PostRef post, UserView user, String body, LocalDateTime createdAt) {
+
+    public record PostRef(Long id) {}
+
+    public static CommentView of(Comment comment) {
+        return new CommentView(comment.getId(), new PostRef(comment.getPost().getId()), UserView.of(comment.getUser()),
+                comment.getBody(), comment.getCreatedAt());
+    }
+}
@@ -0,0 +1,7 @@
+package com.helthtracer.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// message есть только в ответе на переключение лайка
+public record LikeResponse(boolean success, boolean liked,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) String message) {}
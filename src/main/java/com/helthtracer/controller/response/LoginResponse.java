@@ -0,0 +1,3 @@
+package com.helthtracer.controller.response;
+
+public record LoginResponse(boolean success, UserView user, String token) {}
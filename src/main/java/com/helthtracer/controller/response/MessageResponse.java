@@ -0,0 +1,13 @@
+package com.helthtracer.controller.response;
+
+// { success, message } — ошибки и подтверждения без данных
+public record MessageResponse(boolean success, String message) {
+
+    public static MessageResponse ok(String message) {
+        return new MessageResponse(true, message);
+    }
+
+    public static MessageResponse error(String message) {
+        return new MessageResponse(false, message);
+    }
+}
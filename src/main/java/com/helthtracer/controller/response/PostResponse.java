@@ -0,0 +1,3 @@
+package com.helthtracer.controller.response;
+
+public record PostResponse(boolean success, PostView post) {}
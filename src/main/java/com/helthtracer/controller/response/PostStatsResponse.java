@@ -0,0 +1,3 @@
+package com.helthtracer.controller.response;
+
+public record PostStatsResponse(boolean success, int likeCount, int commentCount) {}
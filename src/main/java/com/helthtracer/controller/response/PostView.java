@@ -0,0 +1,15 @@
+package com.helthtracer.controller.response;
+
+import com.helthtracer.model.Post;
+
+import java.time.LocalDateTime;
+
+// Та же форма, что у Post в JSON раньше: { id, user: { id, username, email }, title, body, topic, createdAt, updatedAt }
+public record PostView(Long id, UserView user, String title, String body, String topic,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static PostView of(Post post) {
+        return new PostView(post.getId(), UserView.of(post.getUser()), post.getTitle(), post.getBody(),
+                post.getTopic(), post.getCreatedAt(), post.getUpdatedAt());
+    }
+}
@@ -0,0 +1,33 @@
+package com.helthtracer.controller.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Сериализаторы ответов строятся при старте, а не на первом запросе: writerFor с известным типом
+// сразу находит сериализатор и кладёт его в общий кеш ObjectMapper, которым пишут конвертеры Spring MVC.
+// Для типизированных записей это полный набор свойств; Map пришлось бы разбирать по значениям на каждом ответе.
+@Component
+public class ResponseSerializerWarmup {
+
+    static final List<Class<?>> RESPONSE_TYPES = List.of(
+            MessageResponse.class, PostView.class, PostResponse.class, PostStatsResponse.class,
+            CommentView.class, CommentResponse.class,
+            LikeResponse.class, LoginResponse.class, UserResponse.class, UserStatsResponse.class);
+
+    private final ObjectMapper objectMapper;
+
+    public ResponseSerializerWarmup(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (Class<?> type : RESPONSE_TYPES) {
+            objectMapper.writerFor(type);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.helthtracer.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public record UserResponse(boolean success, UserView user,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) String message) {}
@@ -0,0 +1,7 @@
+package com.helthtracer.controller.response;
+
+import com.helthtracer.service.SleepScoreEngine;
+
+// sleepScores — null, пока у пользователя нет ни одной сессии сна
+public record UserStatsResponse(int totalHabits, int completedThisMonth, int expectedThisMonth, long completionRate,
+                                double averageSleep, SleepScoreEngine.Scores sleepScores, int currentStreak) {}
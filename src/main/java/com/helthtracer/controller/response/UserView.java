@@ -0,0 +1,11 @@
+package com.helthtracer.controller.response;
+
+import com.helthtracer.model.User;
+
+// Пользователь в ответах API — без пароля и без ленивых связей сущности
+public record UserView(Long id, String username, String email) {
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getUsername(), user.getEmail());
+    }
+}
@@ -0,0 +1,7 @@
+package com.helthtracer.event;
+
+import java.time.Instant;
+
+public record CommentAddedEvent(Long commentId, Long postId, Long userId, String username, String body,
+                                Instant occurredAt) implements DomainEvent {
+}
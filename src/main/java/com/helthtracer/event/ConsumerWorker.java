@@ -0,0 +1,143 @@
+package com.helthtracer.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Один поток на консьюмера: ограниченная очередь + выборка батчами
+class ConsumerWorker implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerWorker.class);
+
+    private record Envelope(DomainEvent event, long enqueuedAtNanos) {}
+
+    private final DomainEventConsumer consumer;
+    private final BlockingQueue<Envelope> queue;
+    private final Thread thread;
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter processed;
+    private final Counter failed;
+    private final Timer lag;
+
+    private volatile boolean running = true;
+    private volatile long oldestPendingNanos;
+
+    ConsumerWorker(DomainEventConsumer consumer, MeterRegistry meterRegistry) {
+        this.consumer = consumer;
+        this.queue = new ArrayBlockingQueue<>(consumer.queueCapacity());
+        this.thread = new Thread(this, "domain-events-" + consumer.name());
+        this.thread.setDaemon(true);
+
+        String name = consumer.name();
+        Gauge.builder("domain.events.queue.depth", queue, BlockingQueue::size)
+                .tag("consumer", name).register(meterRegistry);
+        Gauge.builder("domain.events.queue.lag.seconds", this, ConsumerWorker::currentLagSeconds)
+                .tag("consumer", name).register(meterRegistry);
+        this.published = Counter.builder("domain.events.published").tag("consumer", name).register(meterRegistry);
+        this.dropped = Counter.builder("domain.events.dropped").tag("consumer", name).register(meterRegistry);
+        this.processed = Counter.builder("domain.events.processed").tag("consumer", name).register(meterRegistry);
+        this.failed = Counter.builder("domain.events.failed").tag("consumer", name).register(meterRegistry);
+        this.lag = Timer.builder("domain.events.lag").tag("consumer", name).register(meterRegistry);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void offer(DomainEvent event) {
+        if (!consumer.supports(event)) {
+            return;
+        }
+        Envelope envelope = new Envelope(event, System.nanoTime());
+        published.increment();
+        switch (consumer.overflowPolicy()) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(envelope)) {
+                    dropped.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(envelope)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(envelope, consumer.blockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                        dropped.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Envelope> batch = new ArrayList<>(consumer.maxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Envelope first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, consumer.maxBatchSize() - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                // Прерывание = остановка потока: флаг восстанавливаем, остаток очереди не дочитываем
+                Thread.currentThread().interrupt();
+                running = false;
+                log.warn("Consumer {} interrupted, {} queued events left unprocessed", consumer.name(), queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Envelope> batch) {
+        oldestPendingNanos = batch.get(0).enqueuedAtNanos();
+        List<DomainEvent> events = new ArrayList<>(batch.size());
+        for (Envelope envelope : batch) {
+            events.add(envelope.event());
+        }
+        try {
+            consumer.onEvents(events);
+            processed.increment(events.size());
+        } catch (Exception e) {
+            failed.increment(events.size());
+            log.warn("Consumer {} failed on a batch of {} events", consumer.name(), events.size(), e);
+        }
+        long now = System.nanoTime();
+        for (Envelope envelope : batch) {
+            lag.record(now - envelope.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        }
+        oldestPendingNanos = 0;
+    }
+
+    private double currentLagSeconds() {
+        Envelope head = queue.peek();
+        long oldest = head != null ? head.enqueuedAtNanos() : oldestPendingNanos;
+        return oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1e9;
+    }
+
+    void stop(long timeoutMillis) throws InterruptedException {
+        running = false;
+        thread.join(timeoutMillis);
+    }
+}
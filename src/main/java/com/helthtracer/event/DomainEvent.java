@@ -0,0 +1,7 @@
+package com.helthtracer.event;
+
+import java.time.Instant;
+
+public interface DomainEvent {
+    Instant occurredAt();
+}
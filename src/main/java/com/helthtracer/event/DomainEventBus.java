@@ -0,0 +1,63 @@
+package com.helthtracer.event;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Внутрипроцессная шина доменных событий.
+// Внутри транзакции событие уходит консьюмерам только после коммита,
+// сами консьюмеры работают в своих потоках — запрос их не ждёт.
+@Component
+public class DomainEventBus {
+
+    private final Map<String, ConsumerWorker> workers = new LinkedHashMap<>();
+
+    @Autowired
+    public DomainEventBus(ObjectProvider<DomainEventConsumer> consumers, MeterRegistry meterRegistry) {
+        this(consumers.orderedStream().toList(), meterRegistry);
+    }
+
+    public DomainEventBus(List<DomainEventConsumer> consumers, MeterRegistry meterRegistry) {
+        for (DomainEventConsumer consumer : consumers) {
+            ConsumerWorker worker = new ConsumerWorker(consumer, meterRegistry);
+            if (workers.putIfAbsent(consumer.name(), worker) != null) {
+                throw new IllegalStateException("Duplicate domain event consumer: " + consumer.name());
+            }
+            worker.start();
+        }
+    }
+
+    public void publish(DomainEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(DomainEvent event) {
+        for (ConsumerWorker worker : workers.values()) {
+            worker.offer(event);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ConsumerWorker worker : workers.values()) {
+            worker.stop(5_000);
+        }
+    }
+}
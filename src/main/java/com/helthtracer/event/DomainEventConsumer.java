@@ -0,0 +1,32 @@
+package com.helthtracer.event;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface DomainEventConsumer {
+
+    String name();
+
+    // Батч уже отфильтрован через supports(), порядок публикации сохраняется
+    void onEvents(List<DomainEvent> batch);
+
+    default boolean supports(DomainEvent event) {
+        return true;
+    }
+
+    default int queueCapacity() {
+        return 10_000;
+    }
+
+    default int maxBatchSize() {
+        return 256;
+    }
+
+    default OverflowPolicy overflowPolicy() {
+        return OverflowPolicy.DROP_OLDEST;
+    }
+
+    default Duration blockTimeout() {
+        return Duration.ofMillis(50);
+    }
+}
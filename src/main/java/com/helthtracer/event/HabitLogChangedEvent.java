@@ -0,0 +1,10 @@
+package com.helthtracer.event;
+
+import com.helthtracer.model.HabitStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record HabitLogChangedEvent(Long userId, Long habitId, LocalDate date, HabitStatus status, Instant occurredAt)
+        implements DomainEvent {
+}
@@ -0,0 +1,8 @@
+package com.helthtracer.event;
+
+import java.time.Instant;
+
+// likedAt — когда был поставлен лайк: для снятия — время снятого лайка (null — неизвестно, лайк старше V13)
+public record LikeToggledEvent(Long postId, Long userId, boolean liked, Instant occurredAt, Instant likedAt)
+        implements DomainEvent {
+}
@@ -0,0 +1,11 @@
+package com.helthtracer.event;
+
+// Что делать, когда очередь консьюмера заполнена
+public enum OverflowPolicy {
+    // отбросить новое событие
+    DROP_NEWEST,
+    // вытеснить самое старое событие из очереди
+    DROP_OLDEST,
+    // притормозить публикацию (backpressure) на blockTimeout, затем отбросить
+    BLOCK
+}
@@ -0,0 +1,7 @@
+package com.helthtracer.event;
+
+import java.time.Instant;
+
+public record PostCreatedEvent(Long postId, Long userId, String username, String title, String topic,
+                               Instant occurredAt) implements DomainEvent {
+}
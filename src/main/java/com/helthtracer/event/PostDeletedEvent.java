@@ -0,0 +1,6 @@
+package com.helthtracer.event;
+
+import java.time.Instant;
+
+public record PostDeletedEvent(Long postId, Instant occurredAt) implements DomainEvent {
+}
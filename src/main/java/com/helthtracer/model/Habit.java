@@ -1,9 +1,15 @@
 package com.helthtracer.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "habits")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "habits")
 public class Habit {
 
     @Id
@@ -21,9 +27,14 @@ public class Habit {
     @Column(columnDefinition = "TEXT")
     private String description;
 
+    // Правило расписания, см. HabitSchedule
     @Column(length = 50)
     private String frequency;
 
+    // С этого дня привычка ожидается по расписанию (проценты и серии не считают дни до неё пропусками)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDate createdAt;
+
     // --- Конструкторы ---
     public Habit() {}
 
@@ -34,6 +45,13 @@ public class Habit {
         this.frequency = frequency;
     }
 
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDate.now();
+        }
+    }
+
     // --- Геттеры и сеттеры ---
     public Long getId() {
         return id;
@@ -74,4 +92,12 @@ public class Habit {
     public void setFrequency(String frequency) {
         this.frequency = frequency;
     }
+
+    public LocalDate getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDate createdAt) {
+        this.createdAt = createdAt;
+    }
 }
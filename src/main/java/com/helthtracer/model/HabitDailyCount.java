@@ -0,0 +1,46 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Предпосчитанное число выполненных привычек пользователя за день (для аналитики)
+@Entity
+@Table(name = "habit_daily_counts")
+@IdClass(HabitDailyCountId.class)
+public class HabitDailyCount {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private int completed;
+
+    public HabitDailyCount() {}
+
+    public HabitDailyCount(Long userId, LocalDate date, int completed) {
+        this.userId = userId;
+        this.date = date;
+        this.completed = completed;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+}
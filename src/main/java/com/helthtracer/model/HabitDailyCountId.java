@@ -0,0 +1,30 @@
+package com.helthtracer.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class HabitDailyCountId implements Serializable {
+
+    private Long userId;
+    private LocalDate date;
+
+    public HabitDailyCountId() {}
+
+    public HabitDailyCountId(Long userId, LocalDate date) {
+        this.userId = userId;
+        this.date = date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HabitDailyCountId that)) return false;
+        return Objects.equals(userId, that.userId) && Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, date);
+    }
+}
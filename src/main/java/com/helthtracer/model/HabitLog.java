@@ -16,17 +16,22 @@ public class HabitLog {
     @JoinColumn(name = "habit_id", nullable = false)
     private Habit habit;
 
+    // Копия habit.user.id: месячные выборки и счётчики идут по (user_id, date) без JOIN habits.
+    // Заполняется из habit при создании и перед каждой записью.
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
     @Column(nullable = false)
     private LocalDate date;
 
-    @Column(length = 50)
-    private String status;
+    // SMALLINT-код через HabitStatusConverter
+    private HabitStatus status;
 
     // --- Конструкторы ---
     public HabitLog() {}
 
-    public HabitLog(Habit habit, LocalDate date, String status) {
-        this.habit = habit;
+    public HabitLog(Habit habit, LocalDate date, HabitStatus status) {
+        setHabit(habit);
         this.date = date;
         this.status = status;
     }
@@ -46,6 +51,19 @@ public class HabitLog {
 
     public void setHabit(Habit habit) {
         this.habit = habit;
+        syncUserId();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void syncUserId() {
+        if (habit != null && habit.getUser() != null) {
+            this.userId = habit.getUser().getId();
+        }
     }
 
     public LocalDate getDate() {
@@ -56,11 +74,11 @@ public class HabitLog {
         this.date = date;
     }
 
-    public String getStatus() {
+    public HabitStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(HabitStatus status) {
         this.status = status;
     }
 }
@@ -0,0 +1,53 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.*;
+
+// Предпосчитанное число выполнений привычки за месяц; period = год * 100 + месяц
+@Entity
+@Table(name = "habit_monthly_counts")
+@IdClass(HabitMonthlyCountId.class)
+public class HabitMonthlyCount {
+
+    @Id
+    @Column(name = "habit_id")
+    private Long habitId;
+
+    @Id
+    @Column(nullable = false)
+    private int period;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private int completed;
+
+    public HabitMonthlyCount() {}
+
+    public HabitMonthlyCount(Long habitId, int period, Long userId, int completed) {
+        this.habitId = habitId;
+        this.period = period;
+        this.userId = userId;
+        this.completed = completed;
+    }
+
+    public Long getHabitId() {
+        return habitId;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+}
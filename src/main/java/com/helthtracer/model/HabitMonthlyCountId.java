@@ -0,0 +1,29 @@
+package com.helthtracer.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class HabitMonthlyCountId implements Serializable {
+
+    private Long habitId;
+    private int period;
+
+    public HabitMonthlyCountId() {}
+
+    public HabitMonthlyCountId(Long habitId, int period) {
+        this.habitId = habitId;
+        this.period = period;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HabitMonthlyCountId that)) return false;
+        return period == that.period && Objects.equals(habitId, that.habitId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(habitId, period);
+    }
+}
@@ -0,0 +1,53 @@
+package com.helthtracer.model;
+
+import java.util.Locale;
+
+// Статус отметки привычки. В habit_logs.status хранится код (SMALLINT, см. HabitStatusConverter),
+// в JSON и выгрузках — имя, как и раньше.
+public enum HabitStatus {
+
+    COMPLETED(HabitStatus.COMPLETED_CODE),
+    SKIPPED((short) 2),
+    MISSED((short) 3);
+
+    // Для нативных запросов по habit_logs.status
+    public static final short COMPLETED_CODE = 1;
+
+    private static final HabitStatus[] BY_CODE = new HabitStatus[4];
+
+    static {
+        for (HabitStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final short code;
+
+    HabitStatus(short code) {
+        this.code = code;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public static HabitStatus fromCode(short code) {
+        HabitStatus status = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown habit status code " + code);
+        }
+        return status;
+    }
+
+    // Имя без учёта регистра; null — статуса нет. IllegalArgumentException — неизвестный статус
+    public static HabitStatus parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown habit status " + name);
+        }
+    }
+}
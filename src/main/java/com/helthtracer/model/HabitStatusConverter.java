@@ -0,0 +1,18 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class HabitStatusConverter implements AttributeConverter<HabitStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(HabitStatus status) {
+        return status != null ? status.code() : null;
+    }
+
+    @Override
+    public HabitStatus convertToEntityAttribute(Short code) {
+        return code != null ? HabitStatus.fromCode(code) : null;
+    }
+}
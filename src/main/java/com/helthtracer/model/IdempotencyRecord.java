@@ -0,0 +1,68 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Сохранённый ответ на POST с Idempotency-Key (копия IdempotencyStore для рестартов и других инстансов)
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    // status заявки, которую ещё выполняет один из узлов
+    public static final int IN_PROGRESS = 0;
+
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String key;
+
+    @Column(nullable = false, length = 512)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(length = 1024 * 1024)
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String key, String fingerprint, int status, String contentType, byte[] body,
+                             LocalDateTime createdAt) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -1,6 +1,7 @@
 package com.helthtracer.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(
@@ -25,6 +26,10 @@ public class Like {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Когда поставлен; у лайков до V13 — null
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
     // ⚙️ Конструкторы
     public Like() {}
 
@@ -33,6 +38,18 @@ public class Like {
         this.user = user;
     }
 
+    public Like(Post post, User user, LocalDateTime createdAt) {
+        this(post, user);
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     // ⚙️ Getters / Setters
     public Long getId() {
         return id;
@@ -53,4 +70,8 @@ public class Like {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
 }
@@ -0,0 +1,95 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Итог ночного расчёта SleepCorrelationJob: связь сна с выполнением привычек пользователя
+// за последние windowDays дней. Только чтение — пишет сам расчёт пачками через JDBC.
+@Entity
+@Table(name = "sleep_habit_correlations")
+public class SleepHabitCorrelation {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "window_days", nullable = false)
+    private int windowDays;
+
+    // Дней окна, за которые есть данные о сне
+    @Column(name = "paired_days", nullable = false)
+    private int pairedDays;
+
+    // Пирсон между часами сна и числом выполненных привычек; null — мало данных или нет разброса
+    @Column(name = "correlation")
+    private Double correlation;
+
+    @Column(name = "threshold_hours", nullable = false)
+    private double thresholdHours;
+
+    @Column(name = "well_rested_days", nullable = false)
+    private int wellRestedDays;
+
+    // Среднее выполненных привычек после сна >= thresholdHours; null — мало таких дней
+    @Column(name = "well_rested_avg")
+    private Double wellRestedAvg;
+
+    @Column(name = "short_days", nullable = false)
+    private int shortDays;
+
+    @Column(name = "short_avg")
+    private Double shortAvg;
+
+    // На сколько процентов больше привычек после хорошего сна, чем после короткого
+    @Column(name = "lift_percent")
+    private Double liftPercent;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    public SleepHabitCorrelation() {}
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public int getPairedDays() {
+        return pairedDays;
+    }
+
+    public Double getCorrelation() {
+        return correlation;
+    }
+
+    public double getThresholdHours() {
+        return thresholdHours;
+    }
+
+    public int getWellRestedDays() {
+        return wellRestedDays;
+    }
+
+    public Double getWellRestedAvg() {
+        return wellRestedAvg;
+    }
+
+    public int getShortDays() {
+        return shortDays;
+    }
+
+    public Double getShortAvg() {
+        return shortAvg;
+    }
+
+    public Double getLiftPercent() {
+        return liftPercent;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+}
@@ -0,0 +1,152 @@
+package com.helthtracer.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Свёрнутое состояние оценок сна пользователя (SleepScoreEngine): несколько скользящих средних
+// и последние сессии. Обновляется за O(1) на каждую закрытую сессию, история не перечитывается.
+@Entity
+@Table(name = "sleep_score_states")
+public class SleepScoreState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int sessions;
+
+    // Конец последней учтённой сессии: новая сессия раньше него требует пересчёта
+    @Column(name = "last_end")
+    private LocalDateTime lastEnd;
+
+    // Последний основной сон (не дремота) — для регулярности и времени отбоя
+    @Column(name = "last_main_start")
+    private LocalDateTime lastMainStart;
+
+    @Column(name = "last_main_end")
+    private LocalDateTime lastMainEnd;
+
+    @Column(name = "debt_hours", nullable = false)
+    private double debtHours;
+
+    // Длительность основного сна: короткое (~неделя) и длинное (~месяц) среднее, часы
+    @Column(name = "duration_short", nullable = false)
+    private double durationShort;
+
+    @Column(name = "duration_long", nullable = false)
+    private double durationLong;
+
+    // Время отбоя как единичный вектор на циферблате суток, сглаженный
+    @Column(name = "bedtime_sin", nullable = false)
+    private double bedtimeSin;
+
+    @Column(name = "bedtime_cos", nullable = false)
+    private double bedtimeCos;
+
+    // Sleep Regularity Index, -100..100; null, пока нет двух соседних ночей
+    @Column(name = "regularity")
+    private Double regularity;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public SleepScoreState() {}
+
+    public SleepScoreState(Long userId) {
+        this.userId = userId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(int sessions) {
+        this.sessions = sessions;
+    }
+
+    public LocalDateTime getLastEnd() {
+        return lastEnd;
+    }
+
+    public void setLastEnd(LocalDateTime lastEnd) {
+        this.lastEnd = lastEnd;
+    }
+
+    public LocalDateTime getLastMainStart() {
+        return lastMainStart;
+    }
+
+    public void setLastMainStart(LocalDateTime lastMainStart) {
+        this.lastMainStart = lastMainStart;
+    }
+
+    public LocalDateTime getLastMainEnd() {
+        return lastMainEnd;
+    }
+
+    public void setLastMainEnd(LocalDateTime lastMainEnd) {
+        this.lastMainEnd = lastMainEnd;
+    }
+
+    public double getDebtHours() {
+        return debtHours;
+    }
+
+    public void setDebtHours(double debtHours) {
+        this.debtHours = debtHours;
+    }
+
+    public double getDurationShort() {
+        return durationShort;
+    }
+
+    public void setDurationShort(double durationShort) {
+        this.durationShort = durationShort;
+    }
+
+    public double getDurationLong() {
+        return durationLong;
+    }
+
+    public void setDurationLong(double durationLong) {
+        this.durationLong = durationLong;
+    }
+
+    public double getBedtimeSin() {
+        return bedtimeSin;
+    }
+
+    public void setBedtimeSin(double bedtimeSin) {
+        this.bedtimeSin = bedtimeSin;
+    }
+
+    public double getBedtimeCos() {
+        return bedtimeCos;
+    }
+
+    public void setBedtimeCos(double bedtimeCos) {
+        this.bedtimeCos = bedtimeCos;
+    }
+
+    public Double getRegularity() {
+        return regularity;
+    }
+
+    public void setRegularity(Double regularity) {
+        this.regularity = regularity;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,9 +1,13 @@
 package com.helthtracer.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity // класс-сущность (Entity) — отображается на таблицу в БД
 @Table(name = "tags")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tags")
 public class Tag {
 
     @Id
@@ -1,13 +1,19 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.Comment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
+@Transactional(readOnly = true)
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(Long postId);
     List<Comment> findByUserId(Long userId);
@@ -18,4 +24,13 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     // Подсчет комментариев поста
     @Query("SELECT COUNT(c) FROM Comment c WHERE c.post.id = :postId")
     int countByPostId(@Param("postId") Long postId);
-}
\ No newline at end of file
+
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT c FROM Comment c JOIN FETCH c.post p JOIN FETCH p.user WHERE c.user.id = :userId ORDER BY c.createdAt, c.id")
+    Stream<Comment> streamByUserId(@Param("userId") Long userId);
+}
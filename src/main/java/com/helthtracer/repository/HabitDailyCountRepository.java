@@ -0,0 +1,53 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.HabitDailyCount;
+import com.helthtracer.model.HabitDailyCountId;
+import com.helthtracer.model.HabitStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface HabitDailyCountRepository extends JpaRepository<HabitDailyCount, HabitDailyCountId> {
+
+    List<HabitDailyCount> findByUserIdAndDateBetweenOrderByDate(Long userId, LocalDate start, LocalDate end);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE HabitDailyCount c SET c.completed = c.completed + :delta WHERE c.userId = :userId AND c.date = :date")
+    int addCompleted(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM habit_daily_counts WHERE user_id = :userId AND date >= :from", nativeQuery = true)
+    void deleteByUserIdFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    // Пересчёт из habit_logs (бэкфилл и исправление расхождений).
+    // Месяцы до :from уже в архиве — их счётчики не трогаем.
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO habit_daily_counts (user_id, date, completed)
+            SELECT hl.user_id, hl.date, COUNT(*)
+            FROM habit_logs hl
+            WHERE hl.user_id = :userId AND hl.date >= :from AND hl.status = """ + HabitStatus.COMPLETED_CODE + """
+            GROUP BY hl.user_id, hl.date
+            """, nativeQuery = true)
+    int rebuildForUserFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO habit_daily_counts (user_id, date, completed)
+            SELECT hl.user_id, hl.date, COUNT(*)
+            FROM habit_logs hl
+            WHERE hl.status = """ + HabitStatus.COMPLETED_CODE + """
+            GROUP BY hl.user_id, hl.date
+            """, nativeQuery = true)
+    int rebuildAll();
+}
@@ -1,31 +1,48 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.HabitLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Modifying;       // ← добавлено
 import org.springframework.transaction.annotation.Transactional; // ← добавлено
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
+@Transactional(readOnly = true)
 public interface HabitLogRepository extends JpaRepository<HabitLog, Long> {
 
-    @Query("SELECT COUNT(hl) FROM HabitLog hl WHERE hl.habit.user.id = :userId AND hl.date BETWEEN :start AND :end AND hl.status = 'COMPLETED'")
+    @Query("SELECT COUNT(hl) FROM HabitLog hl WHERE hl.userId = :userId AND hl.date BETWEEN :start AND :end AND hl.status = com.helthtracer.model.HabitStatus.COMPLETED")
     int countCompletedHabitsThisMonth(@Param("userId") Long userId,
                                       @Param("start") LocalDate start,
                                       @Param("end") LocalDate end);
 
-    @Query("SELECT hl FROM HabitLog hl WHERE hl.habit.user.id = :userId AND hl.date BETWEEN :startDate AND :endDate")
+    @Query("SELECT hl FROM HabitLog hl WHERE hl.userId = :userId AND hl.date BETWEEN :startDate AND :endDate")
     List<HabitLog> findByHabitUserIdAndDateBetween(@Param("userId") Long userId,
                                                    @Param("startDate") LocalDate startDate,
                                                    @Param("endDate") LocalDate endDate);
 
     List<HabitLog> findByHabitIdAndDate(Long habitId, LocalDate date);
 
+    @Query("SELECT MIN(hl.date) FROM HabitLog hl WHERE hl.userId = :userId")
+    LocalDate findFirstDateByUserId(@Param("userId") Long userId);
+
     // ✔ ИСПРАВЛЕНО — нужно @Modifying + @Transactional
     @Modifying
     @Transactional
     void deleteByHabitIdAndDate(Long habitId, LocalDate date);
+
+    // Полная история пользователя для экспорта: читается курсором, без сборки List
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT hl FROM HabitLog hl JOIN FETCH hl.habit WHERE hl.userId = :userId ORDER BY hl.date, hl.id")
+    Stream<HabitLog> streamByUserId(@Param("userId") Long userId);
 }
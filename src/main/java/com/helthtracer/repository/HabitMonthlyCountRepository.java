@@ -0,0 +1,54 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.HabitMonthlyCount;
+import com.helthtracer.model.HabitMonthlyCountId;
+import com.helthtracer.model.HabitStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface HabitMonthlyCountRepository extends JpaRepository<HabitMonthlyCount, HabitMonthlyCountId> {
+
+    List<HabitMonthlyCount> findByUserIdAndPeriodBetween(Long userId, int startPeriod, int endPeriod);
+
+    @Query("SELECT COALESCE(SUM(c.completed), 0) FROM HabitMonthlyCount c WHERE c.userId = :userId AND c.period = :period")
+    long sumCompletedByUserIdAndPeriod(@Param("userId") Long userId, @Param("period") int period);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE HabitMonthlyCount c SET c.completed = c.completed + :delta WHERE c.habitId = :habitId AND c.period = :period")
+    int addCompleted(@Param("habitId") Long habitId, @Param("period") int period, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM habit_monthly_counts WHERE user_id = :userId AND period >= :fromPeriod", nativeQuery = true)
+    void deleteByUserIdFrom(@Param("userId") Long userId, @Param("fromPeriod") int fromPeriod);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO habit_monthly_counts (habit_id, period, user_id, completed)
+            SELECT hl.habit_id, EXTRACT(YEAR FROM hl.date) * 100 + EXTRACT(MONTH FROM hl.date), hl.user_id, COUNT(*)
+            FROM habit_logs hl
+            WHERE hl.user_id = :userId AND hl.date >= :from AND hl.status = """ + HabitStatus.COMPLETED_CODE + """
+            GROUP BY hl.habit_id, EXTRACT(YEAR FROM hl.date) * 100 + EXTRACT(MONTH FROM hl.date), hl.user_id
+            """, nativeQuery = true)
+    int rebuildForUserFrom(@Param("userId") Long userId, @Param("from") LocalDate from);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO habit_monthly_counts (habit_id, period, user_id, completed)
+            SELECT hl.habit_id, EXTRACT(YEAR FROM hl.date) * 100 + EXTRACT(MONTH FROM hl.date), hl.user_id, COUNT(*)
+            FROM habit_logs hl
+            WHERE hl.status = """ + HabitStatus.COMPLETED_CODE + """
+            GROUP BY hl.habit_id, EXTRACT(YEAR FROM hl.date) * 100 + EXTRACT(MONTH FROM hl.date), hl.user_id
+            """, nativeQuery = true)
+    int rebuildAll();
+}
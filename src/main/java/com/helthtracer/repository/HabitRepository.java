@@ -1,14 +1,20 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.Habit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface HabitRepository extends JpaRepository<Habit, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Habit> findByUserId(Long userId);
 
     // ДОБАВИТЬ этот метод (используется в UserStatsController)
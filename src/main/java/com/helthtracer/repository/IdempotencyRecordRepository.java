@@ -0,0 +1,54 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Заявка на ключ: из одновременных вставок по первичному ключу проходит одна, остальные получают 0
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, fingerprint, status, created_at) " +
+            "VALUES (:key, :fingerprint, " + IdempotencyRecord.IN_PROGRESS + ", :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertClaim(@Param("key") String key, @Param("fingerprint") String fingerprint, @Param("now") LocalDateTime now);
+
+    // Чтение заявки с основного узла: реплика может ещё не видеть строку, о которую споткнулась вставка
+    @Transactional
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.key = :key")
+    Optional<IdempotencyRecord> findClaim(@Param("key") String key);
+
+    // Перехват протухшей строки (брошенная заявка или истёкший ответ): CAS по created_at
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.status = " + IdempotencyRecord.IN_PROGRESS +
+            ", r.contentType = NULL, r.body = NULL, r.createdAt = :now WHERE r.key = :key AND r.createdAt = :seen")
+    int takeOverClaim(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                      @Param("now") LocalDateTime now, @Param("seen") LocalDateTime seen);
+
+    // Завершение и отказ — только своей заявки: если её перехватили, чужую строку не трогаем
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.contentType = :contentType, r.body = :body, " +
+            "r.createdAt = :now WHERE r.key = :key AND r.createdAt = :claimedAt AND r.status = " + IdempotencyRecord.IN_PROGRESS)
+    int completeClaim(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt, @Param("status") int status,
+                      @Param("contentType") String contentType, @Param("body") byte[] body, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.createdAt = :claimedAt AND r.status = " +
+            IdempotencyRecord.IN_PROGRESS)
+    int releaseClaim(@Param("key") String key, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
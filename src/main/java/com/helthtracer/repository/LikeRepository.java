@@ -5,9 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface LikeRepository extends JpaRepository<Like, Long> {
     Optional<Like> findByPostIdAndUserId(Long postId, Long userId);
     boolean existsByPostIdAndUserId(Long postId, Long userId);
@@ -16,6 +19,12 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     @Query("SELECT COUNT(l) FROM Like l WHERE l.post.id = :postId")
     int countByPostId(@Param("postId") Long postId);
 
+    // Когда поставлен лайк (пусто — лайка нет или он старше V13); не read-only: читается перед удалением с primary
+    @Transactional
+    @Query("SELECT l.createdAt FROM Like l WHERE l.post.id = :postId AND l.user.id = :userId")
+    Optional<LocalDateTime> findCreatedAt(@Param("postId") Long postId, @Param("userId") Long userId);
+
     // Удаление лайка
+    @Transactional
     void deleteByPostIdAndUserId(Long postId, Long userId);
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
+@Transactional(readOnly = true)
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findByUserId(Long userId);
     List<Post> findByTopic(String topic);
@@ -19,4 +25,13 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     // Подсчет постов пользователя
     @Query("SELECT COUNT(p) FROM Post p WHERE p.user.id = :userId")
     int countByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId ORDER BY p.createdAt, p.id")
+    Stream<Post> streamByUserId(@Param("userId") Long userId);
+}
@@ -4,8 +4,11 @@ import com.helthtracer.model.PostTag;
 import com.helthtracer.model.PostTagId; // составной ключ
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface PostTagRepository extends JpaRepository<PostTag, PostTagId> {
+    @Transactional
     void deleteByPostId(Long postId);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.SleepHabitCorrelation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional(readOnly = true)
+public interface SleepHabitCorrelationRepository extends JpaRepository<SleepHabitCorrelation, Long> {
+}
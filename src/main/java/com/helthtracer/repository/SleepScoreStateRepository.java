@@ -0,0 +1,9 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.SleepScoreState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional(readOnly = true)
+public interface SleepScoreStateRepository extends JpaRepository<SleepScoreState, Long> {
+}
@@ -1,12 +1,19 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.SleepSession;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+@Transactional(readOnly = true)
 public interface SleepSessionRepository extends JpaRepository<SleepSession, Long> {
 
     // Исправленный запрос для PostgreSQL
@@ -14,4 +21,20 @@ public interface SleepSessionRepository extends JpaRepository<SleepSession, Long
     Double findAverageSleepDurationByUserId(@Param("userId") Long userId);
 
     List<SleepSession> findByUserIdOrderByStartTimeDesc(Long userId);
-}
\ No newline at end of file
+
+    // Сессии, пересекающие [from, to); незавершённая (end_time IS NULL) считается идущей
+    @Query("SELECT s FROM SleepSession s WHERE s.user.id = :userId AND s.startTime < :to " +
+           "AND (s.endTime IS NULL OR s.endTime > :from) ORDER BY s.startTime")
+    List<SleepSession> findOverlappingRange(@Param("userId") Long userId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT s FROM SleepSession s WHERE s.user.id = :userId ORDER BY s.startTime, s.id")
+    Stream<SleepSession> streamByUserId(@Param("userId") Long userId);
+}
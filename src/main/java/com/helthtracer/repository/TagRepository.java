@@ -1,11 +1,17 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.Tag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface TagRepository extends JpaRepository<Tag, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Tag> findByName(String name);
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.helthtracer.repository;
 
 import com.helthtracer.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
@@ -0,0 +1,202 @@
+package com.helthtracer.schedule;
+
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Расписание привычки из Habit.frequency:
+//   DAILY                    — каждый день (и пустое значение у старых привычек);
+//   WEEKDAYS:MON,WED,FRI     — по этим дням недели (WEEKDAYS без списка — пн–пт);
+//   WEEKLY, TIMES_PER_WEEK:N — N раз в неделю в любые дни;
+//   MONTHLY                  — раз в месяц в любой день.
+// expected — маска дней месяца, на которые приходятся ожидаемые выполнения. Для «N раз в неделю» это
+// последние N дней каждой недели: пока неделя не кончилась, невыполненное ещё не пропуск. Неделя на стыке
+// месяцев делит N пропорционально дням (округление, в сумме ровно N).
+// credited — какие из ожидаемых дней закрыты выполнениями: для фиксированных дней — пересечение,
+// для «N раз» — столько первых ожидаемых дней недели, сколько в неделе было выполнений (не больше N).
+// Развёртки считаются один раз на правило и форму месяца (MonthMask) и кешируются.
+public final class HabitSchedule {
+
+    public static final String DAILY = "DAILY";
+
+    private static final Map<String, HabitSchedule> CACHE = new ConcurrentHashMap<>();
+    private static final String[] DAY_NAMES = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+
+    private final String rule;
+    // По формам месяца: маска ожидаемых дней и периоды квоты (null — дни фиксированы)
+    private final int[] expected = new int[MonthMask.SHAPES];
+    private final int[][] periods;
+
+    private HabitSchedule(String rule, int weekdays, int timesPerWeek, boolean monthly) {
+        this.rule = rule;
+        this.periods = weekdays != 0 ? null : new int[MonthMask.SHAPES][];
+        for (int shape = 0; shape < MonthMask.SHAPES; shape++) {
+            if (weekdays != 0) {
+                expected[shape] = weekdayMask(shape, weekdays);
+            } else if (monthly) {
+                int full = MonthMask.days(MonthMask.length(shape));
+                periods[shape] = new int[]{full};
+                expected[shape] = Integer.highestOneBit(full);
+            } else {
+                periods[shape] = MonthMask.weeks(shape);
+                int mask = 0;
+                for (int week : periods[shape]) {
+                    int quota = Math.round(timesPerWeek * Integer.bitCount(week) / 7f);
+                    mask |= highestBits(week, quota);
+                }
+                expected[shape] = mask;
+            }
+        }
+    }
+
+    // IllegalArgumentException — правило не разобрать
+    public static HabitSchedule of(String frequency) {
+        String rule = normalize(frequency);
+        return CACHE.computeIfAbsent(rule, HabitSchedule::parse);
+    }
+
+    // Для уже сохранённых привычек: правило, которое не разобрать (старые данные), считается ежедневным
+    public static HabitSchedule ofStored(String frequency) {
+        try {
+            return of(frequency);
+        } catch (IllegalArgumentException e) {
+            return of(DAILY);
+        }
+    }
+
+    // Каноническая запись правила (для хранения в Habit.frequency)
+    public String rule() {
+        return rule;
+    }
+
+    public int expected(YearMonth month) {
+        return expected[MonthMask.shape(month)];
+    }
+
+    public int credited(YearMonth month, int completed) {
+        int shape = MonthMask.shape(month);
+        int due = expected[shape];
+        if (periods == null) {
+            return due & completed;
+        }
+        int credited = 0;
+        for (int period : periods[shape]) {
+            credited |= lowestBits(due & period, Integer.bitCount(completed & period));
+        }
+        return credited;
+    }
+
+    private static String normalize(String frequency) {
+        if (frequency == null || frequency.isBlank()) {
+            return DAILY;
+        }
+        String rule = frequency.trim().toUpperCase(Locale.ROOT).replace(" ", "");
+        if (rule.equals("WEEKDAYS")) {
+            return "WEEKDAYS:MON,TUE,WED,THU,FRI";
+        }
+        if (rule.startsWith("WEEKDAYS:")) {
+            // порядок дней не важен — одно правило, одна запись в кеше
+            return "WEEKDAYS:" + dayNames(parseWeekdays(rule.substring("WEEKDAYS:".length())));
+        }
+        return rule;
+    }
+
+    private static HabitSchedule parse(String rule) {
+        if (rule.equals(DAILY)) {
+            return new HabitSchedule(rule, 0x7F, 0, false);
+        }
+        if (rule.equals("WEEKLY")) {
+            return new HabitSchedule(rule, 0, 1, false);
+        }
+        if (rule.equals("MONTHLY")) {
+            return new HabitSchedule(rule, 0, 0, true);
+        }
+        if (rule.startsWith("WEEKDAYS:")) {
+            return new HabitSchedule(rule, parseWeekdays(rule.substring("WEEKDAYS:".length())), 0, false);
+        }
+        if (rule.startsWith("TIMES_PER_WEEK:")) {
+            int times;
+            try {
+                times = Integer.parseInt(rule.substring("TIMES_PER_WEEK:".length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid habit frequency " + rule);
+            }
+            if (times < 1 || times > 7) {
+                throw new IllegalArgumentException("Times per week must be 1..7: " + rule);
+            }
+            return new HabitSchedule(rule, 0, times, false);
+        }
+        throw new IllegalArgumentException("Invalid habit frequency " + rule);
+    }
+
+    // Биты 0..6 — пн..вс
+    private static int parseWeekdays(String list) {
+        int weekdays = 0;
+        for (String name : list.split(",")) {
+            try {
+                weekdays |= 1 << (DayOfWeek.valueOf(fullName(name)).getValue() - 1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid weekday " + name);
+            }
+        }
+        return weekdays;
+    }
+
+    private static String fullName(String name) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().startsWith(name) && name.length() >= 3) {
+                return day.name();
+            }
+        }
+        return name;
+    }
+
+    private static String dayNames(int weekdays) {
+        StringJoiner names = new StringJoiner(",");
+        for (int day = 0; day < 7; day++) {
+            if ((weekdays & (1 << day)) != 0) {
+                names.add(DAY_NAMES[day]);
+            }
+        }
+        return names.toString();
+    }
+
+    // Недельный шаблон, повёрнутый к дню недели 1-го числа и размноженный на 5 недель
+    private static int weekdayMask(int shape, int weekdays) {
+        int first = MonthMask.firstDayOfWeek(shape);
+        int week = ((weekdays >>> first) | (weekdays << (7 - first))) & 0x7F;
+        long mask = 0;
+        for (int i = 0; i < 5; i++) {
+            mask |= (long) week << (7 * i);
+        }
+        return (int) mask & MonthMask.days(MonthMask.length(shape));
+    }
+
+    private static int highestBits(int mask, int count) {
+        int result = 0;
+        for (int i = 0; i < count && mask != 0; i++) {
+            int bit = Integer.highestOneBit(mask);
+            result |= bit;
+            mask ^= bit;
+        }
+        return result;
+    }
+
+    private static int lowestBits(int mask, int count) {
+        int result = 0;
+        for (int i = 0; i < count && mask != 0; i++) {
+            int bit = mask & -mask;
+            result |= bit;
+            mask ^= bit;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return rule;
+    }
+}
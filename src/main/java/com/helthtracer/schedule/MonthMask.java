@@ -0,0 +1,89 @@
+package com.helthtracer.schedule;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+// Дни месяца как битовая маска int: бит d - 1 — день d.
+// Всё, что зависит от месяца, определяется его «формой» — днём недели 1-го числа и длиной (28..31):
+// 7 × 4 = 28 форм, поэтому развёртки расписаний считаются один раз на форму, а не на каждый месяц.
+public final class MonthMask {
+
+    static final int SHAPES = 28;
+
+    // Недели пн–вс, обрезанные границами месяца, для каждой формы
+    private static final int[][] WEEKS = new int[SHAPES][];
+
+    static {
+        for (int shape = 0; shape < SHAPES; shape++) {
+            int length = length(shape);
+            int[] weeks = new int[6];
+            int count = 0;
+            // первая неделя — до первого воскресенья
+            int day = 1;
+            int weekEnd = 7 - firstDayOfWeek(shape);
+            while (day <= length) {
+                int end = Math.min(weekEnd, length);
+                weeks[count++] = days(end) & ~days(day - 1);
+                day = end + 1;
+                weekEnd += 7;
+            }
+            WEEKS[shape] = Arrays.copyOf(weeks, count);
+        }
+    }
+
+    private MonthMask() {}
+
+    public static int shape(YearMonth month) {
+        return (month.atDay(1).getDayOfWeek().getValue() - 1) * 4 + month.lengthOfMonth() - 28;
+    }
+
+    static int length(int shape) {
+        return shape % 4 + 28;
+    }
+
+    // 0 — понедельник
+    static int firstDayOfWeek(int shape) {
+        return shape / 4;
+    }
+
+    static int[] weeks(int shape) {
+        return WEEKS[shape];
+    }
+
+    public static int full(YearMonth month) {
+        return days(month.lengthOfMonth());
+    }
+
+    // Дни 1..count
+    public static int days(int count) {
+        return count <= 0 ? 0 : (int) ((1L << count) - 1);
+    }
+
+    public static int bit(int dayOfMonth) {
+        return 1 << (dayOfMonth - 1);
+    }
+
+    // Дни месяца строго раньше date
+    public static int before(YearMonth month, LocalDate date) {
+        if (date.isBefore(month.atDay(1))) {
+            return 0;
+        }
+        return date.isAfter(month.atEndOfMonth()) ? full(month) : days(date.getDayOfMonth() - 1);
+    }
+
+    // Дни месяца по date включительно
+    public static int through(YearMonth month, LocalDate date) {
+        return before(month, date.plusDays(1));
+    }
+
+    // Дни месяца начиная с date; null — с начала месяца
+    public static int from(YearMonth month, LocalDate date) {
+        return date == null ? full(month) : full(month) & ~before(month, date);
+    }
+
+    // Индекс старшего дня маски (0 — день 1); -1 для пустой
+    public static int lastDay(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+}
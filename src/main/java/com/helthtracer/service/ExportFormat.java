@@ -0,0 +1,29 @@
+package com.helthtracer.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public static Optional<ExportFormat> fromParam(String value) {
+        return Arrays.stream(values()).filter(format -> format.extension.equalsIgnoreCase(value)).findFirst();
+    }
+}
@@ -0,0 +1,266 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.model.Comment;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.Post;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.repository.CommentRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.PostRepository;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.storage.ArchiveReader;
+import com.helthtracer.storage.ArchivedHabitLog;
+import com.helthtracer.storage.ArchivedSleepSession;
+import com.helthtracer.storage.PartitionedTable;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Экспорт всей истории пользователя. Строки читаются курсором (Stream + fetch size)
+// и сразу пишутся в ответ; сущности отсоединяются по мере записи, так что память
+// не растёт с объёмом истории.
+@Service
+public class ExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Раз в столько строк — flush клиенту и очистка persistence context
+    // (там копятся подгруженные EAGER-родители: посты комментариев и т.п.)
+    private static final int CLEAR_EVERY = 500;
+
+    private final HabitLogRepository habitLogRepository;
+    private final SleepSessionRepository sleepSessionRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final HabitRepository habitRepository;
+    private final ArchiveReader archiveReader;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory;
+
+    public ExportService(HabitLogRepository habitLogRepository,
+                         SleepSessionRepository sleepSessionRepository,
+                         PostRepository postRepository,
+                         CommentRepository commentRepository,
+                         HabitRepository habitRepository,
+                         ArchiveReader archiveReader,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper) {
+        this.habitLogRepository = habitLogRepository;
+        this.sleepSessionRepository = sleepSessionRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.habitRepository = habitRepository;
+        this.archiveReader = archiveReader;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public void export(Long userId, Set<ExportType> types, ExportFormat format, boolean gzip,
+                       OutputStream out) throws IOException {
+        GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipOut : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rows = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(jsonFactory, writer);
+        try {
+            // порядок секций фиксирован порядком enum, а не порядком параметров
+            for (ExportType type : ExportType.values()) {
+                if (types.contains(type)) {
+                    rows.begin(type);
+                    exportType(userId, type, rows);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        rows.flush();
+        if (gzipOut != null) {
+            gzipOut.finish();
+        }
+        out.flush();
+    }
+
+    private void exportType(Long userId, ExportType type, RowWriter rows) {
+        switch (type) {
+            case HABIT_LOGS -> exportHabitLogs(userId, rows);
+            case SLEEP_SESSIONS -> exportSleepSessions(userId, rows);
+            case POSTS -> stream(rows, type, () -> postRepository.streamByUserId(userId), post -> new Object[]{
+                    post.getId(), post.getTitle(), post.getTopic(), post.getBody(), post.getCreatedAt(), post.getUpdatedAt()});
+            case COMMENTS -> stream(rows, type, () -> commentRepository.streamByUserId(userId), comment -> new Object[]{
+                    comment.getId(), comment.getPost().getId(), comment.getBody(), comment.getCreatedAt()});
+        }
+    }
+
+    private void exportHabitLogs(Long userId, RowWriter rows) {
+        // архивные месяцы старше горячих данных — идут первыми
+        Map<Long, String> titles = habitRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(Habit::getId, Habit::getTitle));
+        for (YearMonth month : archiveReader.archivedMonths(PartitionedTable.HABIT_LOGS)) {
+            for (ArchivedHabitLog log : archiveReader.readHabitLogs(userId, month)) {
+                rows.row(ExportType.HABIT_LOGS, new Object[]{
+                        log.id(), log.habitId(), titles.get(log.habitId()), log.date(), log.status()});
+            }
+        }
+        stream(rows, ExportType.HABIT_LOGS, () -> habitLogRepository.streamByUserId(userId), (HabitLog log) -> new Object[]{
+                log.getId(), log.getHabit().getId(), log.getHabit().getTitle(), log.getDate(), log.getStatus()});
+    }
+
+    private void exportSleepSessions(Long userId, RowWriter rows) {
+        for (YearMonth month : archiveReader.archivedMonths(PartitionedTable.SLEEP_SESSIONS)) {
+            for (ArchivedSleepSession session : archiveReader.readSleepSessions(userId, month)) {
+                rows.row(ExportType.SLEEP_SESSIONS, new Object[]{session.id(), session.startTime(), session.endTime()});
+            }
+        }
+        stream(rows, ExportType.SLEEP_SESSIONS, () -> sleepSessionRepository.streamByUserId(userId), (SleepSession session) -> new Object[]{
+                session.getId(), session.getStartTime(), session.getEndTime()});
+    }
+
+    private <T> void stream(RowWriter rows, ExportType type, Supplier<Stream<T>> query,
+                            Function<T, Object[]> toRow) {
+        // Stream из репозитория живёт только внутри транзакции (открытый курсор)
+        readOnlyTransaction.executeWithoutResult(status -> {
+            long count = 0;
+            try (Stream<T> entities = query.get()) {
+                for (T entity : (Iterable<T>) entities::iterator) {
+                    rows.row(type, toRow.apply(entity));
+                    entityManager.detach(entity);
+                    if (++count % CLEAR_EVERY == 0) {
+                        rows.flush();
+                        entityManager.clear();
+                    }
+                }
+            }
+        });
+    }
+
+    private interface RowWriter {
+        void begin(ExportType type);
+
+        void row(ExportType type, Object[] values);
+
+        void flush();
+    }
+
+    // {"type":"habit_log","id":1,...}\n на каждую строку
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonFactory jsonFactory, Writer writer) throws IOException {
+            this.generator = jsonFactory.createGenerator(writer);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin(ExportType type) {
+        }
+
+        @Override
+        public void row(ExportType type, Object[] values) {
+            try {
+                generator.writeStartObject();
+                generator.writeStringField("type", type.recordType());
+                for (int i = 0; i < values.length; i++) {
+                    generator.writeFieldName(type.columns().get(i));
+                    Object value = values[i];
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof Long number) {
+                        generator.writeNumber(number);
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // RFC 4180: заголовок на секцию, кавычки только там, где нужны
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(ExportType type) {
+            writeLine(type.columns().toArray());
+        }
+
+        @Override
+        public void row(ExportType type, Object[] values) {
+            writeLine(values);
+        }
+
+        private void writeLine(Object[] values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    if (values[i] != null) {
+                        writer.write(escape(values[i].toString()));
+                    }
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.helthtracer.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+// Наборы данных экспорта; columns — порядок колонок CSV и полей NDJSON
+public enum ExportType {
+    HABIT_LOGS("habit-logs", "habit_log", "id", "habit_id", "habit_title", "date", "status"),
+    SLEEP_SESSIONS("sleep-sessions", "sleep_session", "id", "start_time", "end_time"),
+    POSTS("posts", "post", "id", "title", "topic", "body", "created_at", "updated_at"),
+    COMMENTS("comments", "comment", "id", "post_id", "body", "created_at");
+
+    private final String param;
+    private final String recordType;
+    private final List<String> columns;
+
+    ExportType(String param, String recordType, String... columns) {
+        this.param = param;
+        this.recordType = recordType;
+        this.columns = List.of(columns);
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public String recordType() {
+        return recordType;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public static Optional<ExportType> fromParam(String value) {
+        return Arrays.stream(values()).filter(type -> type.param.equalsIgnoreCase(value)).findFirst();
+    }
+}
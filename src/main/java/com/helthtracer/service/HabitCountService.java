@@ -0,0 +1,175 @@
+package com.helthtracer.service;
+
+import com.helthtracer.batch.RecomputeTask;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.storage.RetentionArchiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Поддерживает счётчики habit_daily_counts / habit_monthly_counts в той же транзакции, что и лог.
+// Как RecomputeTask ("habit-counts") пересобирает их из habit_logs пакетно, см. RecomputeRunner.
+@Service
+public class HabitCountService implements RecomputeTask {
+
+    private static final Logger log = LoggerFactory.getLogger(HabitCountService.class);
+
+    // Ключ pg_advisory_xact_lock бэкфилла счётчиков
+    private static final long BACKFILL_LOCK = 0x4861626974L;
+
+    // Прибавка одним оператором: UPDATE, а при 0 строк INSERT гоняются — два первых выполнения за день
+    // (хоть и разных привычек) оба вставляют, второе падает на PK и откатывает лог.
+    // ON CONFLICT есть только в PostgreSQL; на остальных БД (H2 в тестах) — стандартный MERGE, который сам по себе
+    // не атомарен: при гонке вставки он повторяется и уже видит строку соседа.
+    private static final String DAILY_UPSERT_POSTGRES = """
+            INSERT INTO habit_daily_counts (user_id, date, completed) VALUES (?, ?, ?)
+            ON CONFLICT (user_id, date) DO UPDATE SET completed = habit_daily_counts.completed + EXCLUDED.completed
+            """;
+    private static final String MONTHLY_UPSERT_POSTGRES = """
+            INSERT INTO habit_monthly_counts (habit_id, period, user_id, completed) VALUES (?, ?, ?, ?)
+            ON CONFLICT (habit_id, period) DO UPDATE SET completed = habit_monthly_counts.completed + EXCLUDED.completed
+            """;
+    private static final String DAILY_UPSERT_MERGE = """
+            MERGE INTO habit_daily_counts c
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS INTEGER))) v (user_id, date, delta)
+            ON c.user_id = v.user_id AND c.date = v.date
+            WHEN MATCHED THEN UPDATE SET completed = c.completed + v.delta
+            WHEN NOT MATCHED THEN INSERT (user_id, date, completed) VALUES (v.user_id, v.date, v.delta)
+            """;
+    private static final String MONTHLY_UPSERT_MERGE = """
+            MERGE INTO habit_monthly_counts c
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS BIGINT), CAST(? AS INTEGER)))
+                v (habit_id, period, user_id, delta)
+            ON c.habit_id = v.habit_id AND c.period = v.period
+            WHEN MATCHED THEN UPDATE SET completed = c.completed + v.delta
+            WHEN NOT MATCHED THEN INSERT (habit_id, period, user_id, completed)
+                VALUES (v.habit_id, v.period, v.user_id, v.delta)
+            """;
+
+    private final HabitDailyCountRepository dailyCountRepository;
+    private final HabitMonthlyCountRepository monthlyCountRepository;
+    private final HabitLogRepository habitLogRepository;
+    private final RetentionArchiver retentionArchiver;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public HabitCountService(HabitDailyCountRepository dailyCountRepository,
+                             HabitMonthlyCountRepository monthlyCountRepository,
+                             HabitLogRepository habitLogRepository,
+                             RetentionArchiver retentionArchiver,
+                             JdbcTemplate jdbcTemplate) {
+        this.dailyCountRepository = dailyCountRepository;
+        this.monthlyCountRepository = monthlyCountRepository;
+        this.habitLogRepository = habitLogRepository;
+        this.retentionArchiver = retentionArchiver;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void applyStatusChange(Habit habit, LocalDate date, HabitStatus oldStatus, HabitStatus newStatus) {
+        int delta = completedFlag(newStatus) - completedFlag(oldStatus);
+        if (delta == 0) {
+            return;
+        }
+        Long userId = habit.getUser().getId();
+        int period = period(date);
+        if (delta < 0) {
+            // нет строки — нечего уменьшать
+            dailyCountRepository.addCompleted(userId, date, delta);
+            monthlyCountRepository.addCompleted(habit.getId(), period, delta);
+            return;
+        }
+        if (isPostgres()) {
+            jdbcTemplate.update(DAILY_UPSERT_POSTGRES, userId, Date.valueOf(date), delta);
+            jdbcTemplate.update(MONTHLY_UPSERT_POSTGRES, habit.getId(), period, userId, delta);
+        } else {
+            merge(DAILY_UPSERT_MERGE, userId, Date.valueOf(date), delta);
+            merge(MONTHLY_UPSERT_MERGE, habit.getId(), period, userId, delta);
+        }
+    }
+
+    private void merge(String sql, Object... args) {
+        try {
+            jdbcTemplate.update(sql, args);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+    // Пересчитывает месяцы от горизонта хранения (RetentionArchiver): раньше него логи в архиве, и счётчики —
+    // единственное, что от них осталось в БД. Счётчики с горизонта удаляются, даже если логов не осталось вовсе.
+    // Ещё не заархивированные логи старше горизонта (архивация выключена или отстаёт) тоже пересчитываются.
+    @Transactional
+    public void rebuildUser(Long userId) {
+        LocalDate from = retentionArchiver.hotHorizon().atDay(1);
+        LocalDate firstDate = habitLogRepository.findFirstDateByUserId(userId);
+        if (firstDate != null && firstDate.isBefore(from)) {
+            from = firstDate.withDayOfMonth(1);
+        }
+        dailyCountRepository.deleteByUserIdFrom(userId, from);
+        monthlyCountRepository.deleteByUserIdFrom(userId, period(from));
+        dailyCountRepository.rebuildForUserFrom(userId, from);
+        monthlyCountRepository.rebuildForUserFrom(userId, from);
+    }
+
+    @Override
+    public String name() {
+        return "habit-counts";
+    }
+
+    // Вызов из RecomputeRunner идёт через прокси — своя транзакция на пользователя
+    @Override
+    @Transactional
+    public void recompute(Long userId) {
+        rebuildUser(userId);
+    }
+
+    // Первый запуск на существующей базе: счётчики ещё пустые.
+    // Раньше остальных слушателей ApplicationReadyEvent — они читают эти счётчики, поэтому синхронно.
+    // Узлы стартуют разом: под advisory-блокировкой бэкфилл делает один, остальные ждут его коммита
+    // и видят счётчики уже заполненными. На H2 (тесты, один узел) блокировки нет.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (isPostgres()) {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {}, BACKFILL_LOCK);
+        }
+        if (dailyCountRepository.count() == 0 && habitLogRepository.count() > 0) {
+            int days = dailyCountRepository.rebuildAll();
+            int months = monthlyCountRepository.rebuildAll();
+            log.info("Backfilled {} daily and {} monthly habit counts", days, months);
+        }
+    }
+
+    public static int period(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return Boolean.TRUE.equals(postgres);
+    }
+
+    private static int completedFlag(HabitStatus status) {
+        return status == HabitStatus.COMPLETED ? 1 : 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.helthtracer.service;
+
+import com.helthtracer.event.DomainEventBus;
+import com.helthtracer.event.HabitLogChangedEvent;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.repository.HabitLogRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+public class HabitLogService {
+
+    private final HabitLogRepository habitLogRepository;
+    private final HabitCountService habitCountService;
+    private final DomainEventBus domainEventBus;
+
+    public HabitLogService(HabitLogRepository habitLogRepository, HabitCountService habitCountService,
+                           DomainEventBus domainEventBus) {
+        this.habitLogRepository = habitLogRepository;
+        this.habitCountService = habitCountService;
+        this.domainEventBus = domainEventBus;
+    }
+
+    @Transactional
+    public HabitLog createOrUpdate(Habit habit, LocalDate date, HabitStatus status) {
+        List<HabitLog> existingLogs = habitLogRepository.findByHabitIdAndDate(habit.getId(), date);
+
+        HabitLog habitLog;
+        HabitStatus oldStatus = null;
+        if (existingLogs.isEmpty()) {
+            habitLog = new HabitLog(habit, date, status);
+        } else {
+            habitLog = existingLogs.get(0);
+            oldStatus = habitLog.getStatus();
+            habitLog.setStatus(status);
+        }
+
+        HabitLog savedLog = habitLogRepository.save(habitLog);
+        habitCountService.applyStatusChange(habit, date, oldStatus, status);
+        if (!Objects.equals(oldStatus, status)) {
+            domainEventBus.publish(new HabitLogChangedEvent(habit.getUser().getId(), habit.getId(), date, status, Instant.now()));
+        }
+        return savedLog;
+    }
+
+    @Transactional
+    public void delete(Long habitId, LocalDate date) {
+        for (HabitLog habitLog : habitLogRepository.findByHabitIdAndDate(habitId, date)) {
+            habitCountService.applyStatusChange(habitLog.getHabit(), date, habitLog.getStatus(), null);
+            domainEventBus.publish(new HabitLogChangedEvent(habitLog.getHabit().getUser().getId(), habitId, date, null, Instant.now()));
+        }
+        habitLogRepository.deleteByHabitIdAndDate(habitId, date);
+    }
+}
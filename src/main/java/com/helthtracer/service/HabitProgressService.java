@@ -0,0 +1,115 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.schedule.HabitSchedule;
+import com.helthtracer.schedule.MonthMask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Процент выполнения и текущая серия с учётом расписания привычек (HabitSchedule).
+// На месяц пользователя — один запрос за днями выполнения, дальше только операции над масками дней:
+// ожидаемые (expected) ∩ активные (с createdAt) ∩ прошедшие, закрытые выполнениями (credited).
+@Service
+public class HabitProgressService {
+
+    public record MonthProgress(YearMonth month, int expected, int credited, long completionRate) {}
+
+    private static final String COMPLETED_DAYS_SELECT = """
+            SELECT habit_id, date FROM habit_logs
+            WHERE user_id = ? AND date >= ? AND date <= ? AND status = """ + HabitStatus.COMPLETED_CODE;
+
+    private final HabitRepository habitRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int streakLookbackMonths;
+
+    public HabitProgressService(HabitRepository habitRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.habit-progress.streak-lookback-months:12}") int streakLookbackMonths) {
+        this.habitRepository = habitRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streakLookbackMonths = streakLookbackMonths;
+    }
+
+    // Прогресс месяца на сегодня: выполнение заранее (ещё не наступивший ожидаемый день) засчитывается,
+    // и тогда этот день входит и в ожидаемые
+    public MonthProgress monthProgress(Long userId, LocalDate today) {
+        YearMonth month = YearMonth.from(today);
+        List<Habit> habits = habitRepository.findByUserId(userId);
+        int[] completed = completedDays(userId, habits, month);
+        int elapsed = MonthMask.through(month, today);
+        int expected = 0;
+        int credited = 0;
+        for (int i = 0; i < habits.size(); i++) {
+            Habit habit = habits.get(i);
+            HabitSchedule schedule = HabitSchedule.ofStored(habit.getFrequency());
+            int due = schedule.expected(month) & MonthMask.from(month, habit.getCreatedAt());
+            int done = schedule.credited(month, completed[i]) & due;
+            expected += Integer.bitCount(due & (elapsed | done));
+            credited += Integer.bitCount(done);
+        }
+        long rate = expected > 0 ? Math.round((double) credited / expected * 100) : 0;
+        return new MonthProgress(month, expected, credited, rate);
+    }
+
+    // Дней подряд (по сегодня), в которые выполнено всё, что по расписанию ожидалось; дни без ожидаемого
+    // серию не прерывают. Сегодняшние невыполненные ещё не пропуск. Идём назад по месяцам до первого пропуска.
+    public int currentStreak(Long userId, LocalDate today) {
+        List<Habit> habits = habitRepository.findByUserId(userId);
+        if (habits.isEmpty()) {
+            return 0;
+        }
+        LocalDate firstStart = habits.stream().map(Habit::getCreatedAt)
+                .filter(date -> date != null).min(LocalDate::compareTo).orElse(null);
+        int streak = 0;
+        YearMonth month = YearMonth.from(today);
+        for (int i = 0; i < streakLookbackMonths; i++, month = month.minusMonths(1)) {
+            if (firstStart != null && month.isBefore(YearMonth.from(firstStart))) {
+                break;
+            }
+            int[] completed = completedDays(userId, habits, month);
+            int elapsed = MonthMask.through(month, today);
+            int due = 0;
+            int missed = 0;
+            for (int h = 0; h < habits.size(); h++) {
+                Habit habit = habits.get(h);
+                HabitSchedule schedule = HabitSchedule.ofStored(habit.getFrequency());
+                int expected = schedule.expected(month) & MonthMask.from(month, habit.getCreatedAt()) & elapsed;
+                due |= expected;
+                missed |= expected & ~schedule.credited(month, completed[h]);
+            }
+            int fullDays = due & ~missed;
+            int broken = missed & MonthMask.before(month, today);
+            if (broken != 0) {
+                return streak + Integer.bitCount(fullDays & ~MonthMask.days(MonthMask.lastDay(broken) + 1));
+            }
+            streak += Integer.bitCount(fullDays);
+        }
+        return streak;
+    }
+
+    // completed[i] — маска дней месяца, в которые выполнена habits[i]
+    private int[] completedDays(Long userId, List<Habit> habits, YearMonth month) {
+        Map<Long, Integer> index = new HashMap<>();
+        for (int i = 0; i < habits.size(); i++) {
+            index.put(habits.get(i).getId(), i);
+        }
+        int[] completed = new int[habits.size()];
+        jdbcTemplate.query(COMPLETED_DAYS_SELECT, rs -> {
+            Integer i = index.get(rs.getLong(1));
+            if (i != null) {
+                completed[i] |= MonthMask.bit(rs.getDate(2).toLocalDate().getDayOfMonth());
+            }
+        }, userId, Date.valueOf(month.atDay(1)), Date.valueOf(month.atEndOfMonth()));
+        return completed;
+    }
+}
@@ -0,0 +1,100 @@
+package com.helthtracer.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Рейтинг пользователей по одному показателю: больше — выше, при равенстве — меньший userId.
+// Пользователи с нулевым счётом в рейтинг не входят.
+public class Leaderboard {
+
+    public record Entry(long userId, double score) {}
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingLong(Entry::userId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> byUser = new HashMap<>();
+    private final RankedSet<Entry> ranked = new RankedSet<>(ORDER);
+
+    public void update(long userId, double score) {
+        lock.writeLock().lock();
+        try {
+            put(userId, score);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long userId) {
+        update(userId, 0);
+    }
+
+    public void replaceAll(Map<Long, Double> scores) {
+        lock.writeLock().lock();
+        try {
+            byUser.clear();
+            ranked.clear();
+            scores.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long userId, double score) {
+        Entry old = score > 0 ? byUser.put(userId, new Entry(userId, score)) : byUser.remove(userId);
+        if (old != null) {
+            ranked.remove(old);
+        }
+        if (score > 0) {
+            ranked.add(new Entry(userId, score));
+        }
+    }
+
+    // Место с единицы
+    public OptionalInt rank(long userId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = byUser.get(userId);
+            return entry != null ? OptionalInt.of(ranked.rank(entry) + 1) : OptionalInt.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Entry> entry(long userId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(byUser.get(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Entry> top(int limit) {
+        lock.readLock().lock();
+        try {
+            return ranked.first(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Entry> entries() {
+        return top(Integer.MAX_VALUE);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ranked.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.helthtracer.service;
+
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.cache.CacheInvalidationListener;
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.DomainEventConsumer;
+import com.helthtracer.event.HabitLogChangedEvent;
+import com.helthtracer.model.HabitDailyCount;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Рейтинги сообщества: среднее число выполнений на привычку за текущий месяц и текущая серия.
+// Обновляются по HabitLogChangedEvent только для затронутых пользователей (несколько запросов
+// к предпосчитанным счётчикам), на диск периодически пишется снимок для быстрого старта.
+//
+// Процент выполнения за месяц = completed / (habits * прошедшие дни). Делитель «дни» у всех
+// одинаковый, поэтому в дереве хранится completed / habits, а процент считается при чтении —
+// смена дня не требует пересортировки.
+//
+// HabitLogChangedEvent приходит только на узел, где была запись: пересчитав пользователя, узел шлёт
+// остальным инвалидацию (REGION, userId), и они пересчитывают его у себя в refreshRemote.
+@Service
+public class LeaderboardService implements DomainEventConsumer, CacheInvalidationListener {
+
+    public static final String REGION = "leaderboard";
+
+    public enum Board { MONTHLY_RATE, STREAK }
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final HabitDailyCountRepository dailyCountRepository;
+    private final HabitMonthlyCountRepository monthlyCountRepository;
+    private final HabitRepository habitRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Path snapshotFile;
+    private final int streakLookbackDays;
+
+    private final Leaderboard monthly = new Leaderboard();
+    private final Leaderboard streaks = new Leaderboard();
+    // последний день с выполнением — серии, прерванные сменой дня, снимаются лениво
+    private final Map<Long, LocalDate> lastActiveDays = new ConcurrentHashMap<>();
+    private volatile int boardPeriod;
+    private volatile LocalDate boardDay;
+    // начало следующего дня после boardDay: до этого момента чтения идут без блокировки
+    private volatile long rolloverAtMillis;
+    private volatile boolean warmedUp;
+    // пользователи, изменённые на других узлах; isAll — узел мог что-то пропустить, нужна полная пересборка
+    private final Set<Long> remoteChanged = ConcurrentHashMap.newKeySet();
+    private volatile boolean remoteRebuild;
+
+    public LeaderboardService(HabitDailyCountRepository dailyCountRepository,
+                              HabitMonthlyCountRepository monthlyCountRepository,
+                              HabitRepository habitRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              @Value("${app.leaderboard.snapshot-file:./data/leaderboard.snapshot}") String snapshotFile,
+                              @Value("${app.leaderboard.streak-lookback-days:366}") int streakLookbackDays) {
+        this.dailyCountRepository = dailyCountRepository;
+        this.monthlyCountRepository = monthlyCountRepository;
+        this.habitRepository = habitRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // не read-only: пересчёт сразу после коммита должен читать с primary, а не с реплики
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        // пустое значение — без снимков (тесты)
+        this.snapshotFile = snapshotFile.isBlank() ? null : Paths.get(snapshotFile);
+        this.streakLookbackDays = streakLookbackDays;
+        LocalDate today = LocalDate.now();
+        this.boardPeriod = HabitCountService.period(today);
+        setBoardDay(today);
+    }
+
+    @Override
+    public String name() {
+        return "leaderboard";
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof HabitLogChangedEvent;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        // несколько отметок одного пользователя в батче — один пересчёт
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (DomainEvent event : batch) {
+            userIds.add(((HabitLogChangedEvent) event).userId());
+        }
+        rollOverIfNeeded();
+        transactionTemplate.executeWithoutResult(status -> userIds.forEach(this::refreshUser));
+        userIds.forEach(userId -> cacheInvalidationBus.publishToOtherNodes(CacheInvalidation.key(REGION, userId)));
+    }
+
+    // Поток шины: только запоминаем, пересчёт (запросы к БД) — в refreshRemote
+    @Override
+    public void onInvalidations(List<CacheInvalidation> invalidations) {
+        for (CacheInvalidation invalidation : invalidations) {
+            if (invalidation.isAll() || (REGION.equals(invalidation.region()) && invalidation.isWholeRegion())) {
+                remoteRebuild = true;
+            } else if (REGION.equals(invalidation.region())) {
+                remoteChanged.add(Long.valueOf(invalidation.key()));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.remote-refresh-interval-ms:1000}")
+    public void refreshRemote() {
+        if (!warmedUp) {
+            return; // копим до прогрева: снимок на диске может быть старше этих изменений
+        }
+        if (remoteRebuild) {
+            remoteRebuild = false;
+            remoteChanged.clear();
+            rebuild();
+            return;
+        }
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (Iterator<Long> iterator = remoteChanged.iterator(); iterator.hasNext(); ) {
+            userIds.add(iterator.next());
+            iterator.remove();
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        rollOverIfNeeded();
+        transactionTemplate.executeWithoutResult(status -> userIds.forEach(this::refreshUser));
+    }
+
+    public Leaderboard board(Board board) {
+        rollOverIfNeeded();
+        return board == Board.MONTHLY_RATE ? monthly : streaks;
+    }
+
+    public int boardPeriod() {
+        return boardPeriod;
+    }
+
+    // Процент выполнения за месяц из значения в рейтинге (completed на привычку)
+    public long monthlyRate(double score) {
+        int elapsedDays = LocalDate.now().getDayOfMonth();
+        return Math.min(100, Math.round(score / elapsedDays * 100));
+    }
+
+    private void refreshUser(Long userId) {
+        LocalDate today = LocalDate.now();
+        int habits = habitRepository.countByUserId(userId);
+        long completed = monthlyCountRepository.sumCompletedByUserIdAndPeriod(userId, HabitCountService.period(today));
+        monthly.update(userId, habits > 0 ? (double) completed / habits : 0);
+
+        List<HabitDailyCount> days = dailyCountRepository.findByUserIdAndDateBetweenOrderByDate(
+                userId, today.minusDays(streakLookbackDays), today);
+        LocalDate lastActive = null;
+        int streak = 0;
+        for (int i = days.size() - 1; i >= 0; i--) {
+            HabitDailyCount day = days.get(i);
+            if (day.getCompleted() <= 0) {
+                continue;
+            }
+            if (lastActive == null) {
+                lastActive = day.getDate();
+                streak = 1;
+            } else if (day.getDate().equals(lastActive.minusDays(streak))) {
+                streak++;
+            } else {
+                break;
+            }
+        }
+        putStreak(userId, lastActive, streak, today);
+    }
+
+    // Серия жива, если последний активный день — сегодня или вчера
+    private void putStreak(Long userId, LocalDate lastActive, int streak, LocalDate today) {
+        if (lastActive == null || lastActive.isBefore(today.minusDays(1))) {
+            lastActiveDays.remove(userId);
+            streaks.remove(userId);
+        } else {
+            lastActiveDays.put(userId, lastActive);
+            streaks.update(userId, streak);
+        }
+    }
+
+    // Вызывается на каждом чтении: пока день доски не кончился, хватает сравнения с volatile
+    private void rollOverIfNeeded() {
+        if (System.currentTimeMillis() < rolloverAtMillis) {
+            return;
+        }
+        rollOver();
+    }
+
+    // Смена дня снимает прерванные серии, смена месяца обнуляет месячный рейтинг
+    private synchronized void rollOver() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(boardDay)) {
+            return;
+        }
+        LocalDate yesterday = today.minusDays(1);
+        lastActiveDays.entrySet().removeIf(entry -> {
+            if (entry.getValue().isBefore(yesterday)) {
+                streaks.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        int period = HabitCountService.period(today);
+        if (period != boardPeriod) {
+            monthly.replaceAll(Map.of());
+            boardPeriod = period;
+        }
+        setBoardDay(today);
+    }
+
+    // boardDay пишется раньше rolloverAtMillis: прошедший быстрый путь видит уже новый день
+    private void setBoardDay(LocalDate day) {
+        boardDay = day;
+        rolloverAtMillis = day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Полный пересчёт из предпосчитанных счётчиков (не из habit_logs): холодный старт
+    // без снимка и ночная сверка — исправляет то, что могли пропустить события
+    @Scheduled(cron = "${app.leaderboard.rebuild-cron:0 15 4 * * *}")
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        int period = HabitCountService.period(today);
+
+        Map<Long, Integer> habitCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, COUNT(*) FROM habits GROUP BY user_id",
+                rs -> {
+                    habitCounts.put(rs.getLong(1), rs.getInt(2));
+                });
+        Map<Long, Double> monthlyScores = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, SUM(completed) FROM habit_monthly_counts WHERE period = ? GROUP BY user_id",
+                rs -> {
+                    int habits = habitCounts.getOrDefault(rs.getLong(1), 0);
+                    if (habits > 0) {
+                        monthlyScores.put(rs.getLong(1), rs.getLong(2) / (double) habits);
+                    }
+                }, period);
+
+        Map<Long, Double> streakScores = new HashMap<>();
+        Map<Long, LocalDate> lastActive = new HashMap<>();
+        long[] current = {-1};
+        int[] streak = {0};
+        boolean[] broken = {false};
+        // по убыванию даты внутри пользователя: считаем серию от последнего активного дня
+        jdbcTemplate.query("SELECT user_id, date FROM habit_daily_counts WHERE date BETWEEN ? AND ? AND completed > 0 "
+                        + "ORDER BY user_id, date DESC",
+                rs -> {
+                    long userId = rs.getLong(1);
+                    LocalDate date = rs.getObject(2, LocalDate.class);
+                    if (userId != current[0]) {
+                        current[0] = userId;
+                        streak[0] = 0;
+                        broken[0] = date.isBefore(today.minusDays(1));
+                        if (!broken[0]) {
+                            lastActive.put(userId, date);
+                        }
+                    }
+                    if (broken[0]) {
+                        return;
+                    }
+                    if (date.equals(lastActive.get(userId).minusDays(streak[0]))) {
+                        streak[0]++;
+                        streakScores.put(userId, (double) streak[0]);
+                    } else {
+                        broken[0] = true;
+                    }
+                }, today.minusDays(streakLookbackDays), today);
+
+        synchronized (this) {
+            monthly.replaceAll(monthlyScores);
+            streaks.replaceAll(streakScores);
+            lastActiveDays.clear();
+            lastActiveDays.putAll(lastActive);
+            boardPeriod = period;
+            setBoardDay(today);
+        }
+        log.info("Leaderboard rebuilt: {} monthly, {} streak entries", monthlyScores.size(), streakScores.size());
+    }
+
+    // После бэкфилла счётчиков (HabitCountService), поэтому LOWEST_PRECEDENCE
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp() {
+        if (!loadSnapshot()) {
+            rebuild();
+        }
+        warmedUp = true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.snapshot-interval-ms:60000}",
+            initialDelayString = "${app.leaderboard.snapshot-interval-ms:60000}")
+    @PreDestroy
+    public void saveSnapshot() {
+        // до прогрева в памяти пусто — такой снимок затёр бы нормальный
+        if (snapshotFile == null || !warmedUp) {
+            return;
+        }
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "leaderboard", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(boardDay.toEpochDay());
+                out.writeInt(boardPeriod);
+                List<Leaderboard.Entry> monthlyEntries = monthly.entries();
+                out.writeInt(monthlyEntries.size());
+                for (Leaderboard.Entry entry : monthlyEntries) {
+                    out.writeLong(entry.userId());
+                    out.writeDouble(entry.score());
+                }
+                List<Leaderboard.Entry> streakEntries = streaks.entries();
+                out.writeInt(streakEntries.size());
+                for (Leaderboard.Entry entry : streakEntries) {
+                    LocalDate lastActive = lastActiveDays.get(entry.userId());
+                    out.writeLong(entry.userId());
+                    out.writeInt((int) entry.score());
+                    out.writeLong(lastActive != null ? lastActive.toEpochDay() : boardDay.toEpochDay());
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write leaderboard snapshot {}", snapshotFile, e);
+        }
+    }
+
+    private boolean loadSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            LocalDate savedDay = LocalDate.ofEpochDay(in.readLong());
+            int savedPeriod = in.readInt();
+            Map<Long, Double> monthlyScores = new HashMap<>();
+            int monthlyCount = in.readInt();
+            for (int i = 0; i < monthlyCount; i++) {
+                monthlyScores.put(in.readLong(), in.readDouble());
+            }
+            Map<Long, Double> streakScores = new HashMap<>();
+            Map<Long, LocalDate> lastActive = new HashMap<>();
+            int streakCount = in.readInt();
+            for (int i = 0; i < streakCount; i++) {
+                long userId = in.readLong();
+                streakScores.put(userId, (double) in.readInt());
+                lastActive.put(userId, LocalDate.ofEpochDay(in.readLong()));
+            }
+            synchronized (this) {
+                monthly.replaceAll(monthlyScores);
+                streaks.replaceAll(streakScores);
+                lastActiveDays.clear();
+                lastActiveDays.putAll(lastActive);
+                boardPeriod = savedPeriod;
+                setBoardDay(savedDay);
+            }
+            // снимок со вчера или прошлого месяца докатывается той же логикой, что и в работе
+            rollOverIfNeeded();
+            log.info("Leaderboard loaded from snapshot {} ({} monthly, {} streak entries)",
+                    snapshotFile, monthlyCount, streakCount);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not read leaderboard snapshot {}, rebuilding", snapshotFile, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.helthtracer.service;
+
+import com.helthtracer.event.DomainEventBus;
+import com.helthtracer.event.LikeToggledEvent;
+import com.helthtracer.model.Like;
+import com.helthtracer.repository.LikeRepository;
+import com.helthtracer.repository.PostRepository;
+import com.helthtracer.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Схлопывает серию переключений лайка от одного пользователя на один пост
+// в итоговое состояние: в БД пишется только чистый результат окна.
+@Service
+public class LikeToggleCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeToggleCoalescer.class);
+
+    private record Key(long postId, long userId) {}
+
+    // Поля под монитором элемента; desired ещё и volatile — его читает pendingState без блокировки
+    private static final class Pending {
+        boolean persisted;
+        long flushAtNanos;
+        volatile boolean desired;
+        // идёт запись в БД; removed — элемент уже убран из карты, переключать его нельзя
+        boolean writing;
+        boolean removed;
+
+        Pending(boolean persisted, long flushAtNanos) {
+            this.persisted = persisted;
+            this.flushAtNanos = flushAtNanos;
+            this.desired = persisted;
+        }
+    }
+
+    private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final LikeRepository likeRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final DomainEventBus domainEventBus;
+    private final long windowNanos;
+    private final Counter toggles;
+    private final Counter writes;
+
+    public LikeToggleCoalescer(LikeRepository likeRepository,
+                               PostRepository postRepository,
+                               UserRepository userRepository,
+                               DomainEventBus domainEventBus,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.likes.coalesce-window-ms:500}") long windowMillis) {
+        this.likeRepository = likeRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.domainEventBus = domainEventBus;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.toggles = Counter.builder("likes.toggle.requests").register(meterRegistry);
+        this.writes = Counter.builder("likes.toggle.writes").register(meterRegistry);
+        Gauge.builder("likes.toggle.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    // Возвращает итоговое состояние лайка после переключения.
+    // Запрос в БД — вне блокировок; элемент, который flush успел убрать из карты, заводится заново.
+    public boolean toggle(Long postId, Long userId) {
+        toggles.increment();
+        Key key = new Key(postId, userId);
+        while (true) {
+            Pending current = pending.get(key);
+            if (current == null) {
+                Pending fresh = new Pending(likeRepository.existsByPostIdAndUserId(postId, userId),
+                        System.nanoTime() + windowNanos);
+                current = pending.putIfAbsent(key, fresh);
+                if (current == null) {
+                    current = fresh;
+                }
+            }
+            synchronized (current) {
+                if (!current.removed) {
+                    current.desired = !current.desired;
+                    return current.desired;
+                }
+            }
+        }
+    }
+
+    // Состояние, которое ещё не записано в БД (если окно открыто)
+    public Optional<Boolean> pendingState(Long postId, Long userId) {
+        Pending current = pending.get(new Key(postId, userId));
+        return current == null ? Optional.empty() : Optional.of(current.desired);
+    }
+
+    @Scheduled(fixedDelayString = "${app.likes.flush-interval-ms:100}")
+    public void flushDue() {
+        flush(false);
+    }
+
+    // При остановке: что не удалось записать, теряется — об этом исключение, а не строка в логе
+    @PreDestroy
+    public void flushAll() {
+        int failed = flush(true);
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " like toggles could not be written");
+        }
+    }
+
+    // В БД пишем без блокировок: пока запись идёт, элемент остаётся в карте (writing) и переключения копятся
+    // в его desired — toggle не прочитает из БД состояние, которое вот-вот изменится. При ошибке элемент
+    // остаётся и пишется в следующем окне. Возвращает число неудавшихся записей.
+    private int flush(boolean force) {
+        long now = System.nanoTime();
+        int failed = 0;
+        for (Map.Entry<Key, Pending> entry : pending.entrySet()) {
+            Key key = entry.getKey();
+            Pending current = entry.getValue();
+            boolean target;
+            synchronized (current) {
+                if (current.writing || current.removed || (!force && now - current.flushAtNanos < 0)) {
+                    continue;
+                }
+                if (current.desired == current.persisted) {
+                    remove(key, current);
+                    continue;
+                }
+                current.writing = true;
+                target = current.desired;
+            }
+            boolean written = write(key, target);
+            synchronized (current) {
+                current.writing = false;
+                if (written) {
+                    current.persisted = target;
+                    if (current.desired == current.persisted) {
+                        remove(key, current);
+                    }
+                } else {
+                    current.flushAtNanos = System.nanoTime() + windowNanos;
+                    failed++;
+                }
+            }
+        }
+        return failed;
+    }
+
+    // Под монитором current: дальше toggle заведёт новый элемент и прочитает из БД уже записанное состояние
+    private void remove(Key key, Pending current) {
+        current.removed = true;
+        pending.remove(key, current);
+    }
+
+    private boolean write(Key key, boolean liked) {
+        try {
+            Instant now = Instant.now();
+            Instant likedAt = now;
+            if (liked) {
+                likeRepository.save(new Like(postRepository.getReferenceById(key.postId()),
+                        userRepository.getReferenceById(key.userId()), LocalDateTime.ofInstant(now, ZoneId.systemDefault())));
+            } else {
+                // время снимаемого лайка нужно тренду, чтобы вычесть ровно его вклад
+                likedAt = likeRepository.findCreatedAt(key.postId(), key.userId())
+                        .map(createdAt -> createdAt.atZone(ZoneId.systemDefault()).toInstant())
+                        .orElse(null);
+                likeRepository.deleteByPostIdAndUserId(key.postId(), key.userId());
+            }
+            writes.increment();
+            domainEventBus.publish(new LikeToggledEvent(key.postId(), key.userId(), liked, now, likedAt));
+        } catch (DataIntegrityViolationException e) {
+            // лайк уже есть (параллельная запись) или пост удалён — итог тот же
+            log.debug("Like write for post {} user {} skipped: {}", key.postId(), key.userId(), e.getMessage());
+        } catch (Exception e) {
+            log.warn("Failed to flush like for post {} user {}, will retry", key.postId(), key.userId(), e);
+            return false;
+        }
+        return true;
+    }
+}
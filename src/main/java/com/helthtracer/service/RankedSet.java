@@ -0,0 +1,150 @@
+package com.helthtracer.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Дерево порядковых статистик (декартово дерево с размерами поддеревьев):
+// вставка, удаление, ранг элемента и k-й элемент — O(log n) в среднем.
+// Не потокобезопасно; элементы должны быть уникальны по comparator.
+class RankedSet<E> {
+
+    private static final class Node<E> {
+        final E value;
+        final int priority;
+        int size = 1;
+        Node<E> left;
+        Node<E> right;
+
+        Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super E> comparator;
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<E> root;
+
+    RankedSet(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    void add(E value) {
+        Node<E>[] parts = split(root, value, false);
+        root = merge(merge(parts[0], new Node<>(value, random.nextInt())), parts[1]);
+    }
+
+    boolean remove(E value) {
+        Node<E>[] parts = split(root, value, false);
+        Node<E>[] rest = split(parts[1], value, true);
+        root = merge(parts[0], rest[1]);
+        return rest[0] != null;
+    }
+
+    // Число элементов строго меньше value (0-based позиция, если value в наборе)
+    int rank(E value) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    E get(int index) {
+        Node<E> node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    // Первые limit элементов по порядку: O(log n + limit)
+    List<E> first(int limit) {
+        List<E> result = new ArrayList<>(Math.min(limit, size()));
+        Deque<Node<E>> stack = new ArrayDeque<>();
+        Node<E> node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < limit) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node.value);
+            node = node.right;
+        }
+        return result;
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    // [0] — элементы < value (или <= при inclusive), [1] — остальные
+    @SuppressWarnings("unchecked")
+    private Node<E>[] split(Node<E> node, E value, boolean inclusive) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        int cmp = comparator.compare(node.value, value);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node<E>[] parts = split(node.right, value, inclusive);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node<E>[] parts = split(node.left, value, inclusive);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <E> void update(Node<E> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static <E> int size(Node<E> node) {
+        return node == null ? 0 : node.size;
+    }
+}
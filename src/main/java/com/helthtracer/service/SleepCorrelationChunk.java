@@ -0,0 +1,124 @@
+package com.helthtracer.service;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+// Порция пользователей ночного расчёта SleepCorrelationJob в плоских примитивных массивах:
+// день d пользователя u лежит в [u * days + d]. sleepHours — сон, закончившийся в этот день (0 — нет данных),
+// completed — выполненные в этот день привычки. Результаты — тоже параллельные массивы по u (NaN — не посчитано).
+final class SleepCorrelationChunk {
+
+    // Пользователей на лист fork-join: расчёт одного — проход по days элементам
+    private static final int LEAF_USERS = 64;
+
+    final long[] userIds;
+    final int days;
+    final float[] sleepHours;
+    final int[] completed;
+
+    final int[] pairedDays;
+    final double[] correlation;
+    final int[] wellRestedDays;
+    final double[] wellRestedAvg;
+    final int[] shortDays;
+    final double[] shortAvg;
+    final double[] liftPercent;
+
+    SleepCorrelationChunk(long[] userIds, int days) {
+        int users = userIds.length;
+        this.userIds = userIds;
+        this.days = days;
+        this.sleepHours = new float[users * days];
+        this.completed = new int[users * days];
+        this.pairedDays = new int[users];
+        this.correlation = new double[users];
+        this.wellRestedDays = new int[users];
+        this.wellRestedAvg = new double[users];
+        this.shortDays = new int[users];
+        this.shortAvg = new double[users];
+        this.liftPercent = new double[users];
+    }
+
+    int users() {
+        return userIds.length;
+    }
+
+    // Индекс пользователя в порции; userIds отсортированы
+    int indexOf(long userId) {
+        return Arrays.binarySearch(userIds, userId);
+    }
+
+    RecursiveAction computeTask(double thresholdHours, int minDays, int minGroupDays) {
+        return new Task(0, users(), thresholdHours, minDays, minGroupDays);
+    }
+
+    private final class Task extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final double thresholdHours;
+        private final int minDays;
+        private final int minGroupDays;
+
+        Task(int from, int to, double thresholdHours, int minDays, int minGroupDays) {
+            this.from = from;
+            this.to = to;
+            this.thresholdHours = thresholdHours;
+            this.minDays = minDays;
+            this.minGroupDays = minGroupDays;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_USERS) {
+                for (int u = from; u < to; u++) {
+                    computeUser(u);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Task(from, middle, thresholdHours, minDays, minGroupDays),
+                    new Task(middle, to, thresholdHours, minDays, minGroupDays));
+        }
+
+        // Пирсон между часами сна и выполненными привычками по дням с данными о сне,
+        // плюс средние выполненных после «выспался» (>= thresholdHours) и «не выспался»
+        private void computeUser(int u) {
+            int base = u * days;
+            int n = 0;
+            double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0;
+            int highDays = 0, lowDays = 0;
+            long highSum = 0, lowSum = 0;
+            for (int d = 0; d < days; d++) {
+                double x = sleepHours[base + d];
+                if (x <= 0) {
+                    continue;
+                }
+                int y = completed[base + d];
+                n++;
+                sumX += x;
+                sumY += y;
+                sumXX += x * x;
+                sumYY += (double) y * y;
+                sumXY += x * y;
+                if (x >= thresholdHours) {
+                    highDays++;
+                    highSum += y;
+                } else {
+                    lowDays++;
+                    lowSum += y;
+                }
+            }
+            pairedDays[u] = n;
+            wellRestedDays[u] = highDays;
+            shortDays[u] = lowDays;
+            wellRestedAvg[u] = highDays >= minGroupDays ? (double) highSum / highDays : Double.NaN;
+            shortAvg[u] = lowDays >= minGroupDays ? (double) lowSum / lowDays : Double.NaN;
+            liftPercent[u] = !Double.isNaN(wellRestedAvg[u]) && shortAvg[u] > 0
+                    ? (wellRestedAvg[u] - shortAvg[u]) / shortAvg[u] * 100 : Double.NaN;
+
+            double spread = (n * sumXX - sumX * sumX) * (n * sumYY - sumY * sumY);
+            correlation[u] = n >= minDays && spread > 0 ? (n * sumXY - sumX * sumY) / Math.sqrt(spread) : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.helthtracer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ночной расчёт связи сна и привычек для всех пользователей → sleep_habit_correlations.
+// Пользователи идут порциями по chunkSize (keyset по users.id); порция читается двумя запросами по диапазону
+// user_id в плоские примитивные массивы (SleepCorrelationChunk) и считается на отдельном ForkJoinPool,
+// пока читается следующая. Итог порции пишется одной транзакцией: DELETE диапазона + пакетный INSERT.
+// Чтение идёт в readOnly-транзакциях, т.е. с реплики, если она настроена.
+// Ручной запуск из API (start) идёт в фоновом потоке: итог — в sleep_habit_correlations и lastResult.
+@Service
+public class SleepCorrelationJob {
+
+    public record RunResult(LocalDate from, LocalDate to, long users, long written, int chunks, long durationMillis) {
+
+        public double usersPerSecond() {
+            return durationMillis > 0 ? users * 1000.0 / durationMillis : users;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(SleepCorrelationJob.class);
+
+    private static final String USERS_SELECT = "SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    // Сон засчитывается дню пробуждения; захватываем ночи, начавшиеся накануне окна
+    private static final String SLEEP_SELECT = """
+            SELECT user_id, start_time, end_time FROM sleep_sessions
+            WHERE user_id BETWEEN ? AND ? AND start_time >= ? AND start_time < ? AND end_time IS NOT NULL
+            """;
+    private static final String COUNTS_SELECT = """
+            SELECT user_id, date, completed FROM habit_daily_counts
+            WHERE user_id BETWEEN ? AND ? AND date >= ? AND date < ?
+            """;
+    private static final String RESULTS_DELETE = "DELETE FROM sleep_habit_correlations WHERE user_id > ? AND user_id <= ?";
+    private static final String RESULTS_INSERT = """
+            INSERT INTO sleep_habit_correlations (user_id, window_days, paired_days, correlation, threshold_hours,
+                well_rested_days, well_rested_avg, short_days, short_avg, lift_percent, computed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ForkJoinPool pool;
+    private final ExecutorService starter;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RunResult lastResult;
+    private final Timer runTimer;
+    private final Counter usersCounter;
+    private final boolean enabled;
+    private final int windowDays;
+    private final int chunkSize;
+    private final double thresholdHours;
+    private final int minDays;
+    private final int minGroupDays;
+
+    public SleepCorrelationJob(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.sleep-correlation.enabled:true}") boolean enabled,
+                               @Value("${app.sleep-correlation.window-days:90}") int windowDays,
+                               @Value("${app.sleep-correlation.chunk-size:2000}") int chunkSize,
+                               @Value("${app.sleep-correlation.threshold-hours:7}") double thresholdHours,
+                               @Value("${app.sleep-correlation.min-days:14}") int minDays,
+                               @Value("${app.sleep-correlation.min-group-days:5}") int minGroupDays,
+                               @Value("${app.sleep-correlation.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(10000);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // 0 — все ядра
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.starter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sleep-correlation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runTimer = Timer.builder("sleep.correlation.run").register(meterRegistry);
+        this.usersCounter = Counter.builder("sleep.correlation.users").register(meterRegistry);
+        this.enabled = enabled;
+        this.windowDays = windowDays;
+        this.chunkSize = chunkSize;
+        this.thresholdHours = thresholdHours;
+        this.minDays = minDays;
+        this.minGroupDays = minGroupDays;
+    }
+
+    @Scheduled(cron = "${app.sleep-correlation.cron:0 0 4 * * *}")
+    public void nightly() {
+        if (enabled) {
+            run(LocalDate.now());
+        }
+    }
+
+    public double thresholdHours() {
+        return thresholdHours;
+    }
+
+    // Окно — windowDays полных дней до today (сам today ещё не закончился)
+    public RunResult run(LocalDate today) {
+        acquire();
+        try {
+            return record(today);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // То же в фоновом потоке — не держит поток запроса на весь расчёт.
+    // IllegalStateException — расчёт уже идёт
+    public void start(LocalDate today) {
+        acquire();
+        try {
+            starter.execute(() -> {
+                try {
+                    record(today);
+                } catch (RuntimeException e) {
+                    log.error("Sleep correlation run for {} failed", today, e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException("Sleep correlation job is shut down", e);
+        }
+    }
+
+    // Итог последнего завершённого расчёта на этом узле
+    public Optional<RunResult> lastResult() {
+        return Optional.ofNullable(lastResult);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private void acquire() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Sleep correlation job is already running");
+        }
+    }
+
+    private RunResult record(LocalDate today) {
+        RunResult result = runTimer.record(() -> runLocked(today.minusDays(windowDays), today));
+        lastResult = result;
+        return result;
+    }
+
+    private RunResult runLocked(LocalDate from, LocalDate to) {
+        long started = System.currentTimeMillis();
+        LocalDateTime computedAt = LocalDateTime.now();
+        long users = 0;
+        long written = 0;
+        int chunks = 0;
+        long lastId = 0;
+
+        // Конвейер глубины 1: порция считается на пуле, пока читается следующая
+        SleepCorrelationChunk computing = null;
+        ForkJoinTask<?> task = null;
+        long computingLowerBound = 0;
+        while (true) {
+            long afterId = lastId;
+            long[] ids = readTransaction.execute(status -> nextUserIds(afterId));
+            SleepCorrelationChunk chunk = ids.length > 0 ? load(ids, from, to) : null;
+            if (computing != null) {
+                task.join();
+                written += write(computing, computingLowerBound, computedAt);
+                users += computing.users();
+                usersCounter.increment(computing.users());
+            }
+            if (chunk == null) {
+                break;
+            }
+            computing = chunk;
+            computingLowerBound = lastId;
+            task = pool.submit(chunk.computeTask(thresholdHours, minDays, minGroupDays));
+            lastId = ids[ids.length - 1];
+            chunks++;
+        }
+        // Пользователи, удалённые после последнего расчёта
+        long tail = lastId;
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.update(RESULTS_DELETE, tail, Long.MAX_VALUE));
+
+        RunResult result = new RunResult(from, to, users, written, chunks, System.currentTimeMillis() - started);
+        log.info("Sleep correlations for {}..{}: {} users, {} rows, {} chunks in {} ms ({} users/s)",
+                from, to.minusDays(1), users, written, chunks, result.durationMillis(),
+                Math.round(result.usersPerSecond()));
+        return result;
+    }
+
+    private long[] nextUserIds(long afterId) {
+        long[] ids = new long[chunkSize];
+        int[] count = {0};
+        jdbcTemplate.query(USERS_SELECT, rs -> {
+            ids[count[0]++] = rs.getLong(1);
+        }, afterId, chunkSize);
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    private SleepCorrelationChunk load(long[] ids, LocalDate from, LocalDate to) {
+        SleepCorrelationChunk chunk = new SleepCorrelationChunk(ids, windowDays);
+        long firstId = ids[0];
+        long lastId = ids[ids.length - 1];
+        long fromDay = from.toEpochDay();
+        int days = windowDays;
+        // fetch size работает только внутри транзакции (PostgreSQL отдаёт строки курсором)
+        readTransaction.executeWithoutResult(status -> {
+            streamingJdbcTemplate.query(SLEEP_SELECT, rs -> {
+                int u = chunk.indexOf(rs.getLong(1));
+                LocalDateTime start = rs.getTimestamp(2).toLocalDateTime();
+                LocalDateTime end = rs.getTimestamp(3).toLocalDateTime();
+                long day = end.toLocalDate().toEpochDay() - fromDay;
+                if (u >= 0 && day >= 0 && day < days && end.isAfter(start)) {
+                    chunk.sleepHours[u * days + (int) day] += Duration.between(start, end).toSeconds() / 3600f;
+                }
+            }, firstId, lastId, Timestamp.valueOf(from.minusDays(1).atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+            streamingJdbcTemplate.query(COUNTS_SELECT, rs -> {
+                int u = chunk.indexOf(rs.getLong(1));
+                long day = rs.getDate(2).toLocalDate().toEpochDay() - fromDay;
+                if (u >= 0 && day >= 0 && day < days) {
+                    chunk.completed[u * days + (int) day] = rs.getInt(3);
+                }
+            }, firstId, lastId, Date.valueOf(from), Date.valueOf(to));
+        });
+        return chunk;
+    }
+
+    // Пишет пользователей с данными о сне; строки остальных пользователей диапазона удаляются
+    private int write(SleepCorrelationChunk chunk, long lowerBound, LocalDateTime computedAt) {
+        int[] rows = new int[chunk.users()];
+        int count = 0;
+        for (int u = 0; u < chunk.users(); u++) {
+            if (chunk.pairedDays[u] > 0) {
+                rows[count++] = u;
+            }
+        }
+        int size = count;
+        Timestamp computed = Timestamp.valueOf(computedAt);
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(RESULTS_DELETE, lowerBound, chunk.userIds[chunk.users() - 1]);
+            jdbcTemplate.batchUpdate(RESULTS_INSERT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int u = rows[i];
+                    ps.setLong(1, chunk.userIds[u]);
+                    ps.setInt(2, windowDays);
+                    ps.setInt(3, chunk.pairedDays[u]);
+                    setNullable(ps, 4, chunk.correlation[u]);
+                    ps.setDouble(5, thresholdHours);
+                    ps.setInt(6, chunk.wellRestedDays[u]);
+                    setNullable(ps, 7, chunk.wellRestedAvg[u]);
+                    ps.setInt(8, chunk.shortDays[u]);
+                    setNullable(ps, 9, chunk.shortAvg[u]);
+                    setNullable(ps, 10, chunk.liftPercent[u]);
+                    ps.setTimestamp(11, computed);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        });
+        return size;
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        starter.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,184 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Потоковый разбор выгрузок устройств: CSV с заголовком, JSON-массив объектов или NDJSON.
+// В памяти держится только текущая строка/объект.
+class SleepFileParser {
+
+    interface RecordHandler {
+        // start/end — сырые значения полей, null если поле не найдено
+        void accept(String start, String end);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory;
+
+    SleepFileParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    void parse(Path file, RecordHandler handler) throws IOException {
+        try (PushbackInputStream in = new PushbackInputStream(Files.newInputStream(file), 1)) {
+            if (isJson(in)) {
+                parseJson(in, handler);
+            } else {
+                parseCsv(in, handler);
+            }
+        }
+    }
+
+    // Формат определяется по первому значащему символу, а не по имени файла.
+    // Пробелы и UTF-8 BOM в начале пропускаются.
+    private static boolean isJson(PushbackInputStream in) throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c != -1 && (Character.isWhitespace(c) || c == 0xEF || c == 0xBB || c == 0xBF));
+        if (c == -1) {
+            return false;
+        }
+        in.unread(c);
+        return c == '[' || c == '{';
+    }
+
+    private void parseJson(InputStream in, RecordHandler handler) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    readObject(parser, handler);
+                }
+            }
+        }
+    }
+
+    private static void readObject(JsonParser parser, RecordHandler handler) throws IOException {
+        String start = null;
+        String end = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = normalize(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+            } else if (isStartField(field)) {
+                start = parser.getValueAsString();
+            } else if (isEndField(field)) {
+                end = parser.getValueAsString();
+            }
+        }
+        handler.accept(start, end);
+    }
+
+    private static void parseCsv(InputStream in, RecordHandler handler) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        char separator = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+        String[] columns = split(header, separator);
+        int startColumn = -1;
+        int endColumn = -1;
+        for (int i = 0; i < columns.length; i++) {
+            String column = normalize(columns[i]);
+            if (startColumn < 0 && isStartField(column)) {
+                startColumn = i;
+            } else if (endColumn < 0 && isEndField(column)) {
+                endColumn = i;
+            }
+        }
+        if (startColumn < 0 || endColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain start and end columns");
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = split(line, separator);
+            handler.accept(startColumn < values.length ? values[startColumn] : null,
+                    endColumn < values.length ? values[endColumn] : null);
+        }
+    }
+
+    // Простой разбор CSV-строки: поля в кавычках, "" внутри кавычек
+    private static String[] split(String line, char separator) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values.toArray(new String[0]);
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").replace("-", "").replace(" ", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isStartField(String field) {
+        return field.equals("start") || field.equals("starttime") || field.equals("startdate")
+                || field.equals("bedtime") || field.equals("sleepstart");
+    }
+
+    private static boolean isEndField(String field) {
+        return field.equals("end") || field.equals("endtime") || field.equals("enddate")
+                || field.equals("waketime") || field.equals("sleepend");
+    }
+
+    // ISO local ("2024-01-01T23:00", "2024-01-01 23:00:00") или со смещением — берётся локальное время
+    static LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim().replace(' ', 'T');
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(text).toLocalDateTime();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Прогресс одного импорта; отдаётся как есть из GET /api/sleep-sessions/import/{id}.
+// status сериализуется раньше счётчиков: если в ответе COMPLETED, счётчики в нём уже итоговые.
+@JsonPropertyOrder({"id", "userId", "fileName", "status"})
+public class SleepImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final String fileName;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    SleepImportJob(Long userId, String fileName) {
+        this.userId = userId;
+        this.fileName = fileName;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String message) {
+        finishedAt = Instant.now();
+        error = message;
+        status = Status.FAILED;
+    }
+
+    void recordRead() {
+        records.incrementAndGet();
+    }
+
+    void recordImported(int count) {
+        imported.addAndGet(count);
+    }
+
+    void recordDuplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    void recordInvalid() {
+        invalid.incrementAndGet();
+    }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getRecords() {
+        return records.get();
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    // Пропускная способность: обработанные записи (любого исхода) в секунду
+    public double getSessionsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(Duration.between(start, end).toNanos() / 1e9, 0.001);
+        return Math.round(records.get() / seconds * 10) / 10.0;
+    }
+}
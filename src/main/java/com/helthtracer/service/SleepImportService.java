@@ -0,0 +1,296 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.storage.ArchiveReader;
+import com.helthtracer.storage.ArchivedSleepSession;
+import com.helthtracer.storage.PartitionedTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Импорт сессий сна из файлов устройств: файл сохраняется во временный,
+// разбирается потоково в фоне, записи проверяются, дубликаты (сессии,
+// пересекающиеся с уже записанными в БД, в архиве или ранее в файле) отбрасываются,
+// остальное пишется JDBC-батчами по batchSize строк, каждый батч — своя транзакция.
+// Блокировка SleepIntervalIndex пользователя берётся на батч, а не на весь файл: многолетний
+// импорт не держит запись сессий через API, а между батчами индекс перечитывается из БД.
+// Пересечение с сессией, записанной другим узлом (ограничение V12 на PostgreSQL), откатывает
+// батч — тогда он пишется построчно, и отказавшие строки считаются дубликатами.
+@Service
+public class SleepImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SleepImportService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO sleep_sessions (user_id, start_time, end_time) VALUES (?, ?, ?)";
+    private static final Duration MAX_SESSION = Duration.ofHours(24);
+    private static final Duration KEEP_FINISHED = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SleepIntervalIndex sleepIntervalIndex;
+    private final SleepScoreService sleepScoreService;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ArchiveReader archiveReader;
+    private final SleepFileParser parser;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, SleepImportJob> jobs = new ConcurrentHashMap<>();
+    private final Counter importedSessions;
+    private final Counter duplicateSessions;
+    private final Counter invalidSessions;
+
+    public SleepImportService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              SleepIntervalIndex sleepIntervalIndex,
+                              SleepScoreService sleepScoreService,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              ArchiveReader archiveReader,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.sleep-import.batch-size:1000}") int batchSize,
+                              @Value("${app.sleep-import.threads:2}") int threads,
+                              @Value("${app.sleep-import.queue-capacity:100}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sleepIntervalIndex = sleepIntervalIndex;
+        this.sleepScoreService = sleepScoreService;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.archiveReader = archiveReader;
+        this.parser = new SleepFileParser(objectMapper.getFactory());
+        this.batchSize = batchSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // переполнение очереди — RejectedExecutionException, контроллер отвечает 503
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "sleep-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // rate(sleep.import.sessions) — пропускная способность импорта в сессиях/с
+        this.importedSessions = Counter.builder("sleep.import.sessions").tag("outcome", "imported").register(meterRegistry);
+        this.duplicateSessions = Counter.builder("sleep.import.sessions").tag("outcome", "duplicate").register(meterRegistry);
+        this.invalidSessions = Counter.builder("sleep.import.sessions").tag("outcome", "invalid").register(meterRegistry);
+    }
+
+    public SleepImportJob submit(Long userId, MultipartFile file) throws IOException {
+        evictFinishedJobs();
+        // файл multipart удаляется после запроса — переносим во временный свой
+        Path tempFile = Files.createTempFile("sleep-import-", ".upload");
+        file.transferTo(tempFile);
+
+        SleepImportJob job = new SleepImportJob(userId, file.getOriginalFilename());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, tempFile));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<SleepImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(SleepImportJob job, Path file) {
+        job.start();
+        try {
+            try {
+                importFile(job, file);
+            } finally {
+                // импорт может быть задним числом — оценки сна пересобираются целиком
+                sleepScoreService.onSessionsChanged(job.getUserId());
+            }
+            job.complete();
+            log.info("Sleep import {} for user {}: {} imported, {} duplicates, {} invalid, {} sessions/s",
+                    job.getId(), job.getUserId(), job.getImported(), job.getDuplicates(), job.getInvalid(),
+                    job.getSessionsPerSecond());
+        } catch (Exception e) {
+            log.warn("Sleep import {} for user {} failed", job.getId(), job.getUserId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete import file {}", file, e);
+            }
+        }
+    }
+
+    private void importFile(SleepImportJob job, Path file) throws IOException {
+        List<LocalDateTime[]> batch = new ArrayList<>(batchSize);
+        ArchivedIntervals archived = new ArchivedIntervals(job.getUserId());
+        LocalDateTime now = LocalDateTime.now();
+
+        parser.parse(file, (rawStart, rawEnd) -> {
+            job.recordRead();
+            LocalDateTime start = SleepFileParser.parseTimestamp(rawStart);
+            LocalDateTime end = SleepFileParser.parseTimestamp(rawEnd);
+            if (start == null || end == null || !end.isAfter(start)
+                    || Duration.between(start, end).compareTo(MAX_SESSION) > 0 || end.isAfter(now)) {
+                job.recordInvalid();
+                invalidSessions.increment();
+                return;
+            }
+            batch.add(new LocalDateTime[]{start, end});
+            if (batch.size() >= batchSize) {
+                importBatch(job, batch, archived);
+            }
+        });
+        importBatch(job, batch, archived);
+    }
+
+    private void importBatch(SleepImportJob job, List<LocalDateTime[]> batch, ArchivedIntervals archived) {
+        // архив читается с диска — до блокировки пользователя
+        List<LocalDateTime[]> candidates = new ArrayList<>(batch.size());
+        for (LocalDateTime[] session : batch) {
+            if (archived.overlaps(session[0], session[1])) {
+                recordDuplicate(job);
+            } else {
+                candidates.add(session);
+            }
+        }
+        batch.clear();
+        if (candidates.isEmpty()) {
+            return;
+        }
+        sleepIntervalIndex.withUser(job.getUserId(), intervals -> {
+            try {
+                List<LocalDateTime[]> accepted = new ArrayList<>(candidates.size());
+                for (LocalDateTime[] session : candidates) {
+                    if (intervals.findOverlap(session[0], session[1], null).isPresent()) {
+                        recordDuplicate(job);
+                    } else {
+                        intervals.add(-1, session[0], session[1]);
+                        accepted.add(session);
+                    }
+                }
+                insert(job, accepted);
+            } finally {
+                // вставленные строки добавлены в индекс без id — следующий батч и API перечитают его из БД
+                sleepIntervalIndex.evict(job.getUserId());
+            }
+            return null;
+        });
+    }
+
+    private void insert(SleepImportJob job, List<LocalDateTime[]> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        int inserted;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, sessions, sessions.size(), (ps, session) -> {
+                        ps.setLong(1, job.getUserId());
+                        ps.setTimestamp(2, Timestamp.valueOf(session[0]));
+                        ps.setTimestamp(3, Timestamp.valueOf(session[1]));
+                    }));
+            inserted = sessions.size();
+        } catch (DataIntegrityViolationException e) {
+            if (!SleepSessionService.isExclusionViolation(e)) {
+                throw e;
+            }
+            // другой узел записал пересекающуюся сессию, которой не было в индексе; батч откатился целиком
+            log.info("Sleep import {} for user {}: batch overlaps sessions written elsewhere, inserting row by row",
+                    job.getId(), job.getUserId());
+            inserted = insertEach(job, sessions);
+        }
+        // INSERT мимо Hibernate: кешированные запросы по sleep_sessions сбрасываем сами, на всех узлах
+        cacheInvalidationBus.publish(CacheInvalidation.entities(SleepSession.class));
+        job.recordImported(inserted);
+        importedSessions.increment(inserted);
+    }
+
+    private int insertEach(SleepImportJob job, List<LocalDateTime[]> sessions) {
+        int inserted = 0;
+        for (LocalDateTime[] session : sessions) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL,
+                        job.getUserId(), Timestamp.valueOf(session[0]), Timestamp.valueOf(session[1])));
+                inserted++;
+            } catch (DataIntegrityViolationException e) {
+                if (!SleepSessionService.isExclusionViolation(e)) {
+                    throw e;
+                }
+                recordDuplicate(job);
+            }
+        }
+        return inserted;
+    }
+
+    private void recordDuplicate(SleepImportJob job) {
+        job.recordDuplicate();
+        duplicateSessions.increment();
+    }
+
+    // Сессии пользователя в уже заархивированных месяцах: в БД их нет, и индекс их не видит.
+    // Месяц читается из архива один раз за импорт и только если в него попала импортируемая сессия;
+    // проверяются месяцы от (start - MAX_SESSION) до end — сессия соседнего месяца может заходить в этот.
+    private final class ArchivedIntervals {
+
+        private final Long userId;
+        private final SleepIntervals intervals = new SleepIntervals();
+        private final Set<YearMonth> loaded = new HashSet<>();
+
+        ArchivedIntervals(Long userId) {
+            this.userId = userId;
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            for (YearMonth month = YearMonth.from(start.minus(MAX_SESSION)); !month.isAfter(YearMonth.from(end));
+                 month = month.plusMonths(1)) {
+                if (loaded.add(month) && archiveReader.isArchived(PartitionedTable.SLEEP_SESSIONS, month)) {
+                    for (ArchivedSleepSession session : archiveReader.readSleepSessions(userId, month)) {
+                        intervals.add(session.id(), session.startTime(), session.endTime());
+                    }
+                }
+            }
+            return intervals.findOverlap(start, end, null).isPresent();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(KEEP_FINISHED);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.helthtracer.service;
+
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.cache.CacheInvalidationListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// LRU-кэш SleepIntervals по пользователям. Индекс пользователя строится одним
+// запросом при первом обращении; работа с ним идёт под блокировкой пользователя, так что
+// проверка пересечения и запись сессии одного пользователя не перемешиваются.
+// Блокировка — не сам индекс (его может вытеснить LRU или evict, пока им пользуются, и следующий
+// писатель заблокировал бы уже новый экземпляр), а одна из STRIPES постоянных, по userId.
+// Индекс кладётся в карту только загруженным, так что пользователь без сессий не перечитывается.
+//
+// Индекс у каждого узла свой: после записи узел шлёт остальным инвалидацию (REGION, userId),
+// и они перечитают пользователя из БД. Пока она в пути, другой узел может принять пересекающуюся
+// сессию — это отсекает ограничение ex_sleep_sessions_no_overlap в PostgreSQL (V12).
+@Component
+public class SleepIntervalIndex implements CacheInvalidationListener {
+
+    public static final String REGION = "sleep-intervals";
+
+    private static final int STRIPES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Map<Long, SleepIntervals> indexes;
+    private final Object[] locks = new Object[STRIPES];
+
+    public SleepIntervalIndex(JdbcTemplate jdbcTemplate,
+                              CacheInvalidationBus cacheInvalidationBus,
+                              @Value("${app.sleep.index.max-users:10000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SleepIntervals> eldest) {
+                return size() > maxUsers;
+            }
+        };
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public <T> T withUser(Long userId, Function<SleepIntervals, T> action) {
+        synchronized (lock(userId)) {
+            SleepIntervals intervals;
+            synchronized (indexes) {
+                intervals = indexes.get(userId);
+            }
+            if (intervals == null) {
+                // загрузка под блокировкой пользователя, но не всей карты
+                intervals = load(userId);
+                synchronized (indexes) {
+                    indexes.put(userId, intervals);
+                }
+            }
+            return action.apply(intervals);
+        }
+    }
+
+    // Сессии пользователя записаны этим узлом (индекс уже обновлён): остальные узлы его перечитают
+    public void changed(Long userId) {
+        cacheInvalidationBus.publishToOtherNodes(CacheInvalidation.key(REGION, userId));
+    }
+
+    // Вызывается после записей в обход индекса (импорт, отказ БД); следующий withUser
+    // на любом узле перечитает индекс из БД
+    public void evict(Long userId) {
+        evictLocal(userId);
+        changed(userId);
+    }
+
+    @Override
+    public void onInvalidations(List<CacheInvalidation> invalidations) {
+        for (CacheInvalidation invalidation : invalidations) {
+            if (invalidation.isAll() || (REGION.equals(invalidation.region()) && invalidation.isWholeRegion())) {
+                synchronized (indexes) {
+                    indexes.clear();
+                }
+                return;
+            }
+            if (REGION.equals(invalidation.region())) {
+                evictLocal(Long.valueOf(invalidation.key()));
+            }
+        }
+    }
+
+    private void evictLocal(Long userId) {
+        synchronized (indexes) {
+            indexes.remove(userId);
+        }
+    }
+
+    private Object lock(Long userId) {
+        return locks[Long.hashCode(userId) & (STRIPES - 1)];
+    }
+
+    private SleepIntervals load(Long userId) {
+        SleepIntervals intervals = new SleepIntervals();
+        jdbcTemplate.query("SELECT id, start_time, end_time FROM sleep_sessions WHERE user_id = ?",
+                rs -> {
+                    intervals.add(rs.getLong("id"),
+                            rs.getObject("start_time", LocalDateTime.class),
+                            rs.getObject("end_time", LocalDateTime.class));
+                },
+                userId);
+        return intervals;
+    }
+}
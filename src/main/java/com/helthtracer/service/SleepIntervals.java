@@ -0,0 +1,67 @@
+package com.helthtracer.service;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Непересекающиеся интервалы сна одного пользователя, упорядоченные по началу.
+// Раз пересечения не допускаются, для проверки нового интервала достаточно
+// соседей слева и справа — O(log n). Открытая сессия (end == null) тянется в бесконечность.
+// Не потокобезопасен: SleepIntervalIndex выдаёт его под блокировкой пользователя.
+public class SleepIntervals {
+
+    public record Interval(long id, LocalDateTime start, LocalDateTime end) {
+
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return (otherEnd == null || start.isBefore(otherEnd)) && (end == null || end.isAfter(otherStart));
+        }
+    }
+
+    private final TreeMap<LocalDateTime, Interval> byStart = new TreeMap<>();
+
+    // excludeId — сама редактируемая сессия, с собой она не пересекается
+    public Optional<Interval> findOverlap(LocalDateTime start, LocalDateTime end, Long excludeId) {
+        Interval before = firstOther(byStart.headMap(start, true).descendingMap().values().iterator(), excludeId);
+        if (before != null && before.overlaps(start, end)) {
+            return Optional.of(before);
+        }
+        Interval after = firstOther(byStart.tailMap(start, false).values().iterator(), excludeId);
+        if (after != null && after.overlaps(start, end)) {
+            return Optional.of(after);
+        }
+        return Optional.empty();
+    }
+
+    private static Interval firstOther(Iterator<Interval> intervals, Long excludeId) {
+        while (intervals.hasNext()) {
+            Interval interval = intervals.next();
+            if (excludeId == null || interval.id() != excludeId) {
+                return interval;
+            }
+        }
+        return null;
+    }
+
+    // Открытая сессия всегда последняя: после неё ничего начаться не может
+    public Optional<Interval> openInterval() {
+        Map.Entry<LocalDateTime, Interval> last = byStart.lastEntry();
+        return last != null && last.getValue().end() == null ? Optional.of(last.getValue()) : Optional.empty();
+    }
+
+    public void add(long id, LocalDateTime start, LocalDateTime end) {
+        byStart.put(start, new Interval(id, start, end));
+    }
+
+    public void remove(long id, LocalDateTime start) {
+        Interval interval = byStart.get(start);
+        if (interval != null && interval.id() == id) {
+            byStart.remove(start);
+        }
+    }
+
+    public int size() {
+        return byStart.size();
+    }
+}
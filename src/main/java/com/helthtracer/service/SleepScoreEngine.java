@@ -0,0 +1,153 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.SleepScoreState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Оценки сна, пересчитываемые за O(1) на закрытую сессию (SleepScoreState хранит только свёртки):
+//  - долг сна: потребность targetHours в сутки копится между сессиями, сон её гасит,
+//    старый долг затухает с периодом полураспада неделя;
+//  - регулярность (Sleep Regularity Index): вероятность, что в то же время суток человек в том же
+//    состоянии (спит/не спит), что и накануне, в шкале -100..100; считается по соседним основным снам;
+//  - постоянство отбоя: циклическое среднее времени засыпания и его разброс в минутах (через полночь корректно);
+//  - тренд длительности: среднее основного сна за ~неделю против ~месяца.
+// Средние экспоненциальные по времени: вес нового значения 1 - e^(-Δдней/τ), пропуски в данных не ломают окно.
+// Дремота (короче MAIN_SLEEP) идёт только в долг сна.
+public class SleepScoreEngine {
+
+    public record Scores(Long userId,
+                         int sessions,
+                         double sleepDebtHours,
+                         Double regularityIndex,
+                         String meanBedtime,
+                         Double bedtimeDeviationMinutes,
+                         double durationWeekHours,
+                         double durationMonthHours,
+                         double durationTrendHours,
+                         LocalDateTime updatedAt) {}
+
+    static final Duration MAIN_SLEEP = Duration.ofHours(3);
+
+    private static final double MINUTES_PER_DAY = 1440;
+    private static final double DEBT_HALF_LIFE_DAYS = 7;
+    // Дольше не трекал — не значит не спал: потребность копится не больше чем за столько суток
+    private static final double MAX_ACCRUAL_DAYS = 3;
+    private static final double SHORT_TAU_DAYS = 7;
+    private static final double LONG_TAU_DAYS = 30;
+    private static final double BEDTIME_TAU_DAYS = 14;
+    private static final double REGULARITY_TAU_DAYS = 14;
+    // Соседние ночи: начала основных снов в 12..36 часах друг от друга
+    private static final Duration MIN_NIGHT_GAP = Duration.ofHours(12);
+    private static final Duration MAX_NIGHT_GAP = Duration.ofHours(36);
+
+    private final double targetHours;
+
+    public SleepScoreEngine(double targetHours) {
+        this.targetHours = targetHours;
+    }
+
+    // Инкрементально можно только дописывать: сессия раньше конца последней учтённой — нужен пересчёт
+    public boolean canApply(SleepScoreState state, LocalDateTime start) {
+        return state.getLastEnd() == null || !start.isBefore(state.getLastEnd());
+    }
+
+    public void apply(SleepScoreState state, LocalDateTime start, LocalDateTime end) {
+        double hours = minutes(start, end) / 60.0;
+
+        double accrualDays = state.getLastEnd() == null
+                ? 1 : Math.min(MAX_ACCRUAL_DAYS, Math.max(0, days(state.getLastEnd(), end)));
+        double decayedDebt = state.getDebtHours() * Math.pow(0.5, accrualDays / DEBT_HALF_LIFE_DAYS);
+        state.setDebtHours(Math.max(0, decayedDebt + targetHours * accrualDays - hours));
+
+        if (Duration.between(start, end).compareTo(MAIN_SLEEP) >= 0) {
+            applyMainSleep(state, start, end, hours);
+        }
+
+        state.setSessions(state.getSessions() + 1);
+        if (state.getLastEnd() == null || end.isAfter(state.getLastEnd())) {
+            state.setLastEnd(end);
+        }
+        state.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void applyMainSleep(SleepScoreState state, LocalDateTime start, LocalDateTime end, double hours) {
+        double angle = 2 * Math.PI * (start.getHour() * 60 + start.getMinute()) / MINUTES_PER_DAY;
+        if (state.getLastMainEnd() == null) {
+            state.setDurationShort(hours);
+            state.setDurationLong(hours);
+            state.setBedtimeSin(Math.sin(angle));
+            state.setBedtimeCos(Math.cos(angle));
+        } else {
+            double gapDays = Math.max(0, days(state.getLastMainEnd(), end));
+            state.setDurationShort(ewma(state.getDurationShort(), hours, gapDays, SHORT_TAU_DAYS));
+            state.setDurationLong(ewma(state.getDurationLong(), hours, gapDays, LONG_TAU_DAYS));
+            state.setBedtimeSin(ewma(state.getBedtimeSin(), Math.sin(angle), gapDays, BEDTIME_TAU_DAYS));
+            state.setBedtimeCos(ewma(state.getBedtimeCos(), Math.cos(angle), gapDays, BEDTIME_TAU_DAYS));
+
+            Duration startGap = Duration.between(state.getLastMainStart(), start);
+            if (startGap.compareTo(MIN_NIGHT_GAP) >= 0 && startGap.compareTo(MAX_NIGHT_GAP) <= 0) {
+                double sri = regularityIndex(state.getLastMainStart(), state.getLastMainEnd(), start, end);
+                state.setRegularity(state.getRegularity() == null
+                        ? sri : ewma(state.getRegularity(), sri, gapDays, REGULARITY_TAU_DAYS));
+            }
+        }
+        state.setLastMainStart(start);
+        state.setLastMainEnd(end);
+    }
+
+    public Scores scores(SleepScoreState state) {
+        String meanBedtime = null;
+        Double deviation = null;
+        double resultant = Math.hypot(state.getBedtimeSin(), state.getBedtimeCos());
+        if (state.getLastMainEnd() != null && resultant > 1e-9) {
+            double angle = Math.atan2(state.getBedtimeSin(), state.getBedtimeCos());
+            long minute = Math.floorMod(Math.round(angle / (2 * Math.PI) * MINUTES_PER_DAY), (long) MINUTES_PER_DAY);
+            meanBedtime = "%02d:%02d".formatted(minute / 60, minute % 60);
+            // циклическое стандартное отклонение sqrt(-2 ln R), в минутах
+            deviation = round(Math.sqrt(-2 * Math.log(Math.min(1, resultant))) * MINUTES_PER_DAY / (2 * Math.PI));
+        }
+        return new Scores(state.getUserId(),
+                state.getSessions(),
+                round(state.getDebtHours()),
+                state.getRegularity() != null ? round(state.getRegularity()) : null,
+                meanBedtime,
+                deviation,
+                round(state.getDurationShort()),
+                round(state.getDurationLong()),
+                round(state.getDurationShort() - state.getDurationLong()),
+                state.getUpdatedAt());
+    }
+
+    // SRI для двух соседних снов: предыдущий переносится на сутки вперёд, несовпадающие минуты —
+    // симметрическая разность интервалов; P(то же состояние) = 1 - несовпадение / сутки
+    static double regularityIndex(LocalDateTime previousStart, LocalDateTime previousEnd,
+                                  LocalDateTime start, LocalDateTime end) {
+        long shiftDays = Math.round(minutes(previousStart, start) / MINUTES_PER_DAY);
+        LocalDateTime alignedStart = previousStart.plusDays(shiftDays);
+        LocalDateTime alignedEnd = previousEnd.plusDays(shiftDays);
+        LocalDateTime overlapStart = alignedStart.isAfter(start) ? alignedStart : start;
+        LocalDateTime overlapEnd = alignedEnd.isBefore(end) ? alignedEnd : end;
+        double overlap = Math.max(0, minutes(overlapStart, overlapEnd));
+        double mismatch = minutes(alignedStart, alignedEnd) + minutes(start, end) - 2 * overlap;
+        double same = Math.max(0, 1 - mismatch / MINUTES_PER_DAY);
+        return 200 * same - 100;
+    }
+
+    private static double ewma(double current, double value, double gapDays, double tauDays) {
+        double alpha = 1 - Math.exp(-gapDays / tauDays);
+        return current + alpha * (value - current);
+    }
+
+    private static double minutes(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toSeconds() / 60.0;
+    }
+
+    private static double days(LocalDateTime from, LocalDateTime to) {
+        return minutes(from, to) / MINUTES_PER_DAY;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
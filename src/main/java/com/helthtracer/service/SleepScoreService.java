@@ -0,0 +1,107 @@
+package com.helthtracer.service;
+
+import com.helthtracer.batch.RecomputeTask;
+import com.helthtracer.model.SleepScoreState;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.repository.SleepScoreStateRepository;
+import com.helthtracer.repository.SleepSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Хранит и отдаёт оценки сна (SleepScoreEngine). Закрытая сессия дописывается в состояние за O(1);
+// правка, удаление, импорт или сессия задним числом пересобирают состояние пользователя из sleep_sessions.
+// Запись состояния идёт под блокировкой пользователя в SleepIntervalIndex — как и запись самих сессий,
+// поэтому обновления одного пользователя не перемешиваются.
+// Пакетный пересчёт всех пользователей — RecomputeTask "sleep-scores" (RecomputeRunner).
+@Service
+public class SleepScoreService implements RecomputeTask {
+
+    private static final Logger log = LoggerFactory.getLogger(SleepScoreService.class);
+
+    private final SleepScoreStateRepository stateRepository;
+    private final SleepSessionRepository sessionRepository;
+    private final SleepIntervalIndex sleepIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final SleepScoreEngine engine;
+
+    public SleepScoreService(SleepScoreStateRepository stateRepository,
+                             SleepSessionRepository sessionRepository,
+                             SleepIntervalIndex sleepIntervalIndex,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.sleep-score.target-hours:8}") double targetHours) {
+        this.stateRepository = stateRepository;
+        this.sessionRepository = sessionRepository;
+        this.sleepIntervalIndex = sleepIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.engine = new SleepScoreEngine(targetHours);
+    }
+
+    public SleepScoreEngine.Scores scores(Long userId) {
+        SleepScoreState state = stateRepository.findById(userId).orElseGet(() -> rebuild(userId));
+        return engine.scores(state);
+    }
+
+    // Вызывается под SleepIntervalIndex.withUser после записи закрытой сессии.
+    // Сессия уже закоммичена: ошибка здесь не отменяет запись, а только сбрасывает состояние до пересборки.
+    void onSessionClosed(Long userId, LocalDateTime start, LocalDateTime end) {
+        update(userId, () -> {
+            SleepScoreState state = stateRepository.findById(userId).orElse(null);
+            if (state == null || !engine.canApply(state, start)) {
+                rebuildInTransaction(userId);
+                return;
+            }
+            engine.apply(state, start, end);
+            stateRepository.save(state);
+        });
+    }
+
+    // Сессии изменены не дописыванием (правка, удаление, импорт); вызывается под SleepIntervalIndex.withUser
+    void onSessionsChanged(Long userId) {
+        update(userId, () -> rebuildInTransaction(userId));
+    }
+
+    // Полный пересчёт пользователя из истории (бэкфилл, правки, импорт)
+    public SleepScoreState rebuild(Long userId) {
+        return sleepIntervalIndex.withUser(userId, intervals -> transactionTemplate.execute(
+                status -> rebuildInTransaction(userId)));
+    }
+
+    @Override
+    public String name() {
+        return "sleep-scores";
+    }
+
+    @Override
+    public void recompute(Long userId) {
+        rebuild(userId);
+    }
+
+    private void update(Long userId, Runnable action) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+        } catch (RuntimeException e) {
+            log.warn("Failed to update sleep scores of user {}, state will be rebuilt", userId, e);
+            try {
+                stateRepository.deleteById(userId);
+            } catch (RuntimeException ignored) {
+                // пересоберётся при следующей правке или через rebuild
+            }
+        }
+    }
+
+    private SleepScoreState rebuildInTransaction(Long userId) {
+        SleepScoreState state = new SleepScoreState(userId);
+        try (Stream<SleepSession> sessions = sessionRepository.streamByUserId(userId)) {
+            sessions.filter(session -> session.getEndTime() != null)
+                    .forEach(session -> engine.apply(state, session.getStartTime(), session.getEndTime()));
+        }
+        return stateRepository.save(state);
+    }
+}
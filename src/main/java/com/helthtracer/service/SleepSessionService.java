@@ -0,0 +1,162 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.SleepSessionRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+// Запись сессий сна с проверкой пересечений по SleepIntervalIndex.
+// Методы не транзакционные: save коммитится внутри withUser, и индекс
+// обновляется только после успешной записи. Там же обновляются оценки сна (SleepScoreService).
+// Индекс другого узла мог ещё не узнать о чужой записи — тогда пересечение ловит ограничение
+// в БД (V12), индекс этого пользователя сбрасывается, а клиент получает тот же SleepOverlapException.
+@Service
+public class SleepSessionService {
+
+    public static class SleepOverlapException extends RuntimeException {
+        public SleepOverlapException(String message) {
+            super(message);
+        }
+    }
+
+    private static final Duration MAX_SESSION = Duration.ofHours(24);
+    // PostgreSQL exclusion_violation: сработало ex_sleep_sessions_no_overlap
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final SleepSessionRepository sleepSessionRepository;
+    private final SleepIntervalIndex sleepIntervalIndex;
+    private final SleepScoreService sleepScoreService;
+
+    public SleepSessionService(SleepSessionRepository sleepSessionRepository, SleepIntervalIndex sleepIntervalIndex,
+                               SleepScoreService sleepScoreService) {
+        this.sleepSessionRepository = sleepSessionRepository;
+        this.sleepIntervalIndex = sleepIntervalIndex;
+        this.sleepScoreService = sleepScoreService;
+    }
+
+    public SleepSession create(User user, LocalDateTime start, LocalDateTime end) {
+        validate(start, end);
+        return sleepIntervalIndex.withUser(user.getId(), intervals -> {
+            checkOverlap(intervals, start, end, null);
+            SleepSession saved = save(user.getId(), new SleepSession(user, start, end));
+            intervals.add(saved.getId(), start, end);
+            sleepIntervalIndex.changed(user.getId());
+            sleepScoreService.onSessionClosed(user.getId(), start, end);
+            return saved;
+        });
+    }
+
+    // Начать сессию сейчас; у пользователя может быть только одна открытая
+    public SleepSession start(User user) {
+        LocalDateTime now = now();
+        return sleepIntervalIndex.withUser(user.getId(), intervals -> {
+            if (intervals.openInterval().isPresent()) {
+                throw new SleepOverlapException("Sleep session already started");
+            }
+            checkOverlap(intervals, now, null, null);
+            SleepSession saved = save(user.getId(), new SleepSession(user, now, null));
+            intervals.add(saved.getId(), now, null);
+            sleepIntervalIndex.changed(user.getId());
+            return saved;
+        });
+    }
+
+    public Optional<SleepSession> stop(Long userId) {
+        LocalDateTime now = now();
+        return sleepIntervalIndex.withUser(userId, intervals -> intervals.openInterval().map(open -> {
+            SleepSession session = sleepSessionRepository.findById(open.id()).orElseThrow();
+            session.setEndTime(now.isAfter(open.start()) ? now : open.start().plusSeconds(1));
+            SleepSession saved = save(userId, session);
+            intervals.add(open.id(), open.start(), saved.getEndTime());
+            sleepIntervalIndex.changed(userId);
+            sleepScoreService.onSessionClosed(userId, open.start(), saved.getEndTime());
+            return saved;
+        }));
+    }
+
+    public SleepSession update(SleepSession session, LocalDateTime start, LocalDateTime end) {
+        validate(start, end);
+        return sleepIntervalIndex.withUser(session.getUser().getId(), intervals -> {
+            checkOverlap(intervals, start, end, session.getId());
+            LocalDateTime oldStart = session.getStartTime();
+            session.setStartTime(start);
+            session.setEndTime(end);
+            SleepSession saved = save(session.getUser().getId(), session);
+            intervals.remove(saved.getId(), oldStart);
+            intervals.add(saved.getId(), start, end);
+            sleepIntervalIndex.changed(saved.getUser().getId());
+            sleepScoreService.onSessionsChanged(saved.getUser().getId());
+            return saved;
+        });
+    }
+
+    public void delete(SleepSession session) {
+        sleepIntervalIndex.withUser(session.getUser().getId(), intervals -> {
+            sleepSessionRepository.delete(session);
+            intervals.remove(session.getId(), session.getStartTime());
+            sleepIntervalIndex.changed(session.getUser().getId());
+            sleepScoreService.onSessionsChanged(session.getUser().getId());
+            return null;
+        });
+    }
+
+    // Сессии, пересекающие [from, to) — для графиков истории сна
+    public List<SleepSession> findRange(Long userId, LocalDateTime from, LocalDateTime to) {
+        return sleepSessionRepository.findOverlappingRange(userId, from, to);
+    }
+
+    private SleepSession save(Long userId, SleepSession session) {
+        try {
+            return sleepSessionRepository.save(session);
+        } catch (DataIntegrityViolationException e) {
+            if (!isExclusionViolation(e)) {
+                throw e;
+            }
+            // индекс этого узла отстал от БД: перечитаем его при следующем обращении
+            sleepIntervalIndex.evict(userId);
+            throw new SleepOverlapException("Overlaps another sleep session");
+        }
+    }
+
+    // Нарушено ex_sleep_sessions_no_overlap (PostgreSQL, V12); используется и импортом
+    static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Секундная точность: ключ индекса должен совпадать с тем, что вернёт БД
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static void validate(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("startTime and endTime are required");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("endTime must be after startTime");
+        }
+        if (Duration.between(start, end).compareTo(MAX_SESSION) > 0) {
+            throw new IllegalArgumentException("Sleep session cannot be longer than 24 hours");
+        }
+    }
+
+    private static void checkOverlap(SleepIntervals intervals, LocalDateTime start, LocalDateTime end, Long excludeId) {
+        intervals.findOverlap(start, end, excludeId).ifPresent(other -> {
+            throw new SleepOverlapException("Overlaps sleep session " + other.id()
+                    + " (" + other.start() + " - " + (other.end() != null ? other.end() : "in progress") + ")");
+        });
+    }
+}
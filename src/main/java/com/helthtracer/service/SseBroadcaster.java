@@ -0,0 +1,295 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.event.CommentAddedEvent;
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.DomainEventConsumer;
+import com.helthtracer.event.LikeToggledEvent;
+import com.helthtracer.event.PostCreatedEvent;
+import com.helthtracer.event.PostDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Рассылка событий ленты по SSE. SseEmitter работает в async-режиме сервлета, так что
+// соединение не держит поток контейнера. Каждое событие сериализуется один раз в готовый
+// кадр; у клиента своя ограниченная очередь кадров, которую разгребает общий пул отправки.
+// Переполненная очередь — медленный клиент: соединение закрывается, EventSource переподключится.
+//
+// send — блокирующая запись в сокет: клиент, который перестал читать, держит поток отправки,
+// пока контейнер не оборвёт запись по своему таймауту. Сторож раз в send-timeout/2 ищет записи
+// дольше send-timeout: такой клиент выселяется, а пул на время зависшей записи получает
+// поток взамен (не больше max-stalled-senders), так что остальные клиенты не ждут и не переполняются.
+@Service
+public class SseBroadcaster implements DomainEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(SseBroadcaster.class);
+
+    private static final class Client {
+        final SseEmitter emitter;
+        final Queue<Set<DataWithMediaType>> frames;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean stalled = new AtomicBoolean();
+        // начало текущей записи в сокет, 0 — не пишет
+        volatile long sendStartedNanos;
+
+        Client(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.frames = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService watchdog;
+    private final AtomicInteger stalledSenders = new AtomicInteger();
+    private final int senderThreads;
+    private final int maxStalledSenders;
+    private final int maxClients;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Counter framesSent;
+    private final Counter slowEvictions;
+    private final Counter stalledEvictions;
+
+    public SseBroadcaster(ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.sse.max-clients:20000}") int maxClients,
+                          @Value("${app.sse.client-buffer:64}") int bufferSize,
+                          @Value("${app.sse.timeout-ms:1800000}") long timeoutMillis,
+                          @Value("${app.sse.sender-threads:4}") int senderThreads,
+                          @Value("${app.sse.send-timeout-ms:1000}") long sendTimeoutMillis,
+                          @Value("${app.sse.max-stalled-senders:64}") int maxStalledSenders) {
+        this.objectMapper = objectMapper;
+        this.maxClients = maxClients;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senderThreads = senderThreads;
+        this.maxStalledSenders = maxStalledSenders;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads + maxStalledSenders,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(1, sendTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::evictStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        Gauge.builder("sse.clients", clients, Set::size).register(meterRegistry);
+        Gauge.builder("sse.senders.stalled", stalledSenders, AtomicInteger::get).register(meterRegistry);
+        this.framesSent = Counter.builder("sse.frames.sent").register(meterRegistry);
+        this.slowEvictions = Counter.builder("sse.clients.evicted").tag("reason", "slow").register(meterRegistry);
+        this.stalledEvictions = Counter.builder("sse.clients.evicted").tag("reason", "stalled").register(meterRegistry);
+    }
+
+    // null — лимит соединений исчерпан
+    public SseEmitter connect() {
+        if (clients.size() >= maxClients) {
+            return null;
+        }
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Client client = new Client(emitter, bufferSize);
+        emitter.onCompletion(() -> close(client));
+        emitter.onTimeout(() -> close(client));
+        emitter.onError(error -> close(client));
+        clients.add(client);
+        // первый кадр сразу — прокси и браузер видят, что поток открыт
+        enqueue(client, SseEmitter.event().comment("connected").build());
+        return emitter;
+    }
+
+    @Override
+    public String name() {
+        return "sse";
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof PostCreatedEvent || event instanceof PostDeletedEvent
+                || event instanceof LikeToggledEvent || event instanceof CommentAddedEvent;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            Set<DataWithMediaType> frame = toFrame(event);
+            if (frame != null) {
+                broadcast(frame);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        broadcast(SseEmitter.event().comment("ping").build());
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    // Точка подмены для тестов
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void broadcast(Set<DataWithMediaType> frame) {
+        for (Client client : clients) {
+            enqueue(client, frame);
+        }
+    }
+
+    private void enqueue(Client client, Set<DataWithMediaType> frame) {
+        if (!client.frames.offer(frame)) {
+            slowEvictions.increment();
+            log.debug("Evicting slow SSE client ({} frames buffered)", bufferSize);
+            client.emitter.complete();
+            close(client);
+            return;
+        }
+        if (client.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(client));
+        }
+    }
+
+    private void drain(Client client) {
+        do {
+            Set<DataWithMediaType> frame;
+            while (!client.closed.get() && (frame = client.frames.poll()) != null) {
+                client.sendStartedNanos = System.nanoTime();
+                try {
+                    client.emitter.send(frame);
+                    framesSent.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // клиент ушёл — контейнер вызовет onError/onCompletion
+                    close(client);
+                } finally {
+                    client.sendStartedNanos = 0;
+                }
+                if (client.stalled.get()) {
+                    // сторож уже выселил клиента и отдал наш поток пулу; запись вернулась — вернуть и его.
+                    // Если клиент всё-таки дочитал, complete() отпустит его переподключиться
+                    releaseStalledSender();
+                    client.emitter.complete();
+                    return;
+                }
+            }
+            client.draining.set(false);
+            // кадр мог прийти между последним poll и сбросом флага
+        } while (!client.closed.get() && !client.frames.isEmpty() && client.draining.compareAndSet(false, true));
+    }
+
+    // Зависшая запись: клиента выселяем, сам поток остаётся в send до таймаута контейнера.
+    // complete() здесь не вызвать — он ждёт ту же блокировку эмиттера, что держит send.
+    void evictStalled() {
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            long started = client.sendStartedNanos;
+            if (started != 0 && now - started > sendTimeoutNanos && client.stalled.compareAndSet(false, true)) {
+                stalledEvictions.increment();
+                log.debug("Evicting SSE client stalled in a write for {} ms", TimeUnit.NANOSECONDS.toMillis(now - started));
+                close(client);
+                stalledSenders.incrementAndGet();
+                resizeSenders();
+            }
+        }
+    }
+
+    private void releaseStalledSender() {
+        stalledSenders.decrementAndGet();
+        resizeSenders();
+    }
+
+    // Постоянных потоков столько, сколько здоровых плюс зависших (в пределах max-stalled-senders)
+    private synchronized void resizeSenders() {
+        int stalled = Math.max(0, Math.min(stalledSenders.get(), maxStalledSenders));
+        senders.setCorePoolSize(senderThreads + stalled);
+    }
+
+    private void close(Client client) {
+        if (client.closed.compareAndSet(false, true)) {
+            clients.remove(client);
+            client.frames.clear();
+        }
+    }
+
+    private Set<DataWithMediaType> toFrame(DomainEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        String name;
+        if (event instanceof PostCreatedEvent created) {
+            name = "post";
+            data.put("postId", created.postId());
+            data.put("userId", created.userId());
+            data.put("username", created.username());
+            data.put("title", created.title());
+            data.put("topic", created.topic());
+        } else if (event instanceof PostDeletedEvent deleted) {
+            name = "post-deleted";
+            data.put("postId", deleted.postId());
+        } else if (event instanceof LikeToggledEvent like) {
+            name = "like";
+            data.put("postId", like.postId());
+            data.put("userId", like.userId());
+            data.put("delta", like.liked() ? 1 : -1);
+        } else if (event instanceof CommentAddedEvent comment) {
+            name = "comment";
+            data.put("commentId", comment.commentId());
+            data.put("postId", comment.postId());
+            data.put("userId", comment.userId());
+            data.put("username", comment.username());
+            data.put("body", comment.body());
+        } else {
+            return null;
+        }
+        try {
+            return SseEmitter.event().name(name).data(objectMapper.writeValueAsString(data)).build();
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} for SSE", event, e);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Client client : clients) {
+            client.emitter.complete();
+            close(client);
+        }
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+    }
+}
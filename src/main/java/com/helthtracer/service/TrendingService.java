@@ -0,0 +1,365 @@
+package com.helthtracer.service;
+
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.cache.CacheInvalidationListener;
+import com.helthtracer.event.CommentAddedEvent;
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.DomainEventConsumer;
+import com.helthtracer.event.LikeToggledEvent;
+import com.helthtracer.event.PostCreatedEvent;
+import com.helthtracer.event.PostDeletedEvent;
+import com.helthtracer.model.Post;
+import com.helthtracer.repository.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Рейтинг «в тренде»: счёт поста — сумма весов лайков/комментариев, затухающая
+// экспоненциально с периодом полураспада halfLife. Счета хранятся в единицах момента
+// последнего затухания (referenceTime): событие в момент t добавляет w * 2^((t - ref) / halfLife),
+// поэтому порядок между шагами затухания не меняется. Фоновый шаг домножает всё на
+// 2^(-(now - ref) / halfLife), выбрасывает остывшие посты и публикует неизменяемый top-K —
+// запрос /api/posts/trending только читает volatile-ссылку.
+//
+// События приходят только на узел, где была запись: он шлёт остальным инвалидацию (REGION, postId),
+// и они перечитывают счёт поста из БД тем же запросом, что и тёплый старт (на следующем rerank).
+@Service
+public class TrendingService implements DomainEventConsumer, CacheInvalidationListener {
+
+    public static final String REGION = "trending";
+
+    public record TrendingPost(long postId, String title, String topic, String username, double score) {}
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final double POST_WEIGHT = 1;
+    private static final double LIKE_WEIGHT = 3;
+    private static final double COMMENT_WEIGHT = 5;
+    // Ниже этого счёта пост считается остывшим и забывается
+    private static final double MIN_SCORE = 0.05;
+    // Сколько постов перечитывается одним запросом по инвалидациям других узлов
+    private static final int RELOAD_CHUNK = 500;
+
+    private static final class Tracked {
+        double score;
+        // время создания поста (null — неизвестно): к нему отнесены лайки без времени (старше V13)
+        Instant createdAt;
+        String title;
+        String topic;
+        String username;
+    }
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final double halfLifeMillis;
+    private final int topK;
+    private final int maxTracked;
+
+    // Меняется только под монитором this (воркер шины и шаг затухания)
+    private final Map<Long, Tracked> tracked = new HashMap<>();
+    private Instant referenceTime = Instant.now();
+    private volatile List<TrendingPost> top = List.of();
+    // посты, изменённые на других узлах; reloadAll — узел мог что-то пропустить, перечитать всё окно
+    private final Set<Long> remoteChanged = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloadAll;
+    private volatile boolean warmedUp;
+
+    public TrendingService(PostRepository postRepository,
+                           JdbcTemplate jdbcTemplate,
+                           CacheInvalidationBus cacheInvalidationBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.trending.half-life-hours:6}") double halfLifeHours,
+                           @Value("${app.trending.top-k:100}") int topK,
+                           @Value("${app.trending.max-tracked:20000}") int maxTracked) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.halfLifeMillis = halfLifeHours * 3_600_000;
+        this.topK = topK;
+        this.maxTracked = maxTracked;
+        Gauge.builder("posts.trending.tracked", this, service -> service.trackedCount()).register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "trending";
+    }
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof LikeToggledEvent || event instanceof CommentAddedEvent
+                || event instanceof PostCreatedEvent || event instanceof PostDeletedEvent;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        Set<Long> postIds = new LinkedHashSet<>();
+        synchronized (this) {
+            for (DomainEvent event : batch) {
+                if (event instanceof LikeToggledEvent like) {
+                    if (like.liked()) {
+                        add(like.postId(), LIKE_WEIGHT, like.occurredAt());
+                    } else {
+                        unlike(like);
+                    }
+                    postIds.add(like.postId());
+                } else if (event instanceof CommentAddedEvent comment) {
+                    add(comment.postId(), COMMENT_WEIGHT, comment.occurredAt());
+                    postIds.add(comment.postId());
+                } else if (event instanceof PostCreatedEvent created) {
+                    Tracked post = add(created.postId(), POST_WEIGHT, created.occurredAt());
+                    post.createdAt = created.occurredAt();
+                    post.title = created.title();
+                    post.topic = created.topic();
+                    post.username = created.username();
+                    postIds.add(created.postId());
+                } else if (event instanceof PostDeletedEvent deleted) {
+                    tracked.remove(deleted.postId());
+                    postIds.add(deleted.postId());
+                }
+            }
+        }
+        postIds.forEach(postId -> cacheInvalidationBus.publishToOtherNodes(CacheInvalidation.key(REGION, postId)));
+    }
+
+    // Поток шины: только запоминаем, чтение из БД — в rerank
+    @Override
+    public void onInvalidations(List<CacheInvalidation> invalidations) {
+        for (CacheInvalidation invalidation : invalidations) {
+            if (invalidation.isAll() || (REGION.equals(invalidation.region()) && invalidation.isWholeRegion())) {
+                reloadAll = true;
+            } else if (REGION.equals(invalidation.region())) {
+                remoteChanged.add(Long.valueOf(invalidation.key()));
+            }
+        }
+    }
+
+    public List<TrendingPost> trending(int limit) {
+        List<TrendingPost> current = top;
+        return current.size() <= limit ? current : current.subList(0, limit);
+    }
+
+    private Tracked add(long postId, double weight, Instant at) {
+        Tracked post = tracked.computeIfAbsent(postId, id -> new Tracked());
+        post.score += weight * decayFactor(referenceTime, at);
+        return post;
+    }
+
+    // Снятый лайк забирает ровно тот вес, с которым был добавлен, — в единицах его собственного момента,
+    // а не момента снятия: иначе вычитается больше, чем лайк ещё весит, и гасятся комментарии.
+    // Лайк без времени (старше V13) тёплый старт отнёс к созданию поста.
+    private void unlike(LikeToggledEvent like) {
+        Tracked post = tracked.get(like.postId());
+        if (post == null) {
+            return;
+        }
+        Instant likedAt = like.likedAt() != null ? like.likedAt() : post.createdAt;
+        if (likedAt == null) {
+            return;
+        }
+        // max — только от ошибок округления
+        post.score = Math.max(0, post.score - LIKE_WEIGHT * decayFactor(referenceTime, likedAt));
+    }
+
+    // 2^((to - from) / halfLife): > 1 для событий после referenceTime
+    private double decayFactor(Instant from, Instant to) {
+        return Math.pow(2, Duration.between(from, to).toMillis() / halfLifeMillis);
+    }
+
+    // Затухание + пересборка top-K; читает только память.
+    // Tracked меняются под монитором (onEvents, fillDetails), поэтому в кучу идут неизменяемые снимки,
+    // снятые под ним же, — сортировка и публикация после выхода из блокировки их уже не видят.
+    @Scheduled(fixedDelayString = "${app.trending.rerank-interval-ms:5000}")
+    public void rerank() {
+        reloadRemote();
+        Comparator<TrendingPost> byScore = Comparator.comparingDouble(TrendingPost::score);
+        PriorityQueue<TrendingPost> heap = new PriorityQueue<>(byScore);
+        synchronized (this) {
+            Instant now = Instant.now();
+            double factor = decayFactor(now, referenceTime);
+            referenceTime = now;
+            tracked.values().removeIf(post -> (post.score *= factor) < MIN_SCORE);
+
+            for (Map.Entry<Long, Tracked> entry : tracked.entrySet()) {
+                Tracked post = entry.getValue();
+                if (heap.size() < topK || post.score > heap.peek().score()) {
+                    heap.offer(new TrendingPost(entry.getKey(), post.title, post.topic, post.username, post.score));
+                    if (heap.size() > topK) {
+                        heap.poll();
+                    }
+                }
+            }
+            // сверх лимита забываем самые холодные
+            if (tracked.size() > maxTracked) {
+                evictColdest(tracked.size() - maxTracked);
+            }
+        }
+
+        List<TrendingPost> entries = new ArrayList<>(heap);
+        entries.sort(byScore.reversed().thenComparingLong(TrendingPost::postId));
+        List<TrendingPost> ranked = new ArrayList<>(entries.size());
+        List<Long> missingDetails = new ArrayList<>();
+        for (TrendingPost post : entries) {
+            if (post.title() == null) {
+                missingDetails.add(post.postId());
+            }
+            ranked.add(new TrendingPost(post.postId(), post.title(), post.topic(), post.username(),
+                    Math.round(post.score() * 100) / 100.0));
+        }
+        top = List.copyOf(ranked);
+
+        // посты, известные только по лайкам/комментариям (созданы до старта) — подтянуть заголовки в фоне
+        if (!missingDetails.isEmpty()) {
+            fillDetails(missingDetails);
+        }
+    }
+
+    // Под монитором; сортируются снимки счетов, а не сами Tracked
+    private void evictColdest(int count) {
+        List<Map.Entry<Long, Double>> scores = new ArrayList<>(tracked.size());
+        tracked.forEach((postId, post) -> scores.add(Map.entry(postId, post.score)));
+        scores.sort(Map.Entry.comparingByValue());
+        scores.subList(0, count).forEach(entry -> tracked.remove(entry.getKey()));
+    }
+
+    private void fillDetails(List<Long> postIds) {
+        Map<Long, Post> posts = new HashMap<>();
+        postRepository.findAllById(postIds).forEach(post -> posts.put(post.getId(), post));
+        synchronized (this) {
+            posts.forEach((postId, post) -> {
+                Tracked entry = tracked.get(postId);
+                if (entry != null) {
+                    entry.title = post.getTitle();
+                    entry.topic = post.getTopic();
+                    entry.username = post.getUser().getUsername();
+                }
+            });
+        }
+        top = top.stream().map(post -> {
+            Post details = posts.get(post.postId());
+            return details == null ? post : new TrendingPost(post.postId(), details.getTitle(), details.getTopic(),
+                    details.getUser().getUsername(), post.score());
+        }).toList();
+    }
+
+    // Тёплый старт: события последних четырёх периодов полураспада (старше — меньше 1/16 веса).
+    // Лайки без времени создания (поставлены до V13) считаются в момент создания поста.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        synchronized (this) {
+            load(null);
+            warmedUp = true;
+        }
+        rerank();
+        log.info("Trending warmed up with {} recent posts", trackedCount());
+    }
+
+    // Изменения других узлов: счёт поста собирается заново из БД. До прогрева копим — он прочитает их сам,
+    // а повторное чтение посчитало бы события дважды.
+    private void reloadRemote() {
+        if (!warmedUp) {
+            return;
+        }
+        if (reloadAll) {
+            reloadAll = false;
+            remoteChanged.clear();
+            synchronized (this) {
+                tracked.clear();
+                load(null);
+            }
+            return;
+        }
+        List<Long> postIds = new ArrayList<>();
+        for (Iterator<Long> iterator = remoteChanged.iterator(); iterator.hasNext(); ) {
+            postIds.add(iterator.next());
+            iterator.remove();
+        }
+        for (int from = 0; from < postIds.size(); from += RELOAD_CHUNK) {
+            List<Long> chunk = postIds.subList(from, Math.min(postIds.size(), from + RELOAD_CHUNK));
+            synchronized (this) {
+                chunk.forEach(tracked::remove);
+                load(chunk);
+            }
+        }
+    }
+
+    // Под монитором. postIds == null — все посты окна (тёплый старт), иначе только эти:
+    // удалённые посты в tracked не возвращаются, даже если их лайки и комментарии ещё в БД.
+    private void load(List<Long> postIds) {
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis((long) (halfLifeMillis * 4)));
+        String postFilter = postIds == null ? "p.created_at >= ?" : "p.id IN (" + placeholders(postIds.size()) + ")";
+        String eventFilter = postIds == null ? "" : " AND post_id IN (" + placeholders(postIds.size()) + ")";
+        Object[] postArgs = postIds == null ? new Object[]{Timestamp.valueOf(since)} : postIds.toArray();
+        List<Object> eventArgs = new ArrayList<>();
+        eventArgs.add(Timestamp.valueOf(since));
+        if (postIds != null) {
+            eventArgs.addAll(postIds);
+        }
+        Set<Long> found = new HashSet<>();
+        jdbcTemplate.query("""
+                        SELECT p.id, p.title, p.topic, u.username, p.created_at,
+                               (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id AND l.created_at IS NULL)
+                        FROM posts p JOIN users u ON u.id = p.user_id
+                        WHERE\s""" + postFilter,
+                rs -> {
+                    Tracked post = add(rs.getLong(1),
+                            POST_WEIGHT + LIKE_WEIGHT * rs.getLong(6), toInstant(rs.getTimestamp(5)));
+                    post.createdAt = toInstant(rs.getTimestamp(5));
+                    post.title = rs.getString(2);
+                    post.topic = rs.getString(3);
+                    post.username = rs.getString(4);
+                    found.add(rs.getLong(1));
+                }, postArgs);
+        jdbcTemplate.query("SELECT post_id, created_at FROM likes WHERE created_at >= ?" + eventFilter,
+                rs -> {
+                    if (postIds == null || found.contains(rs.getLong(1))) {
+                        add(rs.getLong(1), LIKE_WEIGHT, toInstant(rs.getTimestamp(2)));
+                    }
+                }, eventArgs.toArray());
+        jdbcTemplate.query("SELECT post_id, created_at FROM comments WHERE created_at >= ?" + eventFilter,
+                rs -> {
+                    if (postIds == null || found.contains(rs.getLong(1))) {
+                        add(rs.getLong(1), COMMENT_WEIGHT, toInstant(rs.getTimestamp(2)));
+                    }
+                }, eventArgs.toArray());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().atZone(ZoneId.systemDefault()).toInstant() : Instant.now();
+    }
+
+    private synchronized int trackedCount() {
+        return tracked.size();
+    }
+}
@@ -0,0 +1,90 @@
+package com.helthtracer.storage;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+// Чтение архивных месяцев: <archive-dir>/<table>/<yyyy-MM>.ndjson.gz
+@Component
+public class ArchiveReader {
+
+    private static final String ARCHIVE_SUFFIX = ".ndjson.gz";
+
+    private final ObjectMapper objectMapper;
+    private final Path archiveDir;
+
+    public ArchiveReader(ObjectMapper objectMapper,
+                         @Value("${app.retention.archive-dir:./archive}") String archiveDir) {
+        this.objectMapper = objectMapper;
+        this.archiveDir = Paths.get(archiveDir);
+    }
+
+    public Path archiveFile(PartitionedTable table, YearMonth month) {
+        return archiveDir.resolve(table.tableName()).resolve(month + ARCHIVE_SUFFIX);
+    }
+
+    public boolean isArchived(PartitionedTable table, YearMonth month) {
+        return Files.exists(archiveFile(table, month));
+    }
+
+    // Архивные месяцы таблицы по возрастанию
+    public List<YearMonth> archivedMonths(PartitionedTable table) {
+        Path dir = archiveDir.resolve(table.tableName());
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(ARCHIVE_SUFFIX))
+                    .map(name -> YearMonth.parse(name.substring(0, name.length() - ARCHIVE_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list archive " + dir, e);
+        }
+    }
+
+    public List<ArchivedHabitLog> readHabitLogs(Long userId, YearMonth month) {
+        return read(PartitionedTable.HABIT_LOGS, month, ArchivedHabitLog.class, ArchivedHabitLog::userId, userId);
+    }
+
+    public List<ArchivedSleepSession> readSleepSessions(Long userId, YearMonth month) {
+        return read(PartitionedTable.SLEEP_SESSIONS, month, ArchivedSleepSession.class, ArchivedSleepSession::userId, userId);
+    }
+
+    private <T> List<T> read(PartitionedTable table, YearMonth month, Class<T> type,
+                             Function<T, Long> userOf, Long userId) {
+        Path file = archiveFile(table, month);
+        List<T> rows = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return rows;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024);
+             MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(in)) {
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                if (Objects.equals(userOf.apply(row), userId)) {
+                    rows.add(row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive " + file, e);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,6 @@
+package com.helthtracer.storage;
+
+import java.time.LocalDate;
+
+public record ArchivedHabitLog(Long id, Long habitId, Long userId, LocalDate date, String status) {
+}
@@ -0,0 +1,6 @@
+package com.helthtracer.storage;
+
+import java.time.LocalDateTime;
+
+public record ArchivedSleepSession(Long id, Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+}
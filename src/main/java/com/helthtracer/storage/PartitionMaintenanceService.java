@@ -0,0 +1,107 @@
+package com.helthtracer.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+// Заранее создаёт помесячные партиции на будущее.
+// Работает только на PostgreSQL и только для таблиц, переведённых на партиционирование
+// скриптом db/partitioning/postgresql-partition-tables.sql; иначе ничего не делает.
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private volatile Boolean postgres;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       @Value("${app.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.cron:0 0 3 * * *}")
+    public void ensureFuturePartitions() {
+        if (!isPostgres()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (PartitionedTable table : PartitionedTable.values()) {
+            if (!isPartitioned(table)) {
+                continue;
+            }
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(table, current.plusMonths(i));
+            }
+        }
+    }
+
+    public boolean isPartitioned(PartitionedTable table) {
+        if (!isPostgres()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM pg_partitioned_table p
+                JOIN pg_class c ON c.oid = p.partrelid
+                WHERE c.relname = ?
+                """, Integer.class, table.tableName());
+        return count != null && count > 0;
+    }
+
+    public boolean partitionExists(PartitionedTable table, YearMonth month) {
+        return isPostgres() && jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table.partitionName(month));
+    }
+
+    // Быстрое удаление месяца целиком: DETACH + DROP вместо DELETE по строкам
+    public void dropPartition(PartitionedTable table, YearMonth month) {
+        String partition = table.partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE " + table.tableName() + " DETACH PARTITION " + partition);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        log.info("Dropped partition {}", partition);
+    }
+
+    private void createPartition(PartitionedTable table, YearMonth month) {
+        String sql = "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')".formatted(
+                table.partitionName(month), table.tableName(), month.atDay(1), month.plusMonths(1).atDay(1));
+        try {
+            jdbcTemplate.execute(sql);
+            if (table == PartitionedTable.SLEEP_SESSIONS) {
+                addNoOverlapConstraint(table.partitionName(month));
+            }
+        } catch (Exception e) {
+            // например, в DEFAULT-партиции уже лежат строки этого месяца
+            log.warn("Could not create partition {}: {}", table.partitionName(month), e.getMessage());
+        }
+    }
+
+    // Ограничение V12 на каждой партиции sleep_sessions: на партиционированной таблице PostgreSQL 16 его не держит
+    private void addNoOverlapConstraint(String partition) {
+        String constraint = partition + "_no_overlap";
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)", Boolean.class, constraint);
+        if (!Boolean.TRUE.equals(exists)) {
+            jdbcTemplate.execute("ALTER TABLE " + partition + " ADD CONSTRAINT " + constraint
+                    + " EXCLUDE USING gist (user_id WITH =, tsrange(start_time, end_time) WITH &&) WHERE (NOT overlap_exempt)");
+        }
+    }
+
+        private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return Boolean.TRUE.equals(postgres);
+    }
+}
@@ -0,0 +1,30 @@
+package com.helthtracer.storage;
+
+import java.time.YearMonth;
+
+// Таблицы с помесячным RANGE-партиционированием (PostgreSQL)
+public enum PartitionedTable {
+    HABIT_LOGS("habit_logs", "date"),
+    SLEEP_SESSIONS("sleep_sessions", "start_time");
+
+    private final String tableName;
+    private final String partitionColumn;
+
+    PartitionedTable(String tableName, String partitionColumn) {
+        this.tableName = tableName;
+        this.partitionColumn = partitionColumn;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public String partitionColumn() {
+        return partitionColumn;
+    }
+
+    // habit_logs_p202610
+    public String partitionName(YearMonth month) {
+        return "%s_p%04d%02d".formatted(tableName, month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,252 @@
+package com.helthtracer.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.SleepSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Выносит месяцы старше горизонта хранения из habit_logs / sleep_sessions
+// в сжатые NDJSON-файлы (читаются через ArchiveReader), затем удаляет их из БД.
+// Свёртки по дням/месяцам (habit_daily_counts, habit_monthly_counts) остаются в БД.
+@Service
+public class RetentionArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionArchiver.class);
+
+    private static final String HABIT_LOGS_SELECT = """
+            SELECT id, habit_id, user_id, date, status FROM habit_logs
+            WHERE date >= ? AND date < ?
+            ORDER BY user_id, date, id
+            """;
+    private static final String SLEEP_SESSIONS_SELECT = """
+            SELECT id, user_id, start_time, end_time FROM sleep_sessions
+            WHERE start_time >= ? AND start_time < ?
+            ORDER BY user_id, start_time, id
+            """;
+
+    // Как строки таблицы читаются из БД и упорядочиваются в файле архива
+    private record ArchiveFormat<T>(Class<T> type, String select, RowMapper<T> mapper,
+                                    Function<T, Long> id, Comparator<T> order) {}
+
+    private static final ArchiveFormat<ArchivedHabitLog> HABIT_LOGS_FORMAT = new ArchiveFormat<>(
+            ArchivedHabitLog.class, HABIT_LOGS_SELECT,
+            (rs, rowNum) -> new ArchivedHabitLog(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    rs.getDate(4).toLocalDate(), statusName(rs, 5)),
+            ArchivedHabitLog::id,
+            Comparator.comparing(ArchivedHabitLog::userId).thenComparing(ArchivedHabitLog::date)
+                    .thenComparing(ArchivedHabitLog::id));
+
+    private static final ArchiveFormat<ArchivedSleepSession> SLEEP_SESSIONS_FORMAT = new ArchiveFormat<>(
+            ArchivedSleepSession.class, SLEEP_SESSIONS_SELECT,
+            (rs, rowNum) -> new ArchivedSleepSession(rs.getLong(1), rs.getLong(2),
+                    rs.getTimestamp(3).toLocalDateTime(),
+                    rs.getTimestamp(4) != null ? rs.getTimestamp(4).toLocalDateTime() : null),
+            ArchivedSleepSession::id,
+            Comparator.comparing(ArchivedSleepSession::userId).thenComparing(ArchivedSleepSession::startTime)
+                    .thenComparing(ArchivedSleepSession::id));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate archiveTransaction;
+    private final ObjectMapper objectMapper;
+    private final ArchiveReader archiveReader;
+    private final PartitionMaintenanceService partitionMaintenanceService;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final boolean enabled;
+    private final int hotMonths;
+
+    public RetentionArchiver(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             ArchiveReader archiveReader,
+                             PartitionMaintenanceService partitionMaintenanceService,
+                             CacheInvalidationBus cacheInvalidationBus,
+                             @Value("${app.retention.enabled:false}") boolean enabled,
+                             @Value("${app.retention.hot-months:24}") int hotMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(1000);
+        this.archiveTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.archiveTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+        this.archiveReader = archiveReader;
+        this.partitionMaintenanceService = partitionMaintenanceService;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.enabled = enabled;
+        this.hotMonths = hotMonths;
+    }
+
+    // Первый месяц, который ещё хранится в БД
+    public YearMonth hotHorizon() {
+        return YearMonth.now().minusMonths(hotMonths);
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 30 3 * * *}")
+    public void archiveExpiredMonths() {
+        if (!enabled) {
+            return;
+        }
+        for (PartitionedTable table : PartitionedTable.values()) {
+            YearMonth month = oldestMonth(table);
+            while (month != null && month.isBefore(hotHorizon())) {
+                archiveMonth(table, month);
+                month = month.plusMonths(1);
+            }
+        }
+    }
+
+    // Выгрузка, слияние с уже существующим архивом и удаление — одна REPEATABLE READ транзакция:
+    // DELETE видит тот же снимок, что и выгрузка, и не трогает строки, вставленные после её начала.
+    // Партицию перед снимком блокируем от записи — её DROP снёс бы и невидимые снимку строки.
+    public long archiveMonth(PartitionedTable table, YearMonth month) {
+        Path target = archiveReader.archiveFile(table, month);
+        boolean partitioned = partitionMaintenanceService.partitionExists(table, month);
+        Long rows = archiveTransaction.execute(status -> {
+            if (partitioned) {
+                jdbcTemplate.execute("LOCK TABLE " + table.partitionName(month) + " IN EXCLUSIVE MODE");
+            }
+            long exported;
+            try {
+                Files.createDirectories(target.getParent());
+                Path temp = Files.createTempFile(target.getParent(), month.toString(), ".tmp");
+                try {
+                    exported = table == PartitionedTable.HABIT_LOGS
+                            ? export(table, HABIT_LOGS_FORMAT, month, temp, target)
+                            : export(table, SLEEP_SESSIONS_FORMAT, month, temp, target);
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to archive " + table.tableName() + " " + month, e);
+            }
+
+            // Файл уже на диске — теперь можно удалить месяц из горячего хранилища.
+            // Если коммит не пройдёт, строки останутся в БД и при следующем запуске сольются с файлом по id.
+            if (partitioned) {
+                partitionMaintenanceService.dropPartition(table, month);
+            } else {
+                jdbcTemplate.update("DELETE FROM " + table.tableName() + " WHERE " + table.partitionColumn()
+                        + " >= ? AND " + table.partitionColumn() + " < ?", bounds(table, month));
+            }
+            // удаление мимо Hibernate: кешированные запросы по таблице сбрасываем на всех узлах после коммита
+            cacheInvalidationBus.publish(CacheInvalidation.entities(
+                    table == PartitionedTable.HABIT_LOGS ? HabitLog.class : SleepSession.class));
+            return exported;
+        });
+        log.info("Archived {} rows of {} for {} to {}", rows, table.tableName(), month, target);
+        return rows;
+    }
+
+    // В архиве статус хранится именем, как в JSON API: файлы не зависят от кодов habit_logs.status
+    private static String statusName(ResultSet rs, int column) throws SQLException {
+        short code = rs.getShort(column);
+        return rs.wasNull() ? null : HabitStatus.fromCode(code).name();
+    }
+
+    private <T> long export(PartitionedTable table, ArchiveFormat<T> format, YearMonth month,
+                            Path file, Path existing) throws IOException {
+        AtomicLong rows = new AtomicLong();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            ObjectWriter writer = objectMapper.writer();
+            if (!Files.exists(existing)) {
+                // fetch size работает только внутри транзакции (PostgreSQL отдаёт строки курсором)
+                streamingJdbcTemplate.query(format.select(), (RowCallbackHandler) rs ->
+                        write(writer, generator, format.mapper().mapRow(rs, 0), rows), bounds(table, month));
+                return rows.get();
+            }
+
+            // Месяц уже в архиве: в БД только строки, дописанные задним числом (импорт, ручной ввод),
+            // либо весь месяц после неудачного коммита прошлого запуска. Сливаем их с файлом
+            // в порядке файла; при совпадении id побеждает версия из БД.
+            List<T> fresh = jdbcTemplate.query(format.select(), format.mapper(), bounds(table, month));
+            Set<Long> freshIds = new HashSet<>();
+            fresh.forEach(row -> freshIds.add(format.id().apply(row)));
+            int next = 0;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(existing), 64 * 1024);
+                 MappingIterator<T> archived = objectMapper.readerFor(format.type()).readValues(in)) {
+                while (archived.hasNext()) {
+                    T row = archived.next();
+                    if (freshIds.contains(format.id().apply(row))) {
+                        continue;
+                    }
+                    while (next < fresh.size() && format.order().compare(fresh.get(next), row) < 0) {
+                        write(writer, generator, fresh.get(next++), rows);
+                    }
+                    write(writer, generator, row, rows);
+                }
+            }
+            while (next < fresh.size()) {
+                write(writer, generator, fresh.get(next++), rows);
+            }
+            log.info("Merged {} late rows into existing archive {}", fresh.size(), existing);
+        }
+        return rows.get();
+    }
+
+    private static void write(ObjectWriter writer, JsonGenerator generator, Object row, AtomicLong rows) {
+        try {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+            rows.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private YearMonth oldestMonth(PartitionedTable table) {
+        if (table == PartitionedTable.HABIT_LOGS) {
+            LocalDate oldest = jdbcTemplate.queryForObject("SELECT MIN(date) FROM habit_logs", LocalDate.class);
+            return oldest != null ? YearMonth.from(oldest) : null;
+        }
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(start_time) FROM sleep_sessions", Timestamp.class);
+        return oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : null;
+    }
+
+    private static Object[] bounds(PartitionedTable table, YearMonth month) {
+        if (table == PartitionedTable.HABIT_LOGS) {
+            return new Object[]{Date.valueOf(month.atDay(1)), Date.valueOf(month.plusMonths(1).atDay(1))};
+        }
+        return new Object[]{Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())};
+    }
+}
@@ -0,0 +1,13 @@
+-- habit_logs.status: VARCHAR name -> SMALLINT code (HabitStatus: 1 COMPLETED, 2 SKIPPED, 3 MISSED).
+-- Names are matched case-insensitively; NULL stays NULL.
+-- Any other value stops the migration instead of being dropped: the ELSE branch fails the cast with
+-- "unmapped habit_logs.status: <value>" in the error. Fix or delete those rows, then rerun:
+--   SELECT status, COUNT(*) FROM habit_logs
+--   WHERE UPPER(TRIM(status)) NOT IN ('COMPLETED', 'SKIPPED', 'MISSED') GROUP BY status;
+--
+-- One table rewrite under an exclusive lock; idx_habit_logs_user_date_status is rebuilt with it.
+-- Duration and size change were not measured; expect time proportional to the table size.
+
+ALTER TABLE habit_logs ALTER COLUMN status TYPE SMALLINT
+    USING (CASE UPPER(TRIM(status)) WHEN 'COMPLETED' THEN 1 WHEN 'SKIPPED' THEN 2 WHEN 'MISSED' THEN 3
+           ELSE CAST('unmapped habit_logs.status: ' || status AS SMALLINT) END);
@@ -0,0 +1,20 @@
+-- Precomputed counters (HabitCountService); key order matches the lookups.
+-- IF NOT EXISTS: databases baselined at V1 may already have them from ddl-auto=update, others are missing them.
+-- Empty tables are filled from habit_logs on startup (HabitCountService.backfillIfEmpty).
+CREATE TABLE IF NOT EXISTS habit_daily_counts (
+    user_id   BIGINT  NOT NULL,
+    date      DATE    NOT NULL,
+    completed INTEGER NOT NULL,
+    PRIMARY KEY (user_id, date)
+);
+
+CREATE TABLE IF NOT EXISTS habit_monthly_counts (
+    habit_id  BIGINT  NOT NULL,
+    period    INTEGER NOT NULL,
+    user_id   BIGINT  NOT NULL,
+    completed INTEGER NOT NULL,
+    PRIMARY KEY (habit_id, period)
+);
+
+-- HabitMonthlyCountRepository.sumCompletedByUserIdAndPeriod / findByUserIdAndPeriodBetween / deleteByUserIdFrom
+CREATE INDEX IF NOT EXISTS idx_habit_monthly_counts_user_period ON habit_monthly_counts (user_id, period);
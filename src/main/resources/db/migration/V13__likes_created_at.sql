@@ -0,0 +1,4 @@
+-- When a like was added: an unlike takes back the trending weight the like had at that moment
+-- (TrendingService). Existing likes stay NULL — their time is unknown, trending counts them at post creation.
+-- V12 is PostgreSQL-only (db/vendor/postgresql), so the shared series continues at V13.
+ALTER TABLE likes ADD COLUMN created_at TIMESTAMP(6);
@@ -0,0 +1,67 @@
+-- Baseline: schema as previously produced by ddl-auto=update.
+-- Existing databases are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(100) NOT NULL UNIQUE,
+    email    VARCHAR(150) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE habits (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    title       VARCHAR(100) NOT NULL,
+    description TEXT,
+    frequency   VARCHAR(50)
+);
+
+CREATE TABLE habit_logs (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    habit_id BIGINT NOT NULL REFERENCES habits (id),
+    date     DATE   NOT NULL,
+    status   VARCHAR(50)
+);
+
+CREATE TABLE posts (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL REFERENCES users (id),
+    title      VARCHAR(150) NOT NULL,
+    body       TEXT,
+    topic      VARCHAR(100),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE comments (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    post_id    BIGINT NOT NULL REFERENCES posts (id),
+    user_id    BIGINT NOT NULL REFERENCES users (id),
+    body       TEXT   NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE likes (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    post_id BIGINT NOT NULL REFERENCES posts (id),
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    UNIQUE (post_id, user_id)
+);
+
+CREATE TABLE tags (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(50) NOT NULL UNIQUE
+);
+
+CREATE TABLE post_tags (
+    post_id BIGINT NOT NULL REFERENCES posts (id),
+    tag_id  BIGINT NOT NULL REFERENCES tags (id),
+    PRIMARY KEY (post_id, tag_id)
+);
+
+CREATE TABLE sleep_sessions (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL REFERENCES users (id),
+    start_time TIMESTAMP(6) NOT NULL,
+    end_time   TIMESTAMP(6)
+);
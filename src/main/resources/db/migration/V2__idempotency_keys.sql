@@ -0,0 +1,12 @@
+-- Idempotency-Key store (IdempotencyFilter). IF NOT EXISTS: databases baselined at V1
+-- may already have it from ddl-auto=update, others are missing it.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(320) NOT NULL PRIMARY KEY,
+    fingerprint     VARCHAR(512) NOT NULL,
+    status          INTEGER      NOT NULL,
+    content_type    VARCHAR(255),
+    body            BYTEA,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
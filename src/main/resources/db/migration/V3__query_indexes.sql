@@ -0,0 +1,28 @@
+-- Indexes for the lookups the repositories actually run; without them these queries scan the whole table.
+-- IF NOT EXISTS: databases baselined from ddl-auto may already carry some of them.
+
+-- HabitLogService.createOrUpdate / deleteByHabitIdAndDate: one log per habit and day.
+-- Keep the newest row of any duplicates written before the constraint existed.
+DELETE FROM habit_logs
+WHERE id NOT IN (SELECT MAX(id) FROM habit_logs GROUP BY habit_id, date);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_habit_logs_habit_date ON habit_logs (habit_id, date);
+
+-- HabitRepository.findByUserId / countByUserId, habit_logs -> habits joins by user
+CREATE INDEX IF NOT EXISTS idx_habits_user_id ON habits (user_id);
+
+-- Feed, PostRepository.findAllByOrderByCreatedAtDesc; id breaks ties between equal timestamps
+CREATE INDEX IF NOT EXISTS idx_posts_created_at_id ON posts (created_at, id);
+-- Profile feed, PostRepository.findByUserIdOrderByCreatedAtDesc / streamByUserId
+CREATE INDEX IF NOT EXISTS idx_posts_user_created_at ON posts (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_posts_topic ON posts (topic);
+
+-- CommentRepository.findByPostIdOrderByCreatedAtDesc / countByPostId
+CREATE INDEX IF NOT EXISTS idx_comments_post_created_at ON comments (post_id, created_at);
+-- CommentRepository.findByUserId / streamByUserId
+CREATE INDEX IF NOT EXISTS idx_comments_user_created_at ON comments (user_id, created_at);
+
+-- Foreign key side of post_tags(post_id, tag_id): posts by tag
+CREATE INDEX IF NOT EXISTS idx_post_tags_tag_id ON post_tags (tag_id);
+
+-- SleepSessionRepository.findOverlappingRange / findByUserIdOrderByStartTimeDesc, SleepIntervalIndex loads
+CREATE INDEX IF NOT EXISTS idx_sleep_sessions_user_start ON sleep_sessions (user_id, start_time);
@@ -0,0 +1,18 @@
+-- habit_logs.user_id: copy of habits.user_id so per-user month queries and counts need no join.
+-- HabitLog keeps it in sync on write (a habit never changes owner).
+--
+-- Large tables: the backfill only touches rows where user_id IS NULL, so it can be run ahead of
+-- the deploy in chunks (e.g. by id range) and this migration then only finishes the remainder.
+
+ALTER TABLE habit_logs ADD COLUMN IF NOT EXISTS user_id BIGINT;
+
+UPDATE habit_logs
+SET user_id = (SELECT h.user_id FROM habits h WHERE h.id = habit_logs.habit_id)
+WHERE user_id IS NULL;
+
+ALTER TABLE habit_logs ALTER COLUMN user_id SET NOT NULL;
+
+-- Covers every column of habit_logs: the month query (HabitLogRepository.findByHabitUserIdAndDateBetween),
+-- the completed count, MIN(date) and the counter rebuilds are index-only scans on the user's date range.
+-- id goes last so entity loads are covered too.
+CREATE INDEX IF NOT EXISTS idx_habit_logs_user_date_status ON habit_logs (user_id, date, status, habit_id, id);
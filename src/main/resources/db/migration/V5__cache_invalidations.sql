@@ -0,0 +1,11 @@
+-- Cluster-wide cache invalidations (JdbcInvalidationTransport): each node inserts what it changed
+-- and polls rows written by the others. Rows older than app.cache-invalidation.retention are deleted.
+CREATE TABLE cache_invalidations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    node_id    VARCHAR(64)  NOT NULL,
+    region     VARCHAR(255) NOT NULL,
+    cache_key  VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+CREATE INDEX idx_cache_invalidations_created_at ON cache_invalidations (created_at);
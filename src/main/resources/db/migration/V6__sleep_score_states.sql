@@ -0,0 +1,16 @@
+-- Per-user sleep score state (SleepScoreEngine): rolling aggregates updated as sessions close.
+-- Derived data: a missing or stale row is rebuilt from sleep_sessions.
+CREATE TABLE sleep_score_states (
+    user_id         BIGINT           NOT NULL PRIMARY KEY,
+    sessions        INTEGER          NOT NULL,
+    last_end        TIMESTAMP(6),
+    last_main_start TIMESTAMP(6),
+    last_main_end   TIMESTAMP(6),
+    debt_hours      DOUBLE PRECISION NOT NULL,
+    duration_short  DOUBLE PRECISION NOT NULL,
+    duration_long   DOUBLE PRECISION NOT NULL,
+    bedtime_sin     DOUBLE PRECISION NOT NULL,
+    bedtime_cos     DOUBLE PRECISION NOT NULL,
+    regularity      DOUBLE PRECISION,
+    updated_at      TIMESTAMP(6)     NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Nightly sleep/habit correlation per user (SleepCorrelationJob), one row per user with enough data.
+-- Derived data: every run rewrites it for the whole user id range.
+CREATE TABLE sleep_habit_correlations (
+    user_id          BIGINT           NOT NULL PRIMARY KEY,
+    window_days      INTEGER          NOT NULL,
+    paired_days      INTEGER          NOT NULL,
+    correlation      DOUBLE PRECISION,
+    threshold_hours  DOUBLE PRECISION NOT NULL,
+    well_rested_days INTEGER          NOT NULL,
+    well_rested_avg  DOUBLE PRECISION,
+    short_days       INTEGER          NOT NULL,
+    short_avg        DOUBLE PRECISION,
+    lift_percent     DOUBLE PRECISION,
+    computed_at      TIMESTAMP(6)     NOT NULL
+);
@@ -0,0 +1,21 @@
+-- Batch recompute of derived data (RecomputeRunner): one run per task, the user id space split into ranges.
+-- A range's position is the last user id whose chunk committed; an interrupted run resumes from there.
+CREATE TABLE recompute_runs (
+    task         VARCHAR(100)  NOT NULL PRIMARY KEY,
+    status       VARCHAR(20)   NOT NULL,
+    owner        VARCHAR(100)  NOT NULL,
+    heartbeat_at TIMESTAMP(6)  NOT NULL,
+    started_at   TIMESTAMP(6)  NOT NULL,
+    finished_at  TIMESTAMP(6),
+    error        VARCHAR(1000)
+);
+
+CREATE TABLE recompute_ranges (
+    task        VARCHAR(100) NOT NULL,
+    range_start BIGINT       NOT NULL,
+    range_end   BIGINT       NOT NULL,
+    position    BIGINT       NOT NULL,
+    users       BIGINT       NOT NULL DEFAULT 0,
+    done        BOOLEAN      NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (task, range_start)
+);
@@ -0,0 +1,6 @@
+-- Habit start date: completion rates and streaks (HabitSchedule) don't expect occurrences before it.
+-- Existing habits start at their first log (uses ux_habit_logs_habit_date), or today if never logged.
+ALTER TABLE habits ADD COLUMN created_at DATE;
+UPDATE habits SET created_at = COALESCE(
+    (SELECT MIN(hl.date) FROM habit_logs hl WHERE hl.habit_id = habits.id), CURRENT_DATE);
+ALTER TABLE habits ALTER COLUMN created_at SET NOT NULL;
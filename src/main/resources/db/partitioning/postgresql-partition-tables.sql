@@ -0,0 +1,82 @@
+-- One-off conversion of habit_logs and sleep_sessions to monthly RANGE partitions (PostgreSQL 12+).
+-- Run during a maintenance window, after the Flyway migrations (db/migration) have been applied:
+--   psql "$JDBC_DATABASE_URL" -f postgresql-partition-tables.sql
+-- After this, PartitionMaintenanceService keeps creating future partitions and
+-- RetentionArchiver drops whole partitions once they are archived.
+
+BEGIN;
+
+-- habit_logs: partition key "date" must be part of the primary key
+ALTER TABLE habit_logs RENAME TO habit_logs_unpartitioned;
+
+CREATE TABLE habit_logs (
+    id       BIGSERIAL,
+    habit_id BIGINT NOT NULL REFERENCES habits (id),
+    user_id  BIGINT NOT NULL,
+    date     DATE   NOT NULL,
+    status   SMALLINT,
+    PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
+
+-- sleep_sessions: partitioned on start_time
+ALTER TABLE sleep_sessions RENAME TO sleep_sessions_unpartitioned;
+
+CREATE TABLE sleep_sessions (
+    id             BIGSERIAL,
+    user_id        BIGINT    NOT NULL REFERENCES users (id),
+    start_time     TIMESTAMP NOT NULL,
+    end_time       TIMESTAMP,
+    overlap_exempt BOOLEAN   NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id, start_time)
+) PARTITION BY RANGE (start_time);
+
+-- One partition per month from the oldest row up to three months ahead
+DO $$
+DECLARE
+    first_month DATE;
+    month       DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(date), CURRENT_DATE))::date INTO first_month FROM habit_logs_unpartitioned;
+    month := first_month;
+    WHILE month <= date_trunc('month', CURRENT_DATE + INTERVAL '3 months') LOOP
+        EXECUTE format('CREATE TABLE habit_logs_p%s PARTITION OF habit_logs FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, (month + INTERVAL '1 month')::date);
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+
+    SELECT date_trunc('month', COALESCE(MIN(start_time), CURRENT_TIMESTAMP))::date INTO first_month FROM sleep_sessions_unpartitioned;
+    month := first_month;
+    WHILE month <= date_trunc('month', CURRENT_DATE + INTERVAL '3 months') LOOP
+        EXECUTE format('CREATE TABLE sleep_sessions_p%s PARTITION OF sleep_sessions FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYYMM'), month, (month + INTERVAL '1 month')::date);
+        -- V12 per partition: PostgreSQL 16 has no exclusion constraints on the partitioned table itself
+        EXECUTE format('ALTER TABLE sleep_sessions_p%1$s ADD CONSTRAINT sleep_sessions_p%1$s_no_overlap EXCLUDE USING gist '
+                       '(user_id WITH =, tsrange(start_time, end_time) WITH &&) WHERE (NOT overlap_exempt)',
+                       to_char(month, 'YYYYMM'));
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Safety net for rows outside the pre-created range
+CREATE TABLE habit_logs_default PARTITION OF habit_logs DEFAULT;
+CREATE TABLE sleep_sessions_default PARTITION OF sleep_sessions DEFAULT;
+ALTER TABLE sleep_sessions_default ADD CONSTRAINT sleep_sessions_default_no_overlap EXCLUDE USING gist
+    (user_id WITH =, tsrange(start_time, end_time) WITH &&) WHERE (NOT overlap_exempt);
+
+INSERT INTO habit_logs (id, habit_id, user_id, date, status)
+SELECT id, habit_id, user_id, date, status FROM habit_logs_unpartitioned;
+SELECT setval(pg_get_serial_sequence('habit_logs', 'id'), COALESCE((SELECT MAX(id) FROM habit_logs), 0) + 1, false);
+
+INSERT INTO sleep_sessions (id, user_id, start_time, end_time, overlap_exempt)
+SELECT id, user_id, start_time, end_time, overlap_exempt FROM sleep_sessions_unpartitioned;
+SELECT setval(pg_get_serial_sequence('sleep_sessions', 'id'), COALESCE((SELECT MAX(id) FROM sleep_sessions), 0) + 1, false);
+
+DROP TABLE habit_logs_unpartitioned;
+DROP TABLE sleep_sessions_unpartitioned;
+
+-- Indexes from V3/V4 went away with the old tables; the unique one includes the partition key
+CREATE UNIQUE INDEX ux_habit_logs_habit_date ON habit_logs (habit_id, date);
+CREATE INDEX idx_habit_logs_user_date_status ON habit_logs (user_id, date, status, habit_id, id);
+CREATE INDEX idx_sleep_sessions_user_start ON sleep_sessions (user_id, start_time);
+
+COMMIT;
@@ -93,7 +93,11 @@ const apiService = {
     async request(endpoint, options = {}) {
         try {
             const response = await fetch(`${API_BASE_URL}${endpoint}`, {
-                headers: { 'Content-Type': 'application/json', ...options.headers },
+                headers: {
+                    'Content-Type': 'application/json',
+                    ...(currentUser && currentUser.id ? { 'X-User-Id': String(currentUser.id) } : {}),
+                    ...options.headers
+                },
                 ...options
             });
 
@@ -143,6 +147,11 @@ const apiService = {
 
     getUserStats() {
         return this.request(`/users/${currentUser.id}/stats`);
+    },
+
+    // full-year heatmap, weekly trend and per-habit rates in one call
+    getYearAnalytics(year) {
+        return this.request(`/analytics/users/${currentUser.id}/year?year=${year}`);
     }
 };
 
@@ -251,7 +260,14 @@ function computeFallbackStats() {
 
 async function loadUserStats() {
     try {
-        const stats = await apiService.getUserStats();
+        const [stats, yearly] = await Promise.all([
+            apiService.getUserStats(),
+            apiService.getYearAnalytics(new Date().getFullYear()).catch(() => null)
+        ]);
+        if (stats && yearly) {
+            stats.bestStreak = yearly.bestStreak;
+            if (!stats.currentStreak) stats.currentStreak = yearly.currentStreak;
+        }
         updateStatsDisplay(stats);
     } catch (e) {
         console.error('Failed to load user stats', e);
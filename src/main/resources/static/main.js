@@ -14,17 +14,38 @@ if (!currentUser) {
     window.location.href = '/login.html';
 }
 
+// Ключ для Idempotency-Key; randomUUID есть только в защищённом контексте (https, localhost)
+function newIdempotencyKey() {
+    if (window.crypto && typeof window.crypto.randomUUID === 'function') {
+        return window.crypto.randomUUID();
+    }
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}${Math.random().toString(36).slice(2)}`;
+}
+
 // API Service
 const apiService = {
     async request(endpoint, options = {}) {
         try {
-            const response = await fetch(`${API_BASE_URL}${endpoint}`, {
-                headers: {
-                    'Content-Type': 'application/json',
-                    ...options.headers,
-                },
-                ...options
-            });
+            const headers = {
+                'Content-Type': 'application/json',
+                ...(currentUser && currentUser.id ? { 'X-User-Id': String(currentUser.id) } : {}),
+                ...options.headers,
+            };
+            // POST повторяем один раз при обрыве сети с тем же ключом — сервер не выполнит запись дважды
+            const isPost = (options.method || 'GET').toUpperCase() === 'POST';
+            if (isPost && !headers['Idempotency-Key']) {
+                headers['Idempotency-Key'] = newIdempotencyKey();
+            }
+            const send = () => fetch(`${API_BASE_URL}${endpoint}`, { ...options, headers });
+            let response;
+            try {
+                response = await send();
+            } catch (networkError) {
+                if (!isPost) {
+                    throw networkError;
+                }
+                response = await send();
+            }
 
             if (!response.ok) {
                 throw new Error(`HTTP error! status: ${response.status}`);
@@ -803,6 +824,67 @@ async function addNewPost() {
     }
 }
 
+// Live feed updates over Server-Sent Events instead of refetching posts and stats.
+// Own actions are already applied locally, so events from the current user are skipped.
+let feedStream = null;
+let newPostsCount = 0;
+
+function connectFeedStream() {
+    if (feedStream || !window.EventSource) return;
+
+    // EventSource reconnects by itself after errors or server-side eviction
+    feedStream = new EventSource(`${API_BASE_URL}/stream`);
+
+    feedStream.addEventListener('like', event => {
+        const data = JSON.parse(event.data);
+        if (data.userId === currentUser.id) return;
+        const stats = postStats[data.postId];
+        if (!stats) return;
+        stats.likeCount = Math.max(0, stats.likeCount + data.delta);
+        const likeCount = document.querySelector(`.post-card[data-post-id="${data.postId}"] .like-count`);
+        if (likeCount) likeCount.textContent = stats.likeCount;
+    });
+
+    feedStream.addEventListener('comment', event => {
+        const data = JSON.parse(event.data);
+        if (data.userId === currentUser.id) return;
+        const stats = postStats[data.postId];
+        if (!stats) return;
+        stats.commentCount += 1;
+        const commentCount = document.querySelector(`.post-card[data-post-id="${data.postId}"] .comment-count`);
+        if (commentCount) commentCount.textContent = stats.commentCount;
+        const commentsSection = document.getElementById(`comments-${data.postId}`);
+        if (commentsSection && commentsSection.style.display !== 'none') {
+            loadComments(data.postId);
+        }
+    });
+
+    feedStream.addEventListener('post', event => {
+        const data = JSON.parse(event.data);
+        if (data.userId === currentUser.id) return;
+        newPostsCount += 1;
+        const banner = document.getElementById('newPostsBanner');
+        if (banner) {
+            banner.textContent = `${newPostsCount} new post${newPostsCount > 1 ? 's' : ''} - click to show`;
+            banner.style.display = 'block';
+        }
+    });
+
+    feedStream.addEventListener('post-deleted', event => {
+        const data = JSON.parse(event.data);
+        posts = posts.filter(post => post.id !== data.postId);
+        delete postStats[data.postId];
+        const card = document.querySelector(`.post-card[data-post-id="${data.postId}"]`);
+        if (card) card.remove();
+    });
+}
+
+function showNewPosts() {
+    newPostsCount = 0;
+    document.getElementById('newPostsBanner').style.display = 'none';
+    loadPosts();
+}
+
 // Update showPage function to load posts when community page is shown
 const originalShowPage = window.showPage;
 window.showPage = function(page) {
@@ -810,6 +892,7 @@ window.showPage = function(page) {
 
     if (page === 'posts') {
         loadPosts();
+        connectFeedStream();
     }
 };
 
@@ -819,3 +902,4 @@ window.toggleComments = toggleComments;
 window.addComment = addComment;
 window.handleCommentKeypress = handleCommentKeypress;
 window.addNewPost = addNewPost;
+window.showNewPosts = showNewPosts;
@@ -0,0 +1,52 @@
+package com.helthtracer.batch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolThrottleTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PoolThrottle throttle = new PoolThrottle(meterRegistry, 0.75);
+
+    @Test
+    void busiestPoolDecides() {
+        AtomicInteger writeActive = pool("write", 8);
+        AtomicInteger readActive = pool("read", 4);
+        assertFalse(throttle.saturated());
+
+        writeActive.set(5);
+        assertEquals(0.625, throttle.usage());
+        assertFalse(throttle.saturated());
+
+        readActive.set(3);
+        assertTrue(throttle.saturated());
+    }
+
+    @Test
+    void waitingThreadsSaturateThePool() {
+        pool("write", 8);
+        AtomicInteger pending = new AtomicInteger(1);
+        Gauge.builder("hikaricp.connections.pending", pending, AtomicInteger::get).tag("pool", "write")
+                .register(meterRegistry);
+        assertTrue(throttle.saturated());
+    }
+
+    @Test
+    void noPoolsNoThrottling() {
+        assertFalse(throttle.saturated());
+    }
+
+    private AtomicInteger pool(String name, int max) {
+        AtomicInteger active = new AtomicInteger();
+        Gauge.builder("hikaricp.connections.active", active, AtomicInteger::get).tag("pool", name)
+                .register(meterRegistry);
+        Gauge.builder("hikaricp.connections.max", () -> max).tag("pool", name).register(meterRegistry);
+        return active;
+    }
+}
@@ -0,0 +1,146 @@
+package com.helthtracer.batch;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecomputeRunnerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecomputeRunner recomputeRunner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        // логи пишутся мимо HabitLogService — счётчиков нет, их и должен восстановить пересчёт
+        for (int i = 0; i < 5; i++) {
+            User user = userRepository.save(new User("batch-" + i, "batch-" + i + "@example.com", "password"));
+            Habit habit = habitRepository.save(new Habit(user, "Walk", "10k steps", "DAILY"));
+            habitLogRepository.save(new HabitLog(habit, DAY, HabitStatus.COMPLETED));
+            habitLogRepository.save(new HabitLog(habit, DAY.plusDays(1), HabitStatus.COMPLETED));
+            users.add(user);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM recompute_ranges");
+        jdbcTemplate.update("DELETE FROM recompute_runs");
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+        users.clear();
+    }
+
+    @Test
+    void runRebuildsEveryUserAndCheckpointsRanges() throws Exception {
+        mockMvc.perform(post("/api/recompute/habit-counts")).andExpect(status().isAccepted());
+        mockMvc.perform(post("/api/recompute/no-such-task")).andExpect(status().isNotFound());
+
+        RecomputeRunner.RunStatus run = awaitDone("habit-counts");
+        assertEquals(5, run.users());
+        assertEquals(run.ranges(), run.rangesDone());
+        for (User user : users) {
+            assertEquals(2, completedCount(user));
+        }
+    }
+
+    @Test
+    void abandonedRunResumesFromLastCheckpoint() throws Exception {
+        recomputeRunner.start("habit-counts", false);
+        awaitDone("habit-counts");
+
+        // Узел упал, успев пройти первых трёх пользователей: счётчики остальных потеряны,
+        // их диапазоны не закрыты, heartbeat давно не продлевался
+        long resumeFrom = users.get(3).getId();
+        habitDailyCountRepository.deleteAll();
+        jdbcTemplate.update("""
+                UPDATE recompute_ranges SET done = FALSE, users = 0,
+                    position = CASE WHEN range_start < ? THEN ? ELSE range_start - 1 END
+                WHERE range_end > ?
+                """, resumeFrom, resumeFrom - 1, resumeFrom);
+        jdbcTemplate.update("UPDATE recompute_runs SET status = 'RUNNING', finished_at = NULL, heartbeat_at = ?",
+                LocalDateTime.now().minusHours(1));
+
+        recomputeRunner.resumeAbandoned();
+
+        RecomputeRunner.RunStatus run = awaitDone("habit-counts");
+        assertEquals(5, run.users());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(i < 3 ? 0 : 2, completedCount(users.get(i)), "user " + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> recomputeRunner.start("no-such-task", false));
+    }
+
+    private int completedCount(User user) {
+        return habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(user.getId(), DAY, DAY.plusDays(1))
+                .stream().mapToInt(count -> count.getCompleted()).sum();
+    }
+
+    private RecomputeRunner.RunStatus awaitDone(String task) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            RecomputeRunner.RunStatus run = recomputeRunner.status(task).orElseThrow();
+            if (!RecomputeRunner.RUNNING.equals(run.status())) {
+                assertEquals(RecomputeRunner.DONE, run.status(), run.error());
+                return run;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Recompute of " + task + " did not finish");
+    }
+}
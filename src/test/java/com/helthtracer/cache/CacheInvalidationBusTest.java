@@ -0,0 +1,117 @@
+package com.helthtracer.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Два «узла» на общем LocalInvalidationTransport; flush/poll вызываются вручную вместо потока шины
+class CacheInvalidationBusTest {
+
+    private final LocalInvalidationTransport transport = new LocalInvalidationTransport();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingListener firstListener = new RecordingListener();
+    private final RecordingListener secondListener = new RecordingListener();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishedInvalidationReachesEveryNode() {
+        CacheInvalidationBus first = bus(firstListener, 100);
+        CacheInvalidationBus second = bus(secondListener, 100);
+        second.poll();
+
+        first.publish(CacheInvalidation.key("users", 42));
+
+        // свой узел — сразу, другой — после отправки и опроса
+        assertEquals(List.of(CacheInvalidation.key("users", 42)), firstListener.received);
+        assertTrue(secondListener.received.isEmpty());
+        first.flush();
+        second.poll();
+        assertEquals(List.of(CacheInvalidation.key("users", 42)), secondListener.received);
+
+        // отправитель свои инвалидации из транспорта не получает
+        first.poll();
+        assertEquals(1, firstListener.received.size());
+        assertEquals(1, meterRegistry.get("cache.invalidation.lag").tag("stage", "delivered").timer().count());
+    }
+
+    @Test
+    void duplicatesWithinFlushWindowAreSentOnce() {
+        CacheInvalidationBus first = bus(firstListener, 100);
+        CacheInvalidationBus second = bus(secondListener, 100);
+        second.poll();
+
+        for (int i = 0; i < 10; i++) {
+            first.publishToOtherNodes(CacheInvalidation.region("feed"));
+        }
+        first.publishToOtherNodes(CacheInvalidation.key("users", 1));
+        first.flush();
+        second.poll();
+
+        assertTrue(firstListener.received.isEmpty());
+        assertEquals(2, secondListener.received.size());
+        assertEquals(2, meterRegistry.get("cache.invalidation.sent").counter().count());
+    }
+
+    @Test
+    void publishInsideTransactionWaitsForCommit() {
+        CacheInvalidationBus first = bus(firstListener, 100);
+        TransactionSynchronizationManager.initSynchronization();
+
+        first.publish(CacheInvalidation.key("habits", 7));
+        first.flush();
+        assertTrue(firstListener.received.isEmpty());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertEquals(List.of(CacheInvalidation.key("habits", 7)), firstListener.received);
+    }
+
+    @Test
+    void overflowingQueueCollapsesIntoFullEviction() {
+        CacheInvalidationBus first = bus(firstListener, 5);
+        CacheInvalidationBus second = bus(secondListener, 5);
+        second.poll();
+
+        for (int i = 0; i < 20; i++) {
+            first.publishToOtherNodes(CacheInvalidation.key("users", i));
+        }
+        first.flush();
+        second.poll();
+
+        assertTrue(secondListener.received.contains(CacheInvalidation.all()));
+        assertTrue(secondListener.received.size() <= 5);
+        assertTrue(meterRegistry.get("cache.invalidation.overflows").counter().count() > 0);
+    }
+
+    private CacheInvalidationBus bus(CacheInvalidationListener listener, int maxPending) {
+        CacheInvalidationProperties properties = new CacheInvalidationProperties(true, "local",
+                Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1), 100, maxPending, null, null);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("listener", listener));
+        return new CacheInvalidationBus(properties, transport,
+                beanFactory.getBeanProvider(CacheInvalidationListener.class), meterRegistry);
+    }
+
+    private static class RecordingListener implements CacheInvalidationListener {
+        final List<CacheInvalidation> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onInvalidations(List<CacheInvalidation> invalidations) {
+            received.addAll(invalidations);
+        }
+    }
+}
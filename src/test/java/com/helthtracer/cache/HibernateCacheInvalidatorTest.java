@@ -0,0 +1,92 @@
+package com.helthtracer.cache;
+
+import com.helthtracer.model.User;
+import com.helthtracer.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Запись «другого узла» идёт через JdbcTemplate мимо Hibernate: без инвалидации этот узел
+// продолжает отдавать закешированные сущность и результат запроса.
+@SpringBootTest
+@ActiveProfiles("test")
+class HibernateCacheInvalidatorTest {
+
+    private static final String OTHER_NODE = "other-node";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private HibernateCacheInvalidator invalidator;
+
+    @Autowired
+    private CacheInvalidationBus bus;
+
+    @Autowired
+    private LocalInvalidationTransport transport;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("node-a", "node-a@example.com", "password"));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void remoteInvalidationEvictsEntityAndCachedQueries() {
+        assertEquals("node-a@example.com", userRepository.findById(user.getId()).orElseThrow().getEmail());
+        assertTrue(userRepository.findByUsername("node-a").isPresent());
+
+        jdbcTemplate.update("UPDATE users SET username = 'node-b', email = 'node-b@example.com' WHERE id = ?",
+                user.getId());
+        assertEquals("node-a@example.com", userRepository.findById(user.getId()).orElseThrow().getEmail());
+        assertTrue(userRepository.findByUsername("node-a").isPresent());
+
+        invalidator.onInvalidations(List.of(CacheInvalidation.entity(User.class, user.getId())));
+
+        assertEquals("node-b@example.com", userRepository.findById(user.getId()).orElseThrow().getEmail());
+        assertTrue(userRepository.findByUsername("node-a").isEmpty());
+    }
+
+    @Test
+    void committedEntityChangesArePublishedToOtherNodes() throws InterruptedException {
+        List<CacheInvalidation> received = new CopyOnWriteArrayList<>();
+        transport.poll(OTHER_NODE, (invalidations, lag) -> received.addAll(invalidations));
+
+        user.setEmail("changed@example.com");
+        userRepository.save(user);
+
+        CacheInvalidation expected = CacheInvalidation.entity(User.class, user.getId());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!received.contains(expected) && System.currentTimeMillis() < deadline) {
+            bus.flush();
+            transport.poll(OTHER_NODE, (invalidations, lag) -> received.addAll(invalidations));
+            Thread.sleep(20);
+        }
+        assertTrue(received.contains(expected), () -> "received " + received);
+    }
+}
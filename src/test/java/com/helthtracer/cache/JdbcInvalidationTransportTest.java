@@ -0,0 +1,67 @@
+package com.helthtracer.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Два узла на одной таблице cache_invalidations
+@SpringBootTest
+@ActiveProfiles("test")
+class JdbcInvalidationTransportTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcInvalidationTransport first;
+    private JdbcInvalidationTransport second;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        CacheInvalidationProperties properties = new CacheInvalidationProperties(true, "jdbc",
+                null, null, null, 0, 0, Duration.ofSeconds(5), Duration.ofMinutes(10));
+        first = new JdbcInvalidationTransport(jdbcTemplate, properties);
+        second = new JdbcInvalidationTransport(jdbcTemplate, properties);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cache_invalidations");
+    }
+
+    @Test
+    void otherNodeReceivesEachInvalidationOnce() {
+        // первый опрос только запоминает позицию: история до старта узла не нужна
+        jdbcTemplate.update("INSERT INTO cache_invalidations (node_id, region, cache_key) VALUES ('a', 'old', NULL)");
+        assertTrue(poll(second, "b").isEmpty());
+
+        first.send("a", List.of(CacheInvalidation.key("users", 1), CacheInvalidation.region("tags")));
+
+        List<CacheInvalidation> received = poll(second, "b");
+        assertEquals(List.of(CacheInvalidation.key("users", 1), CacheInvalidation.region("tags")), received);
+        // строки из окна lookback перечитываются, но второй раз не доставляются
+        assertTrue(poll(second, "b").isEmpty());
+
+        poll(first, "a");
+        assertTrue(poll(first, "a").isEmpty(), "own invalidations are not delivered back");
+    }
+
+    private static List<CacheInvalidation> poll(JdbcInvalidationTransport transport, String nodeId) {
+        List<CacheInvalidation> received = new ArrayList<>();
+        transport.poll(nodeId, (invalidations, lag) -> {
+            assertFalse(lag.isNegative());
+            received.addAll(invalidations);
+        });
+        return received;
+    }
+}
@@ -0,0 +1,56 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// лимит закреплён на 2, чтобы фоновые замеры задержки его не двигали
+@SpringBootTest(properties = {
+        "app.concurrency-limit.enabled=true",
+        "app.concurrency-limit.initial-limit=2",
+        "app.concurrency-limit.min-limit=2",
+        "app.concurrency-limit.max-limit=2",
+        "app.concurrency-limit.retry-after=3s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConcurrencyLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @Test
+    void feedIsShedBeforeNormalRequestsAndCheckInsStillPass() throws Exception {
+        // один запрос уже в работе: половина лимита занята — лента отсекается, обычные запросы проходят
+        limiter.tryAcquire(ConcurrencyLimiter.Priority.NORMAL);
+        try {
+            mockMvc.perform(get("/api/posts/trending"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "3"))
+                    .andExpect(jsonPath("$.success").value(false));
+            mockMvc.perform(get("/api/habits/user/1")).andExpect(status().is(not(503)));
+
+            limiter.tryAcquire(ConcurrencyLimiter.Priority.NORMAL);
+            try {
+                mockMvc.perform(get("/api/habits/user/1")).andExpect(status().isServiceUnavailable());
+                mockMvc.perform(delete("/api/habit-logs")).andExpect(status().is(not(503)));
+            } finally {
+                limiter.release();
+            }
+        } finally {
+            limiter.release();
+        }
+        mockMvc.perform(get("/api/posts/trending")).andExpect(status().is(not(503)));
+    }
+}
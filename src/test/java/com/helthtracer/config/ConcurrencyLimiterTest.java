@@ -0,0 +1,71 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 4, 12, THRESHOLD, 0.5, 0.5, now::get);
+
+    @Test
+    void lowPriorityIsShedFirstAndCriticalAlwaysPasses() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.LOW));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.NORMAL));
+        assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL));
+        assertEquals(11, limiter.inFlight());
+
+        limiter.release();
+        limiter.release();
+        assertTrue(limiter.tryAcquire(ConcurrencyLimiter.Priority.NORMAL));
+        assertFalse(limiter.tryAcquire(ConcurrencyLimiter.Priority.LOW));
+    }
+
+    @Test
+    void slowSamplesBackOffOncePerWindowAndFastSamplesUnderLoadGrow() {
+        limiter.onSample(THRESHOLD * 3, false);
+        assertEquals(5, limiter.limit());
+        // тот же всплеск медленных ответов не снижает лимит повторно
+        limiter.onSample(THRESHOLD * 3, false);
+        assertEquals(5, limiter.limit());
+
+        now.addAndGet(THRESHOLD);
+        limiter.onSample(FAST, true);
+        assertEquals(4, limiter.limit());
+        now.addAndGet(THRESHOLD);
+        limiter.onSample(THRESHOLD * 3, false);
+        assertEquals(4, limiter.limit());
+
+        // без нагрузки лимит не растёт, под нагрузкой — по единице до max
+        limiter.onSample(FAST, false);
+        assertEquals(4, limiter.limit());
+        for (int i = 0; i < 2; i++) {
+            limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL);
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(FAST, false);
+        }
+        // растёт, только пока занята хотя бы половина лимита
+        assertEquals(5, limiter.limit());
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire(ConcurrencyLimiter.Priority.CRITICAL);
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(FAST, false);
+        }
+        assertEquals(12, limiter.limit());
+    }
+}
@@ -0,0 +1,24 @@
+package com.helthtracer.config;
+
+import com.helthtracer.cache.HibernateCacheInvalidator;
+import com.helthtracer.controller.PostController;
+import com.helthtracer.service.LeaderboardService;
+import com.helthtracer.service.SseBroadcaster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastStartupConfigTest {
+
+    @Test
+    void backgroundBeansAreExcludedFromLazyInitialization() {
+        // @Scheduled + @EventListener(ApplicationReadyEvent)
+        assertTrue(FastStartupConfig.isBackgroundBean(LeaderboardService.class));
+        // потребитель доменных событий
+        assertTrue(FastStartupConfig.isBackgroundBean(SseBroadcaster.class));
+        assertTrue(FastStartupConfig.isBackgroundBean(StartupWarmup.class));
+        // владелец кеша: подключается к событиям Hibernate в @PostConstruct
+        assertTrue(FastStartupConfig.isBackgroundBean(HibernateCacheInvalidator.class));
+        assertFalse(FastStartupConfig.isBackgroundBean(PostController.class));
+    }
+}
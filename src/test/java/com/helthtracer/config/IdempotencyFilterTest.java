@@ -0,0 +1,176 @@
+package com.helthtracer.config;
+
+import com.helthtracer.model.IdempotencyRecord;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.IdempotencyRecordRepository;
+import com.helthtracer.repository.PostRepository;
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("retrier", "retrier@example.com", "password"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        idempotencyRecordRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void retriedAndConcurrentPostsAreWrittenOnce() throws Exception {
+        String first = createPost("key-1").andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+        createPost("key-1").andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().string(first));
+        assertEquals(1, postRepository.count());
+        assertTrue(idempotencyRecordRepository.existsById("user:" + user.getId() + "|key-1"));
+
+        // одновременные дубли ждут первый запрос и получают его ответ
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<MvcResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Callable<MvcResult> call = () -> createPost("key-2").andReturn();
+                results.add(pool.submit(call));
+            }
+            String body = null;
+            for (Future<MvcResult> result : results) {
+                MvcResult mvcResult = result.get();
+                assertEquals(200, mvcResult.getResponse().getStatus());
+                String current = mvcResult.getResponse().getContentAsString();
+                assertTrue(body == null || body.equals(current));
+                body = current;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, postRepository.count());
+
+        // тот же ключ на другой путь — ошибка клиента, а не чужой ответ
+        mockMvc.perform(post("/api/comments")
+                        .header(RequestUserFilter.USER_HEADER, user.getId().toString())
+                        .header(IdempotencyFilter.KEY_HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void persistedKeysAreReplayedAfterRestart() throws Exception {
+        idempotencyRecordRepository.save(new IdempotencyRecord("user:" + user.getId() + "|key-3", postFingerprint(),
+                200, MediaType.APPLICATION_JSON_VALUE, "{\"success\":true}".getBytes(StandardCharsets.UTF_8),
+                LocalDateTime.now()));
+
+        createPost("key-3").andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.success").value(true));
+        assertEquals(0, postRepository.count());
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        createPost("key-4").andExpect(status().isOk());
+        createPost("key-4", postBody(user.getId(), "Other title")).andExpect(status().isUnprocessableEntity());
+        assertEquals(1, postRepository.count());
+    }
+
+    @Test
+    void rejectedRequestsReleaseTheKey() throws Exception {
+        String body = postBody(user.getId() + 1000, "Hi");
+        createPost("key-5", body).andExpect(status().isBadRequest());
+        assertFalse(idempotencyRecordRepository.existsById("user:" + user.getId() + "|key-5"));
+
+        createPost("key-5", body).andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keyClaimedByAnotherNodeIsConflictUntilTheClaimTimesOut() throws Exception {
+        String storeKey = "user:" + user.getId() + "|key-6";
+        idempotencyRecordRepository.save(new IdempotencyRecord(storeKey, postFingerprint(),
+                IdempotencyRecord.IN_PROGRESS, null, null, LocalDateTime.now()));
+        createPost("key-6").andExpect(status().isConflict());
+        assertEquals(0, postRepository.count());
+
+        // владелец заявки упал: после claim-timeout её перехватывает следующий повтор
+        idempotencyRecordRepository.deleteAll();
+        idempotencyRecordRepository.save(new IdempotencyRecord(storeKey, postFingerprint(),
+                IdempotencyRecord.IN_PROGRESS, null, null, LocalDateTime.now().minusHours(1)));
+        createPost("key-6").andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, postRepository.count());
+        assertEquals(200, idempotencyRecordRepository.findById(storeKey).orElseThrow().getStatus());
+    }
+
+    private ResultActions createPost(String key) throws Exception {
+        return createPost(key, postBody(user.getId(), "Hi"));
+    }
+
+    private ResultActions createPost(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/posts")
+                .header(RequestUserFilter.USER_HEADER, user.getId().toString())
+                .header(IdempotencyFilter.KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private static String postBody(long userId, String title) {
+        return "{\"userId\": " + userId + ", \"title\": \"" + title + "\", \"content\": \"Body\", \"category\": \"other\"}";
+    }
+
+    private String postFingerprint() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(postBody(user.getId(), "Hi").getBytes(StandardCharsets.UTF_8));
+        return "POST /api/posts " + HexFormat.of().formatHex(digest);
+    }
+}
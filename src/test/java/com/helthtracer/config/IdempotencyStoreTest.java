@@ -0,0 +1,50 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final IdempotencyStore store = new IdempotencyStore(2, 1000, now::get);
+
+    @Test
+    void duplicatesWaitForTheOwnerAndFailedOwnersReleaseTheKey() throws Exception {
+        IdempotencyStore.Claim owner = store.begin("user:1|a", "POST /api/posts");
+        IdempotencyStore.Claim duplicate = store.begin("user:1|a", "POST /api/posts");
+        assertTrue(owner.owner());
+        assertFalse(duplicate.owner());
+        assertFalse(duplicate.entry().result().isDone());
+
+        // владелец не сохранил ответ — ждущий получает null и сам становится владельцем
+        store.abandon("user:1|a", owner.entry());
+        assertNull(duplicate.entry().result().get());
+        IdempotencyStore.Claim retry = store.begin("user:1|a", "POST /api/posts");
+        assertTrue(retry.owner());
+
+        IdempotencyStore.StoredResponse response =
+                new IdempotencyStore.StoredResponse("POST /api/posts", 200, "application/json", new byte[]{1});
+        store.complete(retry.entry(), response);
+        IdempotencyStore.Claim replay = store.begin("user:1|a", "POST /api/posts");
+        assertFalse(replay.owner());
+        assertSame(response, replay.entry().result().get());
+    }
+
+    @Test
+    void completedKeysExpireAndTableStaysBounded() {
+        IdempotencyStore.Claim a = store.begin("a", "POST /x");
+        assertTrue(store.begin("b", "POST /x").owner());
+        store.complete(a.entry(), new IdempotencyStore.StoredResponse("POST /x", 200, null, new byte[0]));
+        // таблица полна, ничего не просрочено — новый ключ идёт без защиты
+        assertNull(store.begin("c", "POST /x"));
+
+        now.addAndGet(1000);
+        // "a" просрочен и вытесняется, "b" ещё выполняется и остаётся
+        assertTrue(store.begin("c", "POST /x").owner());
+        assertEquals(2, store.size());
+        assertFalse(store.begin("b", "POST /x").owner());
+    }
+}
@@ -0,0 +1,55 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// список правил из теста целиком заменяет правила из application.properties
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.rules[0].name=likes",
+        "app.rate-limit.rules[0].path=/api/likes",
+        "app.rate-limit.rules[0].methods=POST",
+        "app.rate-limit.rules[0].rate-per-second=0.01",
+        "app.rate-limit.rules[0].burst=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void writesBeyondTheBurstGet429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            like("41").andExpect(status().is(not(429)));
+        }
+        like("41")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "100"))
+                .andExpect(jsonPath("$.success").value(false));
+
+        // другой пользователь с того же IP — свой бакет; чтения не ограничиваются
+        like("42").andExpect(status().is(not(429)));
+        mockMvc.perform(get("/api/likes/check").param("postId", "1").param("userId", "41"))
+                .andExpect(status().is(not(429)));
+    }
+
+    private ResultActions like(String userId) throws Exception {
+        return mockMvc.perform(post("/api/likes")
+                .header(RequestUserFilter.USER_HEADER, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"postId\": 999999, \"userId\": " + userId + "}"));
+    }
+}
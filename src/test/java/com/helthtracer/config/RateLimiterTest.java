@@ -0,0 +1,50 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final RateLimiter limiter = new RateLimiter(2, now::get);
+
+    @Test
+    void burstThenSteadyRate() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("user:1", 2, 3).allowed());
+        }
+        RateLimiter.Decision rejected = limiter.tryAcquire("user:1", 2, 3);
+        assertFalse(rejected.allowed());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), rejected.retryAfterNanos());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(limiter.tryAcquire("user:1", 2, 3).allowed());
+        assertFalse(limiter.tryAcquire("user:1", 2, 3).allowed());
+        // другой ключ — свой бакет
+        assertTrue(limiter.tryAcquire("user:2", 2, 3).allowed());
+    }
+
+    @Test
+    void idleBucketsAreEvictedAndTableStaysBounded() {
+        limiter.tryAcquire("a", 10, 1);
+        limiter.tryAcquire("b", 10, 1);
+        // таблица полна, "a" и "b" ещё не восстановились — новому ключу отказ, а не пропуск без учёта
+        RateLimiter.Decision rejected = limiter.tryAcquire("c", 10, 1);
+        assertFalse(rejected.allowed());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rejected.retryAfterNanos());
+        assertEquals(2, limiter.size());
+
+        // "a" восстановился — новый ключ занимает его место
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(limiter.tryAcquire("c", 10, 1).allowed());
+        assertEquals(2, limiter.size());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Две встроенные H2 базы: primary и "реплика", у каждой своя метка в таблице node
+class ReadWriteRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = h2("rw_primary");
+        DataSource replica = h2("rw_replica");
+        new JdbcTemplate(primary).execute("CREATE TABLE IF NOT EXISTS node(name VARCHAR(20)); DELETE FROM node; INSERT INTO node VALUES ('primary')");
+        new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS node(name VARCHAR(20)); DELETE FROM node; INSERT INTO node VALUES ('replica')");
+
+        DataSource routing = ReadWriteRoutingDataSource.create(primary, replica, new ReadYourWritesTracker(60_000, 100));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestUserContext.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        RequestUserContext.setConsistencyKey("session:1");
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+        assertEquals("primary", readWrite.execute(status -> nodeName()));
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimaryRightAfterWriting() {
+        RequestUserContext.setConsistencyKey("session:42");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+        assertEquals("primary", readOnly.execute(status -> nodeName()));
+
+        RequestUserContext.setConsistencyKey("session:7");
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+    }
+
+    @Test
+    void clientSuppliedUserKeyDoesNotPinReads() {
+        RequestUserContext.set("user:42");
+        RequestUserContext.setConsistencyKey("session:42");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE node SET name = 'primary'"));
+
+        // тот же X-User-Id, но чужая сессия
+        RequestUserContext.setConsistencyKey("session:other");
+        assertEquals("replica", readOnly.execute(status -> nodeName()));
+    }
+
+    private String nodeName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,45 @@
+package com.helthtracer.config;
+
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// порог в 1 нс: любое замеренное обращение к репозиторию «медленное»
+@SpringBootTest(properties = {
+        "app.concurrency-limit.enabled=true",
+        "app.concurrency-limit.initial-limit=16",
+        "app.concurrency-limit.min-limit=1",
+        "app.concurrency-limit.latency-threshold=1ns"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RepositoryLatencyAspectTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void onlyRepositoryCallsOfAdmittedRequestsMoveTheLimit() throws Exception {
+        int before = limiter.limit();
+        // не из запроса (как пересчёты и фоновые задачи) — не замеряется
+        userRepository.count();
+        assertEquals(before, limiter.limit());
+
+        mockMvc.perform(get("/api/habits/user/1")).andExpect(status().isOk());
+        assertTrue(limiter.limit() < before);
+    }
+}
@@ -0,0 +1,47 @@
+package com.helthtracer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestUserFilterTest {
+
+    @Test
+    void userHeaderIsNotAConsistencyKey() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/habits");
+        request.addHeader(RequestUserFilter.USER_HEADER, "42");
+
+        assertEquals("user:42", RequestUserFilter.resolveUserKey(request));
+        assertNull(RequestUserFilter.resolveConsistencyKey(request, true));
+        assertNull(request.getSession(false));
+    }
+
+    @Test
+    void writeOpensSessionThatLaterReadsReuse() {
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/habits");
+        String key = RequestUserFilter.resolveConsistencyKey(write, true);
+        assertEquals("session:" + write.getSession(false).getId(), key);
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/habits");
+        read.setSession(write.getSession(false));
+        assertEquals(key, RequestUserFilter.resolveConsistencyKey(read, true));
+    }
+
+    @Test
+    void principalWinsOverSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/habits");
+        request.setUserPrincipal(() -> "alice");
+
+        assertEquals("principal:alice", RequestUserFilter.resolveConsistencyKey(request, true));
+        assertNull(request.getSession(false));
+    }
+
+    @Test
+    void writeWithoutReadReplicaDoesNotOpenSession() {
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/habits");
+
+        assertNull(RequestUserFilter.resolveConsistencyKey(write, false));
+        assertNull(write.getSession(false));
+    }
+}
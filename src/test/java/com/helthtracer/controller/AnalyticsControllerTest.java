@@ -0,0 +1,211 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitDailyCount;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.SleepHabitCorrelationRepository;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.SleepCorrelationJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AnalyticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    @Autowired
+    private SleepSessionRepository sleepSessionRepository;
+
+    @Autowired
+    private SleepHabitCorrelationRepository sleepHabitCorrelationRepository;
+
+    @Autowired
+    private SleepCorrelationJob sleepCorrelationJob;
+
+    private User user;
+    private Habit habit;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("analyst", "analyst@example.com", "password"));
+        habit = habitRepository.save(new Habit(user, "Read", "20 pages", "DAILY"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sleepSessionRepository.deleteAll();
+        sleepHabitCorrelationRepository.deleteAll();
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void yearAnalyticsIsBuiltFromMaintainedCounts() throws Exception {
+        logHabit("2024-01-01", "COMPLETED");
+        logHabit("2024-01-02", "COMPLETED");
+        logHabit("2024-01-03", "COMPLETED");
+        logHabit("2024-03-10", "COMPLETED");
+        // повторная отметка того же дня не должна удваивать счётчик
+        logHabit("2024-03-10", "COMPLETED");
+
+        mockMvc.perform(get("/api/analytics/users/" + user.getId() + "/year").param("year", "2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days.length()").value(366))
+                .andExpect(jsonPath("$.days[0]").value(1))
+                .andExpect(jsonPath("$.days[69]").value(1))
+                .andExpect(jsonPath("$.totalCompleted").value(4))
+                .andExpect(jsonPath("$.bestStreak").value(3))
+                .andExpect(jsonPath("$.weeks[0].weekStart").value("2024-01-01"))
+                .andExpect(jsonPath("$.weeks[0].completed").value(3))
+                .andExpect(jsonPath("$.habits[0].completed").value(4));
+    }
+
+    @Test
+    void yearAnalyticsFollowsHabitSchedule() throws Exception {
+        // Дата создания не обновляется — заводим привычку заново
+        habitRepository.delete(habit);
+        habit = new Habit(user, "Call parents", null, "WEEKLY");
+        habit.setCreatedAt(LocalDate.of(2024, 1, 1));
+        habit = habitRepository.save(habit);
+        // Два выполнения за первую неделю: ожидалось одно, в воскресенье 7 января
+        logHabit("2024-01-02", "COMPLETED");
+        logHabit("2024-01-03", "COMPLETED");
+
+        mockMvc.perform(get("/api/analytics/users/" + user.getId() + "/year").param("year", "2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.due[0]").value(0))
+                .andExpect(jsonPath("$.due[6]").value(1))
+                .andExpect(jsonPath("$.weeks[0].completed").value(2))
+                .andExpect(jsonPath("$.weeks[0].completionRate").value(100))
+                .andExpect(jsonPath("$.weeks[1].completionRate").value(0))
+                .andExpect(jsonPath("$.habits[0].frequency").value("WEEKLY"))
+                .andExpect(jsonPath("$.habits[0].completed").value(2));
+    }
+
+    @Test
+    void habitLogStatusIsStoredAsCodeButServedByName() throws Exception {
+        mockMvc.perform(post("/api/habit-logs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":%d,\"date\":\"2024-06-01\",\"status\":\"completed\"}".formatted(habit.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.habitLog.status").value("COMPLETED"));
+        logHabit("2024-06-02", "MISSED");
+        mockMvc.perform(post("/api/habit-logs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":%d,\"date\":\"2024-06-03\",\"status\":\"DONE\"}".formatted(habit.getId())))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(1, habitLogRepository.countCompletedHabitsThisMonth(user.getId(),
+                LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 30)));
+        mockMvc.perform(get("/api/habit-logs").param("user_id", user.getId().toString())
+                        .param("year", "2024").param("month", "6"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.date == '2024-06-02')].status").value("MISSED"));
+    }
+
+    @Test
+    void deletingOrUncompletingALogDecrementsCounts() throws Exception {
+        logHabit("2024-05-01", "COMPLETED");
+        logHabit("2024-05-02", "COMPLETED");
+        logHabit("2024-05-02", "SKIPPED");
+        mockMvc.perform(delete("/api/habit-logs")
+                        .param("habit_id", habit.getId().toString())
+                        .param("date", "2024-05-01"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/analytics/users/" + user.getId() + "/year").param("year", "2024"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompleted").value(0))
+                .andExpect(jsonPath("$.habits[0].completed").value(0));
+    }
+
+    @Test
+    void sleepCorrelationComparesWellRestedAndShortNights() throws Exception {
+        User sleepless = userRepository.save(new User("sleepless", "sleepless@example.com", "password"));
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= 20; i++) {
+            LocalDate day = today.minusDays(i);
+            boolean wellRested = i % 2 == 0;
+            sleepSessionRepository.save(new SleepSession(user, day.minusDays(1).atTime(23, 0),
+                    day.atTime(wellRested ? 7 : 5, 0)));
+            habitDailyCountRepository.save(new HabitDailyCount(user.getId(), day, wellRested ? 3 : 1));
+        }
+        // сессия, закончившаяся сегодня, и привычки сегодня в окно не входят
+        sleepSessionRepository.save(new SleepSession(user, today.minusDays(1).atTime(23, 0), today.atTime(4, 0)));
+        habitDailyCountRepository.save(new HabitDailyCount(user.getId(), today, 5));
+
+        mockMvc.perform(post("/api/analytics/sleep-correlation/run"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true));
+        // расчёт идёт в фоне
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (sleepCorrelationJob.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        SleepCorrelationJob.RunResult run = sleepCorrelationJob.lastResult().orElseThrow();
+        assertEquals(2, run.users());
+        assertEquals(1, run.written());
+
+        mockMvc.perform(get("/api/analytics/users/" + user.getId() + "/sleep-correlation"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pairedDays").value(20))
+                .andExpect(jsonPath("$.correlation").value(1.0))
+                .andExpect(jsonPath("$.wellRestedDays").value(10))
+                .andExpect(jsonPath("$.wellRestedAvg").value(3.0))
+                .andExpect(jsonPath("$.shortAvg").value(1.0))
+                .andExpect(jsonPath("$.liftPercent").value(200))
+                .andExpect(jsonPath("$.insight").value("You complete 200% more habits after 7+ hours of sleep"));
+        mockMvc.perform(get("/api/analytics/users/" + sleepless.getId() + "/sleep-correlation"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void logHabit(String date, String status) throws Exception {
+        mockMvc.perform(post("/api/habit-logs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"habitId\":%d,\"date\":\"%s\",\"status\":\"%s\"}".formatted(habit.getId(), date, status)))
+                .andExpect(status().isOk());
+    }
+}
@@ -52,7 +52,10 @@ class AuthControllerTest {
                         .content(loginRequest))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.user.username").value("uniqueuser"));
+                .andExpect(jsonPath("$.user.username").value("uniqueuser"))
+                .andExpect(jsonPath("$.user.email").value("unique@example.com"))
+                .andExpect(jsonPath("$.user.password").doesNotExist())
+                .andExpect(jsonPath("$.token").exists());
     }
 
     @Test
@@ -0,0 +1,147 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.model.Comment;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.Post;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.CommentRepository;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.PostRepository;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.HabitLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HabitLogService habitLogService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    @Autowired
+    private SleepSessionRepository sleepSessionRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User user;
+    private Habit habit;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("exporter", "exporter@example.com", "password"));
+        habit = habitRepository.save(new Habit(user, "Walk, outside", null, "DAILY"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        commentRepository.deleteAll();
+        postRepository.deleteAll();
+        sleepSessionRepository.deleteAll();
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void ndjsonExportStreamsEveryDataset() throws Exception {
+        for (int day = 1; day <= 20; day++) {
+            habitLogService.createOrUpdate(habit, LocalDate.of(2025, 3, day), HabitStatus.COMPLETED);
+        }
+        sleepSessionRepository.save(new SleepSession(user,
+                LocalDateTime.of(2025, 3, 1, 23, 0), LocalDateTime.of(2025, 3, 2, 7, 0)));
+        Post post = postRepository.save(new Post(user, "Morning walks", "Line one\nline two", "habits"));
+        commentRepository.save(new Comment(post, user, "Agreed"));
+
+        String body = new String(export("/api/export/users/" + user.getId()), StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+
+        assertEquals(23, lines.length);
+        assertTrue(lines[0].startsWith("{\"type\":\"habit_log\""));
+        assertTrue(lines[0].contains("\"habit_title\":\"Walk, outside\""));
+        assertTrue(lines[0].contains("\"date\":\"2025-03-01\""));
+        assertTrue(lines[20].contains("\"start_time\":\"2025-03-01T23:00\""));
+        assertTrue(lines[21].contains("\"body\":\"Line one\\nline two\""));
+        assertTrue(lines[22].contains("\"post_id\":" + post.getId()));
+    }
+
+    @Test
+    void gzippedCsvExportHasHeaderAndQuotedValues() throws Exception {
+        habitLogService.createOrUpdate(habit, LocalDate.of(2025, 3, 1), HabitStatus.COMPLETED);
+
+        byte[] gzipped = export("/api/export/users/" + user.getId() + "?format=csv&type=habit-logs&gzip=true");
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        String[] lines = body.split("\r\n");
+        assertEquals("id,habit_id,habit_title,date,status", lines[0]);
+        assertTrue(lines[1].endsWith("," + habit.getId() + ",\"Walk, outside\",2025-03-01,COMPLETED"));
+    }
+
+    @Test
+    void csvWithSeveralTypesIsRejected() throws Exception {
+        mockMvc.perform(get("/api/export/users/" + user.getId()).param("format", "csv"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private byte[] export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
@@ -100,4 +100,42 @@ class HabitControllerTest {
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].title").value("Test Habit")); // Исправлено значение
     }
-}
\ No newline at end of file
+
+    @Test
+    void habitFrequencyIsValidatedAndNormalized() throws Exception {
+        String habitJson = """
+        {
+            "title": "Gym",
+            "frequency": "%s",
+            "user": {
+                "id": %d
+            }
+        }
+        """;
+
+        mockMvc.perform(post("/api/habits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(habitJson.formatted("weekdays:fri,mon", testUser.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.frequency").value("WEEKDAYS:MON,FRI"))
+                .andExpect(jsonPath("$.createdAt").exists());
+
+        mockMvc.perform(post("/api/habits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(habitJson.formatted("TIMES_PER_WEEK:9", testUser.getId())))
+                .andExpect(status().isBadRequest());
+
+        Habit habit = habitRepository.findByUserId(testUser.getId()).get(0);
+        mockMvc.perform(put("/api/habits/" + habit.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(habitJson.formatted("times_per_week:3", testUser.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.frequency").value("TIMES_PER_WEEK:3"))
+                .andExpect(jsonPath("$.createdAt").value(habit.getCreatedAt().toString()));
+
+        mockMvc.perform(put("/api/habits/" + (habit.getId() + 1000))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(habitJson.formatted("DAILY", testUser.getId())))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,157 @@
+package com.helthtracer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.HabitCountService;
+import com.helthtracer.service.HabitLogService;
+import com.helthtracer.service.LeaderboardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LeaderboardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HabitLogService habitLogService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+        leaderboardService.rebuild();
+    }
+
+    @Test
+    void writesMoveUsersOnBothBoards() throws Exception {
+        LocalDate today = LocalDate.now();
+        User steady = userRepository.save(new User("steady", "steady@example.com", "password"));
+        User casual = userRepository.save(new User("casual", "casual@example.com", "password"));
+        Habit steadyHabit = habitRepository.save(new Habit(steady, "Run", null, "DAILY"));
+        Habit casualHabit = habitRepository.save(new Habit(casual, "Read", null, "DAILY"));
+        habitRepository.save(new Habit(casual, "Write", null, "DAILY"));
+
+        // steady: сегодня и два предыдущих дня (если они в этом месяце); casual: одна из двух привычек сегодня
+        int days = Math.min(3, today.getDayOfMonth());
+        for (int i = 0; i < days; i++) {
+            habitLogService.createOrUpdate(steadyHabit, today.minusDays(i), HabitStatus.COMPLETED);
+        }
+        habitLogService.createOrUpdate(casualHabit, today, HabitStatus.COMPLETED);
+
+        JsonNode monthly = awaitBoard("monthly", 2);
+        assertEquals("steady", monthly.get("entries").get(0).get("username").asText());
+        assertEquals("casual", monthly.get("entries").get(1).get("username").asText());
+
+        JsonNode streak = awaitBoard("streak", 2);
+        assertEquals(steady.getId().longValue(), streak.get("entries").get(0).get("userId").asLong());
+        assertEquals(days, streak.get("entries").get(0).get("streak").asInt());
+
+        JsonNode mine = read("/api/leaderboard/users/" + casual.getId());
+        assertEquals(2, mine.get("streak").get("rank").asInt());
+        assertEquals(2, mine.get("monthly").get("total").asInt());
+
+        // снятая отметка убирает пользователя из рейтинга
+        habitLogService.createOrUpdate(casualHabit, today, HabitStatus.SKIPPED);
+        awaitBoard("monthly", 1);
+        assertTrue(read("/api/leaderboard/users/" + casual.getId()).get("monthly").get("rank").isNull());
+
+        // полный пересчёт из счётчиков даёт тот же результат
+        leaderboardService.rebuild();
+        assertEquals(days, read("/api/leaderboard?board=streak").get("entries").get(0).get("streak").asInt());
+    }
+
+    @Test
+    void writesOnAnotherNodeArriveThroughInvalidations() throws Exception {
+        LocalDate today = LocalDate.now();
+        User remote = userRepository.save(new User("remote", "remote@example.com", "password"));
+        Habit habit = habitRepository.save(new Habit(remote, "Swim", null, "DAILY"));
+        // счётчики записал другой узел: событий здесь не было
+        jdbcTemplate.update("INSERT INTO habit_daily_counts (user_id, date, completed) VALUES (?, ?, 1)",
+                remote.getId(), today);
+        jdbcTemplate.update("INSERT INTO habit_monthly_counts (habit_id, period, user_id, completed) VALUES (?, ?, ?, 1)",
+                habit.getId(), HabitCountService.period(today), remote.getId());
+        assertEquals(0, read("/api/leaderboard?board=streak").get("total").asInt());
+
+        leaderboardService.onInvalidations(List.of(CacheInvalidation.key(LeaderboardService.REGION, remote.getId())));
+        leaderboardService.refreshRemote();
+
+        JsonNode streak = read("/api/leaderboard?board=streak");
+        assertEquals(remote.getId().longValue(), streak.get("entries").get(0).get("userId").asLong());
+        assertEquals(1, read("/api/leaderboard?board=monthly").get("total").asInt());
+    }
+
+    private JsonNode awaitBoard(String board, int total) throws Exception {
+        JsonNode result = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            result = read("/api/leaderboard?board=" + board);
+            // total и entries читаются разными вызовами, поэтому ждём совпадения обоих
+            if (result.get("total").asInt() == total && result.get("entries").size() == total) {
+                return result;
+            }
+            Thread.sleep(50);
+        }
+        fail("Board " + board + " never reached " + total + " entries: " + result);
+        return result;
+    }
+
+    private JsonNode read(String url) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,161 @@
+package com.helthtracer.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.model.SleepSession;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.storage.PartitionedTable;
+import com.helthtracer.storage.RetentionArchiver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.sleep-import.batch-size=2", "app.retention.archive-dir=target/test-import-archive"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SleepImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SleepSessionRepository sleepSessionRepository;
+
+    @Autowired
+    private RetentionArchiver retentionArchiver;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cleanUp();
+        user = userRepository.save(new User("sleeper", "sleeper@example.com", "password"));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        sleepSessionRepository.deleteAll();
+        userRepository.deleteAll();
+        Path dir = Path.of("target/test-import-archive");
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void csvImportValidatesAndDeduplicates() throws Exception {
+        sleepSessionRepository.save(new SleepSession(user,
+                LocalDateTime.of(2024, 1, 1, 23, 0), LocalDateTime.of(2024, 1, 2, 7, 0)));
+        String csv = """
+                date,start_time,end_time,score
+                2024-01-01,2024-01-01 23:00:00,2024-01-02 07:00:00,80
+                2024-01-02,2024-01-02T22:30:00,2024-01-03T06:45:00,85
+                2024-01-03,"2024-01-03T23:10:00+02:00","2024-01-04T07:00:00+02:00",77
+                2024-01-03,2024-01-03T23:10:00,2024-01-04T07:30:00,77
+                2024-01-04,2024-01-05T07:00:00,2024-01-04T23:00:00,10
+                2024-01-05,not a date,2024-01-06T07:00:00,10
+                2024-01-06,2024-01-06T23:00:00,2024-01-07T06:00:00,90
+                """;
+
+        JsonNode job = runImport("export.csv", csv);
+
+        assertEquals("COMPLETED", job.get("status").asText());
+        assertEquals(7, job.get("records").asLong());
+        assertEquals(3, job.get("imported").asLong());
+        assertEquals(2, job.get("duplicates").asLong());
+        assertEquals(2, job.get("invalid").asLong());
+        assertTrue(job.get("sessionsPerSecond").asDouble() > 0);
+        assertEquals(4, sleepSessionRepository.findByUserIdOrderByStartTimeDesc(user.getId()).size());
+    }
+
+    @Test
+    void jsonArrayImportSkipsNestedFields() throws Exception {
+        String json = """
+                [
+                  {"startTime": "2024-02-01T23:00:00", "endTime": "2024-02-02T07:00:00", "levels": {"deep": 90}},
+                  {"startTime": "2024-02-02T23:30:00", "endTime": "2024-02-03T06:30:00", "stages": [1, 2, 3]}
+                ]
+                """;
+
+        JsonNode job = runImport("export.json", json);
+
+        assertEquals(2, job.get("imported").asLong());
+        assertEquals(LocalDateTime.of(2024, 2, 2, 23, 30),
+                sleepSessionRepository.findByUserIdOrderByStartTimeDesc(user.getId()).get(0).getStartTime());
+    }
+
+    @Test
+    void sessionsInArchivedMonthsAreDuplicates() throws Exception {
+        sleepSessionRepository.save(new SleepSession(user,
+                LocalDateTime.of(2020, 1, 31, 23, 0), LocalDateTime.of(2020, 2, 1, 7, 0)));
+        retentionArchiver.archiveMonth(PartitionedTable.SLEEP_SESSIONS, YearMonth.of(2020, 1));
+        assertTrue(sleepSessionRepository.findByUserIdOrderByStartTimeDesc(user.getId()).isEmpty());
+
+        // первая — та же, что в архиве; вторая начинается в феврале, но пересекает январскую из архива
+        String csv = """
+                start_time,end_time
+                2020-01-31T23:00:00,2020-02-01T07:00:00
+                2020-02-01T06:00:00,2020-02-01T08:00:00
+                2020-02-01T23:00:00,2020-02-02T07:00:00
+                """;
+
+        JsonNode job = runImport("export.csv", csv);
+
+        assertEquals("COMPLETED", job.get("status").asText());
+        assertEquals(1, job.get("imported").asLong());
+        assertEquals(2, job.get("duplicates").asLong());
+    }
+
+    private JsonNode runImport(String fileName, String content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", fileName, "text/plain",
+                content.getBytes(StandardCharsets.UTF_8));
+        String submitted = mockMvc.perform(multipart("/api/sleep-sessions/import")
+                        .file(file)
+                        .param("userId", user.getId().toString()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(submitted).get("id").asText();
+
+        for (int attempt = 0; attempt < 100; attempt++) {
+            JsonNode job = objectMapper.readTree(mockMvc.perform(get("/api/sleep-sessions/import/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String state = job.get("status").asText();
+            if (state.equals("COMPLETED") || state.equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Import did not finish");
+    }
+}
@@ -0,0 +1,182 @@
+package com.helthtracer.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.SleepScoreStateRepository;
+import com.helthtracer.repository.SleepSessionRepository;
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SleepSessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SleepSessionRepository sleepSessionRepository;
+
+    @Autowired
+    private SleepScoreStateRepository sleepScoreStateRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("night-owl", "owl@example.com", "password"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        sleepSessionRepository.deleteAll();
+        sleepScoreStateRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void overlappingSessionsAreRejected() throws Exception {
+        String first = create("2024-01-01T23:00:00", "2024-01-02T07:00:00")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.durationHours").value(8.0))
+                .andReturn().getResponse().getContentAsString();
+        long firstId = objectMapper.readTree(first).get("id").asLong();
+        create("2024-01-02T23:00:00", "2024-01-03T06:00:00").andExpect(status().isCreated());
+
+        create("2024-01-02T06:00:00", "2024-01-02T09:00:00").andExpect(status().isConflict());
+        create("2024-01-01T22:00:00", "2024-01-02T20:00:00").andExpect(status().isConflict());
+        create("2024-01-02T08:00:00", "2024-01-02T07:00:00").andExpect(status().isBadRequest());
+        // граница в границу — не пересечение
+        create("2024-01-02T07:00:00", "2024-01-02T08:00:00").andExpect(status().isCreated());
+
+        // сдвиг сессии в пределах своего же интервала — не конфликт с самой собой
+        mockMvc.perform(put("/api/sleep-sessions/" + firstId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("startTime", "2024-01-01T23:30:00", "endTime", "2024-01-02T06:30:00"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/sleep-sessions/" + firstId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("startTime", "2024-01-01T23:30:00", "endTime", "2024-01-02T07:30:00"))))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/sleep-sessions")
+                        .param("userId", user.getId().toString())
+                        .param("from", "2024-01-02T00:00:00")
+                        .param("to", "2024-01-02T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(firstId));
+
+        mockMvc.perform(delete("/api/sleep-sessions/" + firstId)).andExpect(status().isNoContent());
+        create("2024-01-01T22:00:00", "2024-01-02T06:00:00").andExpect(status().isCreated());
+    }
+
+    @Test
+    void startAndStopTrackAnOpenSession() throws Exception {
+        String body = json(Map.of("userId", user.getId().toString()));
+
+        mockMvc.perform(post("/api/sleep-sessions/start").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.endTime").doesNotExist());
+        mockMvc.perform(post("/api/sleep-sessions/start").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/sleep-sessions/stop").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endTime").exists());
+        mockMvc.perform(post("/api/sleep-sessions/stop").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void scoresFollowClosedSessionsAndMatchFullRebuild() throws Exception {
+        create("2024-01-01T23:00:00", "2024-01-02T07:00:00").andExpect(status().isCreated());
+        create("2024-01-02T23:00:00", "2024-01-03T07:00:00").andExpect(status().isCreated());
+        create("2024-01-03T23:00:00", "2024-01-04T07:00:00").andExpect(status().isCreated());
+
+        scores().andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions").value(3))
+                .andExpect(jsonPath("$.sleepDebtHours").value(0.0))
+                .andExpect(jsonPath("$.regularityIndex").value(100.0))
+                .andExpect(jsonPath("$.meanBedtime").value("23:00"));
+
+        // сессия задним числом — состояние пересобирается из истории
+        create("2023-12-31T01:00:00", "2023-12-31T05:00:00").andExpect(status().isCreated());
+        String incremental = scores().andExpect(jsonPath("$.sessions").value(4))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/sleep-sessions/scores/rebuild").param("userId", user.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").value(1));
+        String rebuilt = scores().andReturn().getResponse().getContentAsString();
+        assertEquals(withoutTimestamp(incremental), withoutTimestamp(rebuilt));
+
+        // всех — запуском RecomputeRunner в фоне
+        mockMvc.perform(post("/api/sleep-sessions/scores/rebuild"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/recompute/sleep-scores"))
+                .andExpect(jsonPath("$.task").value("sleep-scores"));
+        awaitRecompute("sleep-scores");
+        assertEquals(withoutTimestamp(incremental), withoutTimestamp(scores().andReturn().getResponse().getContentAsString()));
+
+        mockMvc.perform(get("/api/sleep-sessions/scores").param("userId", "-1")).andExpect(status().isNotFound());
+    }
+
+    private void awaitRecompute(String task) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            String status = objectMapper.readTree(mockMvc.perform(get("/api/recompute/" + task))
+                    .andReturn().getResponse().getContentAsString()).get("status").asText();
+            if (!"RUNNING".equals(status)) {
+                assertEquals("DONE", status);
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Recompute of " + task + " did not finish");
+    }
+
+    private ResultActions scores() throws Exception {
+        return mockMvc.perform(get("/api/sleep-sessions/scores").param("userId", user.getId().toString()));
+    }
+
+    private String withoutTimestamp(String scores) throws Exception {
+        ObjectNode node = (ObjectNode) objectMapper.readTree(scores);
+        node.remove("updatedAt");
+        return node.toString();
+    }
+
+    private ResultActions create(String start, String end) throws Exception {
+        return mockMvc.perform(post("/api/sleep-sessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("userId", user.getId().toString(), "startTime", start, "endTime", end))));
+    }
+
+    private String json(Map<String, String> body) throws Exception {
+        return objectMapper.writeValueAsString(body);
+    }
+}
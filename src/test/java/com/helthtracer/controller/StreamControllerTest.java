@@ -0,0 +1,65 @@
+package com.helthtracer.controller;
+
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.LikeToggledEvent;
+import com.helthtracer.event.PostDeletedEvent;
+import com.helthtracer.service.SseBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SseBroadcaster sseBroadcaster;
+
+    @Test
+    void eventsAreFannedOutToEveryOpenStream() throws Exception {
+        int before = sseBroadcaster.clientCount();
+        MvcResult first = mockMvc.perform(get("/api/stream")).andExpect(request().asyncStarted()).andReturn();
+        MvcResult second = mockMvc.perform(get("/api/stream")).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(before + 2, sseBroadcaster.clientCount());
+
+        sseBroadcaster.onEvents(List.<DomainEvent>of(
+                new LikeToggledEvent(7L, 3L, true, Instant.now(), Instant.now()),
+                new PostDeletedEvent(9L, Instant.now())));
+
+        for (MvcResult result : List.of(first, second)) {
+            String body = awaitContent(result.getResponse(), "event:post-deleted");
+            assertTrue(body.contains("event:like\ndata:{\"postId\":7,\"userId\":3,\"delta\":1}"), body);
+            assertTrue(body.indexOf("event:like") < body.indexOf("event:post-deleted"));
+        }
+
+        first.getRequest().getAsyncContext().complete();
+        second.getRequest().getAsyncContext().complete();
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = response.getContentAsString();
+            if (body.contains(expected)) {
+                return body;
+            }
+            Thread.sleep(20);
+        }
+        return fail("Stream never received " + expected + ": " + response.getContentAsString());
+    }
+}
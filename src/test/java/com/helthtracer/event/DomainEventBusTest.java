@@ -0,0 +1,150 @@
+package com.helthtracer.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DomainEventBus bus;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void eventsAreDeliveredInBatchesInPublishOrder() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(OverflowPolicy.BLOCK, 100, 10);
+        consumer.gate.countDown();
+        bus = new DomainEventBus(List.of(consumer), meterRegistry);
+
+        for (long i = 1; i <= 25; i++) {
+            bus.publish(new LikeToggledEvent(i, 1L, true, Instant.now(), Instant.now()));
+        }
+
+        assertTrue(consumer.awaitEvents(25));
+        assertEquals(25, consumer.received.size());
+        assertEquals(1L, ((LikeToggledEvent) consumer.received.get(0)).postId());
+        assertEquals(25L, ((LikeToggledEvent) consumer.received.get(24)).postId());
+        assertTrue(consumer.maxBatch <= 10);
+    }
+
+    @Test
+    void fullQueueDropsNewestEvents() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(OverflowPolicy.DROP_NEWEST, 5, 1);
+        bus = new DomainEventBus(List.of(consumer), meterRegistry);
+
+        // первый батч блокирует консьюмер, очередь вмещает ещё 5
+        for (long i = 1; i <= 20; i++) {
+            bus.publish(new LikeToggledEvent(i, 1L, true, Instant.now(), Instant.now()));
+        }
+        double dropped = meterRegistry.get("domain.events.dropped").tag("consumer", "recording").counter().count();
+        consumer.gate.countDown();
+
+        assertTrue(dropped >= 14);
+        assertTrue(consumer.awaitEvents((int) (20 - dropped)));
+    }
+
+    @Test
+    void eventsPublishedInsideTransactionWaitForCommit() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(OverflowPolicy.BLOCK, 10, 10);
+        consumer.gate.countDown();
+        bus = new DomainEventBus(List.of(consumer), meterRegistry);
+
+        TransactionSynchronizationManager.initSynchronization();
+        bus.publish(new PostDeletedEvent(7L, Instant.now()));
+        Thread.sleep(300);
+        assertTrue(consumer.received.isEmpty());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertTrue(consumer.awaitEvents(1));
+    }
+
+    @Test
+    void interruptedWorkerStopsPolling() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer(OverflowPolicy.BLOCK, 10, 10);
+        consumer.gate.countDown();
+        bus = new DomainEventBus(List.of(consumer), meterRegistry);
+
+        Thread worker = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("domain-events-recording"))
+                .findFirst().orElseThrow();
+        worker.interrupt();
+        worker.join(2_000);
+
+        assertFalse(worker.isAlive());
+    }
+
+    private static class RecordingConsumer implements DomainEventConsumer {
+        private final OverflowPolicy policy;
+        private final int capacity;
+        private final int batchSize;
+        final List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch gate = new CountDownLatch(1);
+        volatile int maxBatch;
+
+        RecordingConsumer(OverflowPolicy policy, int capacity, int batchSize) {
+            this.policy = policy;
+            this.capacity = capacity;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> batch) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            maxBatch = Math.max(maxBatch, batch.size());
+            received.addAll(batch);
+        }
+
+        @Override
+        public int queueCapacity() {
+            return capacity;
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public OverflowPolicy overflowPolicy() {
+            return policy;
+        }
+
+        boolean awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return received.size() >= count;
+        }
+    }
+}
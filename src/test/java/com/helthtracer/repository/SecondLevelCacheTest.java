@@ -0,0 +1,92 @@
+package com.helthtracer.repository;
+
+import com.helthtracer.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Сколько SQL-запросов уходит на одну запись, когда User уже в кэше второго уровня
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("cached", "cached@example.com", "password"));
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void userLookupIsServedFromCacheOnSecondWrite() throws Exception {
+        long coldStatements = statementsFor(this::createPost);
+        long warmStatements = statementsFor(this::createPost);
+
+        // холодный запрос: SELECT users + INSERT posts, тёплый — только INSERT
+        assertEquals(coldStatements - 1, warmStatements);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    void findByIdHitsCacheAcrossTransactions() {
+        long cold = statementsFor(() -> assertTrue(userRepository.findById(user.getId()).isPresent()));
+        long warm = statementsFor(() -> assertTrue(userRepository.findById(user.getId()).isPresent()));
+
+        assertEquals(1, cold);
+        assertEquals(0, warm);
+    }
+
+    private void createPost() {
+        try {
+            mockMvc.perform(post("/api/posts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"userId\":%d,\"title\":\"Run\",\"content\":\"5km\",\"category\":\"fitness\"}"
+                                    .formatted(user.getId())))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long statementsFor(Runnable action) {
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
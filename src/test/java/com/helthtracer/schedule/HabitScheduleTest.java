@@ -0,0 +1,74 @@
+package com.helthtracer.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HabitScheduleTest {
+
+    // Январь 2024 начинается с понедельника, 31 день
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    // Февраль 2024 начинается с четверга, 29 дней
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+
+    @Test
+    void dailyAndBlankRulesExpectEveryDay() {
+        assertSame(HabitSchedule.of("DAILY"), HabitSchedule.of(null));
+        assertSame(HabitSchedule.of("daily"), HabitSchedule.of(" "));
+        assertEquals(31, Integer.bitCount(HabitSchedule.of("DAILY").expected(JANUARY)));
+        assertEquals(29, Integer.bitCount(HabitSchedule.of("DAILY").expected(FEBRUARY)));
+    }
+
+    @Test
+    void weekdaysRuleFollowsTheCalendar() {
+        HabitSchedule schedule = HabitSchedule.of("weekdays:fri,mon,wed");
+        assertEquals("WEEKDAYS:MON,WED,FRI", schedule.rule());
+        assertSame(schedule, HabitSchedule.of("WEEKDAYS:MON,WED,FRI"));
+
+        int january = schedule.expected(JANUARY);
+        assertEquals(MonthMask.bit(1) | MonthMask.bit(3) | MonthMask.bit(5), january & MonthMask.days(7));
+        assertEquals(14, Integer.bitCount(january));
+        // 1 февраля — четверг, первая пятница — 2-е
+        assertEquals(MonthMask.bit(2) | MonthMask.bit(5) | MonthMask.bit(7), HabitSchedule.of("WEEKDAYS:MON,WED,FRI")
+                .expected(FEBRUARY) & MonthMask.days(7));
+        assertEquals(21, Integer.bitCount(HabitSchedule.of("WEEKDAYS").expected(FEBRUARY)));
+
+        int completed = MonthMask.bit(1) | MonthMask.bit(2) | MonthMask.bit(3);
+        assertEquals(MonthMask.bit(1) | MonthMask.bit(3), schedule.credited(JANUARY, completed));
+    }
+
+    @Test
+    void quotaRulesExpectTheLastDaysOfEachWeek() {
+        HabitSchedule weekly = HabitSchedule.of("WEEKLY");
+        // Недели 1–7, 8–14, 15–21, 22–28 — по воскресеньям; хвост 29–31 (3 дня) квоты не набирает
+        assertEquals(MonthMask.bit(7) | MonthMask.bit(14) | MonthMask.bit(21) | MonthMask.bit(28),
+                weekly.expected(JANUARY));
+        // Выполнение во вторник закрывает ожидаемое воскресенье той же недели
+        assertEquals(MonthMask.bit(7), weekly.credited(JANUARY, MonthMask.bit(2)));
+        // Два выполнения за неделю засчитываются один раз
+        assertEquals(MonthMask.bit(7), weekly.credited(JANUARY, MonthMask.bit(2) | MonthMask.bit(3)));
+
+        HabitSchedule three = HabitSchedule.of("TIMES_PER_WEEK:3");
+        assertEquals(MonthMask.bit(5) | MonthMask.bit(6) | MonthMask.bit(7), three.expected(JANUARY) & MonthMask.days(7));
+        assertEquals(MonthMask.bit(5) | MonthMask.bit(6), three.credited(JANUARY, MonthMask.bit(1) | MonthMask.bit(2)));
+    }
+
+    @Test
+    void monthlyRuleExpectsOneCompletionPerMonth() {
+        HabitSchedule monthly = HabitSchedule.of("MONTHLY");
+        assertEquals(MonthMask.bit(29), monthly.expected(FEBRUARY));
+        assertEquals(MonthMask.bit(29), monthly.credited(FEBRUARY, MonthMask.bit(3) | MonthMask.bit(10)));
+        assertEquals(0, monthly.credited(FEBRUARY, 0));
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> HabitSchedule.of("EVERY_MORNING"));
+        assertThrows(IllegalArgumentException.class, () -> HabitSchedule.of("TIMES_PER_WEEK:8"));
+        assertThrows(IllegalArgumentException.class, () -> HabitSchedule.of("TIMES_PER_WEEK:x"));
+        assertThrows(IllegalArgumentException.class, () -> HabitSchedule.of("WEEKDAYS:MON,XYZ"));
+        assertSame(HabitSchedule.of("DAILY"), HabitSchedule.ofStored("EVERY_MORNING"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitDailyCount;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HabitCountServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+    private static final int DAYS = 20;
+
+    @Autowired
+    private HabitLogService habitLogService;
+
+    @Autowired
+    private HabitCountService habitCountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentFirstCheckInsOfTheDayBothCount() throws Exception {
+        User user = userRepository.save(new User("counts", "counts@example.com", "password"));
+        Habit walk = habitRepository.save(new Habit(user, "Walk", "10k steps", "DAILY"));
+        Habit read = habitRepository.save(new Habit(user, "Read", "20 pages", "DAILY"));
+
+        // каждый день — два первых выполнения разных привычек одновременно: оба создают строку счётчика дня
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < DAYS; i++) {
+                LocalDate date = DAY.plusDays(i);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                List<Future<?>> checkIns = new ArrayList<>();
+                for (Habit habit : List.of(walk, read)) {
+                    checkIns.add(executor.submit(() -> {
+                        barrier.await();
+                        return habitLogService.createOrUpdate(habit, date, HabitStatus.COMPLETED);
+                    }));
+                }
+                for (Future<?> checkIn : checkIns) {
+                    checkIn.get();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(user.getId(), DAY, DAY.plusDays(DAYS - 1))
+                .forEach(count -> assertEquals(2, count.getCompleted(), count.getDate().toString()));
+        assertEquals(DAYS, habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(
+                user.getId(), DAY, DAY.plusDays(DAYS - 1)).size());
+        assertEquals(DAYS * 2, habitMonthlyCountRepository.sumCompletedByUserIdAndPeriod(
+                user.getId(), HabitCountService.period(DAY)));
+
+        habitLogService.delete(walk.getId(), DAY);
+        habitLogService.delete(walk.getId(), DAY);
+        assertEquals(1, habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(user.getId(), DAY, DAY)
+                .get(0).getCompleted());
+    }
+
+    @Test
+    void rebuildClearsCountsFromTheHorizonEvenWithoutLogs() {
+        User user = userRepository.save(new User("stale", "stale@example.com", "password"));
+        LocalDate recent = LocalDate.now().minusDays(3);
+        LocalDate archived = LocalDate.of(2000, 1, 15);
+        // логов нет: свежий счётчик устарел, а давний — всё, что осталось от заархивированного месяца
+        habitDailyCountRepository.save(new HabitDailyCount(user.getId(), recent, 2));
+        habitDailyCountRepository.save(new HabitDailyCount(user.getId(), archived, 4));
+
+        habitCountService.rebuildUser(user.getId());
+
+        assertTrue(habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(user.getId(), recent, recent).isEmpty());
+        assertEquals(4, habitDailyCountRepository.findByUserIdAndDateBetweenOrderByDate(user.getId(), archived, archived)
+                .get(0).getCompleted());
+    }
+}
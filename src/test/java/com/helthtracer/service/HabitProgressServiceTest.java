@@ -0,0 +1,105 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HabitProgressServiceTest {
+
+    // Среда; 1 января 2024 — понедельник
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 10);
+
+    @Autowired
+    private HabitProgressService habitProgressService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    private User user;
+    private Habit gym;
+    private Habit call;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("scheduler", "scheduler@example.com", "password"));
+        gym = habit("Gym", "WEEKDAYS:MON,WED,FRI");
+        call = habit("Call parents", "WEEKLY");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        habitLogRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void progressCountsOnlyScheduledDays() {
+        complete(gym, 1, 3, 5, 8, 10);
+        complete(call, 2);
+
+        // Ожидалось: пн/ср/пт по 10-е (5) + звонок первой недели; вторая неделя ещё не кончилась
+        HabitProgressService.MonthProgress progress = habitProgressService.monthProgress(user.getId(), TODAY);
+        assertEquals(6, progress.expected());
+        assertEquals(6, progress.credited());
+        assertEquals(100, progress.completionRate());
+        // Дни без ожидаемого (вт, чт, выходные) серию не прерывают
+        assertEquals(6, habitProgressService.currentStreak(user.getId(), TODAY));
+    }
+
+    @Test
+    void missedScheduledDayBreaksTheStreak() {
+        complete(gym, 1, 3, 5, 10);
+        complete(call, 2);
+
+        HabitProgressService.MonthProgress progress = habitProgressService.monthProgress(user.getId(), TODAY);
+        assertEquals(6, progress.expected());
+        assertEquals(5, progress.credited());
+        assertEquals(83, progress.completionRate());
+        assertEquals(1, habitProgressService.currentStreak(user.getId(), TODAY));
+    }
+
+    @Test
+    void todayIsNotAMissYet() {
+        complete(gym, 1, 3, 5, 8);
+        complete(call, 2);
+
+        assertEquals(5, habitProgressService.currentStreak(user.getId(), TODAY));
+        assertEquals(0, habitProgressService.currentStreak(user.getId(), TODAY.plusDays(2)));
+    }
+
+    private Habit habit(String title, String frequency) {
+        Habit habit = new Habit(user, title, null, frequency);
+        habit.setCreatedAt(LocalDate.of(2024, 1, 1));
+        return habitRepository.save(habit);
+    }
+
+    private void complete(Habit habit, int... days) {
+        for (int day : days) {
+            habitLogRepository.save(new HabitLog(habit, TODAY.withDayOfMonth(day), HabitStatus.COMPLETED));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.Post;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.LikeRepository;
+import com.helthtracer.repository.PostRepository;
+import com.helthtracer.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.likes.coalesce-window-ms=60000")
+@ActiveProfiles("test")
+class LikeToggleCoalescerTest {
+
+    @Autowired
+    private LikeToggleCoalescer coalescer;
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Post post;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        user = userRepository.save(new User("liker", "liker@example.com", "password"));
+        post = postRepository.save(new Post(user, "Morning run", "5km", "fitness"));
+    }
+
+    @Test
+    void burstOfTogglesIsWrittenAsItsNetEffect() {
+        double writesBefore = writes();
+
+        // 5 кликов подряд: итог — лайк стоит
+        boolean liked = false;
+        for (int i = 0; i < 5; i++) {
+            liked = coalescer.toggle(post.getId(), user.getId());
+        }
+        assertTrue(liked);
+        assertEquals(0, likeRepository.countByPostId(post.getId()));
+
+        coalescer.flushAll();
+
+        assertEquals(1, likeRepository.countByPostId(post.getId()));
+        assertEquals(1, writes() - writesBefore);
+    }
+
+    @Test
+    void evenNumberOfTogglesWritesNothing() {
+        coalescer.toggle(post.getId(), user.getId());
+        coalescer.flushAll();
+        double writesBefore = writes();
+
+        for (int i = 0; i < 4; i++) {
+            coalescer.toggle(post.getId(), user.getId());
+        }
+        assertEquals(Boolean.TRUE, coalescer.pendingState(post.getId(), user.getId()).orElseThrow());
+        coalescer.flushAll();
+
+        assertTrue(likeRepository.existsByPostIdAndUserId(post.getId(), user.getId()));
+        assertEquals(0, writes() - writesBefore);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        coalescer.flushAll();
+        likeRepository.deleteAll();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private double writes() {
+        return meterRegistry.get("likes.toggle.writes").counter().count();
+    }
+}
@@ -0,0 +1,40 @@
+package com.helthtracer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedSetTest {
+
+    @Test
+    void ranksMatchASortedList() {
+        RankedSet<Integer> set = new RankedSet<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            int value = random.nextInt(2_000);
+            if (expected.contains(value)) {
+                assertTrue(set.remove(value));
+                expected.remove(Integer.valueOf(value));
+            } else {
+                set.add(value);
+                expected.add(value);
+            }
+        }
+        expected.sort(Comparator.naturalOrder());
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected.subList(0, 25), set.first(25));
+        for (int i = 0; i < expected.size(); i += 37) {
+            assertEquals(i, set.rank(expected.get(i)));
+            assertEquals(expected.get(i), set.get(i));
+        }
+        assertFalse(set.remove(-1));
+    }
+}
@@ -0,0 +1,71 @@
+package com.helthtracer.service;
+
+import com.helthtracer.cache.CacheInvalidation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SleepIntervalIndexTest {
+
+    private static final Long USER_ID = 987_654L;
+    private static final LocalDateTime NIGHT = LocalDateTime.of(2024, 3, 1, 23, 0);
+
+    @Autowired
+    private SleepIntervalIndex index;
+
+    @Test
+    void evictionDoesNotLetASecondWriterIn() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> index.withUser(USER_ID, intervals -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            intervals.add(1, NIGHT, NIGHT.plusHours(8));
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        // индекс вытеснен, пока первый писатель держит пользователя: второй всё равно ждёт его
+        index.evict(USER_ID);
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> index.withUser(USER_ID,
+                intervals -> intervals.findOverlap(NIGHT, NIGHT.plusHours(8), null).isPresent()));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        // второй заведёт индекс заново из БД, где этой сессии нет, — но только после первого
+        assertFalse(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void invalidationFromAnotherNodeDropsTheUsersIndex() {
+        Long userId = USER_ID + 1;
+        // в памяти есть сессия, которой в БД нет: так выглядит индекс, отставший от записи другого узла
+        index.withUser(userId, intervals -> {
+            intervals.add(2, NIGHT, NIGHT.plusHours(8));
+            return null;
+        });
+
+        index.onInvalidations(List.of(CacheInvalidation.key(SleepIntervalIndex.REGION, userId)));
+
+        boolean overlaps = index.withUser(userId,
+                intervals -> intervals.findOverlap(NIGHT, NIGHT.plusHours(8), null).isPresent());
+        assertFalse(overlaps);
+    }
+}
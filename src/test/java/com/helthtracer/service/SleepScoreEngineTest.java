@@ -0,0 +1,96 @@
+package com.helthtracer.service;
+
+import com.helthtracer.model.SleepScoreState;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SleepScoreEngineTest {
+
+    private static final LocalDateTime DAY_ONE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final SleepScoreEngine engine = new SleepScoreEngine(8);
+
+    @Test
+    void regularEightHourNightsScoreAsPerfect() {
+        SleepScoreState state = new SleepScoreState(1L);
+        for (int night = 0; night < 14; night++) {
+            sleep(state, night, 23, 0, 8 * 60);
+        }
+
+        SleepScoreEngine.Scores scores = engine.scores(state);
+        assertEquals(14, scores.sessions());
+        assertEquals(0.0, scores.sleepDebtHours());
+        assertEquals(100.0, scores.regularityIndex());
+        assertEquals("23:00", scores.meanBedtime());
+        assertEquals(0.0, scores.bedtimeDeviationMinutes());
+        assertEquals(8.0, scores.durationWeekHours());
+        assertEquals(0.0, scores.durationTrendHours());
+    }
+
+    @Test
+    void shortNightsBuildDebtAndTurnTheTrendDown() {
+        SleepScoreState state = new SleepScoreState(1L);
+        for (int night = 0; night < 30; night++) {
+            sleep(state, night, 23, 0, 8 * 60);
+        }
+        for (int night = 30; night < 37; night++) {
+            sleep(state, night + 1, 1, 0, 6 * 60);
+        }
+
+        SleepScoreEngine.Scores scores = engine.scores(state);
+        // 2 ч недосыпа за ночь, старый долг затухает за неделю вдвое
+        assertTrue(scores.sleepDebtHours() > 10 && scores.sleepDebtHours() < 14, () -> "debt " + scores.sleepDebtHours());
+        assertTrue(scores.durationTrendHours() < -0.5);
+        assertTrue(scores.durationWeekHours() < scores.durationMonthHours());
+    }
+
+    @Test
+    void bedtimeAveragesAcrossMidnight() {
+        SleepScoreState state = new SleepScoreState(1L);
+        for (int night = 0; night < 40; night++) {
+            // 23:30 и 00:30 вперемешку — среднее ровно полночь, а не полдень
+            if (night % 2 == 0) {
+                sleep(state, night, 23, 30, 7 * 60);
+            } else {
+                sleep(state, night + 1, 0, 30, 7 * 60);
+            }
+        }
+
+        SleepScoreEngine.Scores scores = engine.scores(state);
+        assertTrue(scores.meanBedtime().equals("23:59") || scores.meanBedtime().equals("00:00"),
+                () -> "bedtime " + scores.meanBedtime());
+        assertEquals(30, scores.bedtimeDeviationMinutes(), 3);
+    }
+
+    @Test
+    void napsOnlyAffectDebt() {
+        SleepScoreState state = new SleepScoreState(1L);
+        sleep(state, 0, 23, 0, 7 * 60);
+        sleep(state, 1, 15, 0, 60);
+
+        SleepScoreEngine.Scores scores = engine.scores(state);
+        assertEquals(2, scores.sessions());
+        assertEquals(7.0, scores.durationWeekHours());
+        assertEquals("23:00", scores.meanBedtime());
+        assertFalse(engine.canApply(state, DAY_ONE.plusDays(1).withHour(15)));
+        assertTrue(engine.canApply(state, DAY_ONE.plusDays(1).withHour(16)));
+    }
+
+    @Test
+    void regularityIndexCountsMismatchedMinutes() {
+        LocalDateTime start = DAY_ONE.withHour(23);
+        assertEquals(100, SleepScoreEngine.regularityIndex(start, start.plusHours(8),
+                start.plusDays(1), start.plusDays(1).plusHours(8)), 1e-9);
+        // оба края сдвинуты на 2 часа: 240 из 1440 минут в другом состоянии
+        assertEquals(200 * (1 - 240 / 1440.0) - 100, SleepScoreEngine.regularityIndex(start, start.plusHours(8),
+                start.plusDays(1).plusHours(2), start.plusDays(1).plusHours(10)), 1e-9);
+    }
+
+    private void sleep(SleepScoreState state, int day, int hour, int minute, int durationMinutes) {
+        LocalDateTime start = DAY_ONE.plusDays(day).withHour(hour).withMinute(minute);
+        engine.apply(state, start, start.plusMinutes(durationMinutes));
+    }
+}
@@ -0,0 +1,82 @@
+package com.helthtracer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.PostDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseBroadcasterTest {
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final AtomicInteger delivered = new AtomicInteger();
+    private SseBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void stalledWriteEvictsOnlyItsOwnClient() throws Exception {
+        // один поток отправки, буфер на 8 кадров, запись дольше 50 мс — зависшая
+        broadcaster = new SseBroadcaster(new ObjectMapper(), new SimpleMeterRegistry(), 100, 8, 60_000, 1, 50, 8) {
+            private int connected;
+
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                // первый клиент перестал читать: его запись висит, как в сокет с полным буфером
+                return connected++ == 0 ? new BlockingEmitter() : new CountingEmitter();
+            }
+        };
+        broadcaster.connect();
+        broadcaster.connect();
+        assertEquals(2, broadcaster.clientCount());
+
+        for (long i = 1; i <= 20; i++) {
+            broadcaster.onEvents(List.<DomainEvent>of(new PostDeletedEvent(i, Instant.now())));
+            Thread.sleep(30);
+        }
+
+        // здоровый клиент получил всё (1 кадр "connected" + 20 событий) и остался подключён
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.get() < 21 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(21, delivered.get());
+        assertEquals(1, broadcaster.clientCount());
+    }
+
+    private final class BlockingEmitter extends SseEmitter {
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    private final class CountingEmitter extends SseEmitter {
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            delivered.incrementAndGet();
+        }
+    }
+}
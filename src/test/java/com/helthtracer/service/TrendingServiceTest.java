@@ -0,0 +1,114 @@
+package com.helthtracer.service;
+
+import com.helthtracer.cache.CacheInvalidation;
+import com.helthtracer.cache.CacheInvalidationBus;
+import com.helthtracer.cache.CacheInvalidationListener;
+import com.helthtracer.cache.CacheInvalidationProperties;
+import com.helthtracer.cache.InvalidationTransport;
+import com.helthtracer.cache.LocalInvalidationTransport;
+import com.helthtracer.event.CommentAddedEvent;
+import com.helthtracer.event.DomainEvent;
+import com.helthtracer.event.LikeToggledEvent;
+import com.helthtracer.event.PostCreatedEvent;
+import com.helthtracer.event.PostDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalInvalidationTransport transport = new LocalInvalidationTransport();
+    private final CacheInvalidationBus bus = new CacheInvalidationBus(
+            new CacheInvalidationProperties(true, "local", null, null, null, 0, 0, null, null), transport,
+            new StaticListableBeanFactory().getBeanProvider(CacheInvalidationListener.class), meterRegistry);
+    private final TrendingService trending = new TrendingService(null, null, bus, meterRegistry, 6, 2, 100);
+
+    @Test
+    void recentActivityOutranksOlderActivity() {
+        Instant now = Instant.now();
+        Instant twelveHoursAgo = now.minus(Duration.ofHours(12));
+        trending.onEvents(List.<DomainEvent>of(
+                new PostCreatedEvent(1L, 1L, "alice", "Old hit", "sleep", twelveHoursAgo),
+                new PostCreatedEvent(2L, 2L, "bob", "Fresh", "habits", now),
+                new PostCreatedEvent(3L, 3L, "carol", "Quiet", "habits", now),
+                // 3 комментария 12 часов назад (две полужизни) весят как ~0.75 свежего
+                new CommentAddedEvent(10L, 1L, 2L, "bob", "a", twelveHoursAgo),
+                new CommentAddedEvent(11L, 1L, 3L, "carol", "b", twelveHoursAgo),
+                new CommentAddedEvent(12L, 1L, 3L, "carol", "c", twelveHoursAgo),
+                new CommentAddedEvent(13L, 2L, 1L, "alice", "d", now),
+                new LikeToggledEvent(3L, 1L, true, now, now),
+                new LikeToggledEvent(3L, 1L, false, now, now)));
+
+        trending.rerank();
+
+        List<TrendingService.TrendingPost> top = trending.trending(10);
+        assertEquals(List.of(2L, 1L), top.stream().map(TrendingService.TrendingPost::postId).toList());
+        assertEquals("Fresh", top.get(0).title());
+        assertEquals(6.0, top.get(0).score(), 0.01);
+        assertEquals(4.0, top.get(1).score(), 0.01);
+        assertEquals(1, trending.trending(1).size());
+    }
+
+    @Test
+    void deletedPostsLeaveTheRanking() {
+        Instant now = Instant.now();
+        trending.onEvents(List.<DomainEvent>of(
+                new PostCreatedEvent(1L, 1L, "alice", "Doomed", "sleep", now),
+                new LikeToggledEvent(1L, 2L, true, now, now)));
+        trending.rerank();
+        assertEquals(1, trending.trending(10).size());
+
+        trending.onEvents(List.<DomainEvent>of(new PostDeletedEvent(1L, now)));
+        trending.rerank();
+        assertTrue(trending.trending(10).isEmpty());
+    }
+
+    @Test
+    void unlikeTakesBackOnlyWhatTheLikeStillWeighs() {
+        Instant now = Instant.now();
+        Instant twelveHoursAgo = now.minus(Duration.ofHours(12));
+        trending.onEvents(List.<DomainEvent>of(
+                new PostCreatedEvent(1L, 1L, "alice", "Liked long ago", "sleep", twelveHoursAgo),
+                new LikeToggledEvent(1L, 2L, true, twelveHoursAgo, twelveHoursAgo),
+                new CommentAddedEvent(10L, 1L, 3L, "carol", "fresh", now),
+                // лайк 12 часов назад весит 0.75 — снятие не должно съесть комментарий
+                new LikeToggledEvent(1L, 2L, false, now, twelveHoursAgo)));
+
+        trending.rerank();
+
+        assertEquals(5.25, trending.trending(1).get(0).score(), 0.01);
+    }
+
+    @Test
+    void changedPostsAreAnnouncedToOtherNodes() throws InterruptedException {
+        List<CacheInvalidation> received = new ArrayList<>();
+        InvalidationTransport.Receiver receiver = (invalidations, lag) -> received.addAll(invalidations);
+        // ящик узла заводится первым poll
+        transport.poll("other-node", receiver);
+
+        Instant now = Instant.now();
+        trending.onEvents(List.<DomainEvent>of(
+                new PostCreatedEvent(1L, 1L, "alice", "Hello", "sleep", now),
+                new LikeToggledEvent(1L, 2L, true, now, now),
+                new CommentAddedEvent(10L, 2L, 3L, "carol", "hi", now)));
+        bus.start();
+        try {
+            Thread.sleep(300);
+        } finally {
+            bus.stop();
+        }
+
+        transport.poll("other-node", receiver);
+        assertEquals(Set.of(CacheInvalidation.key(TrendingService.REGION, 1L), CacheInvalidation.key(TrendingService.REGION, 2L)),
+                Set.copyOf(received));
+    }
+}
@@ -0,0 +1,149 @@
+package com.helthtracer.storage;
+
+import com.helthtracer.model.Habit;
+import com.helthtracer.model.HabitLog;
+import com.helthtracer.model.HabitStatus;
+import com.helthtracer.model.User;
+import com.helthtracer.repository.HabitDailyCountRepository;
+import com.helthtracer.repository.HabitLogRepository;
+import com.helthtracer.repository.HabitMonthlyCountRepository;
+import com.helthtracer.repository.HabitRepository;
+import com.helthtracer.repository.UserRepository;
+import com.helthtracer.service.HabitLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.retention.archive-dir=target/test-archive")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RetentionArchiverTest {
+
+    private static final YearMonth OLD_MONTH = YearMonth.of(2020, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RetentionArchiver retentionArchiver;
+
+    @Autowired
+    private ArchiveReader archiveReader;
+
+    @Autowired
+    private HabitLogService habitLogService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitLogRepository habitLogRepository;
+
+    @Autowired
+    private HabitDailyCountRepository habitDailyCountRepository;
+
+    @Autowired
+    private HabitMonthlyCountRepository habitMonthlyCountRepository;
+
+    private User user;
+    private Habit habit;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cleanUp();
+        user = userRepository.save(new User("archived", "archived@example.com", "password"));
+        habit = habitRepository.save(new Habit(user, "Stretch", null, "DAILY"));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        habitLogRepository.deleteAll();
+        habitDailyCountRepository.deleteAll();
+        habitMonthlyCountRepository.deleteAll();
+        habitRepository.deleteAll();
+        userRepository.deleteAll();
+        Path dir = Path.of("target/test-archive");
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void archivedMonthLeavesHotTableButStaysReadable() throws Exception {
+        habitLogService.createOrUpdate(habit, LocalDate.of(2020, 1, 5), HabitStatus.COMPLETED);
+        habitLogService.createOrUpdate(habit, LocalDate.of(2020, 1, 6), HabitStatus.COMPLETED);
+        HabitLog recent = habitLogService.createOrUpdate(habit, LocalDate.of(2020, 2, 1), HabitStatus.COMPLETED);
+
+        long archived = retentionArchiver.archiveMonth(PartitionedTable.HABIT_LOGS, OLD_MONTH);
+
+        assertEquals(2, archived);
+        assertEquals(List.of(recent.getId()), habitLogRepository.findAll().stream().map(HabitLog::getId).toList());
+        List<ArchivedHabitLog> rows = archiveReader.readHabitLogs(user.getId(), OLD_MONTH);
+        assertEquals(2, rows.size());
+        assertEquals(habit.getId(), rows.get(0).habitId());
+
+        // старый месяц отдаётся из архива в той же форме, что и живые логи
+        mockMvc.perform(get("/api/habit-logs")
+                        .param("user_id", user.getId().toString())
+                        .param("year", "2020")
+                        .param("month", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].habit.id").value(habit.getId()))
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"));
+
+        // свёртки остаются в БД — годовая аналитика по архивному месяцу не теряется
+        mockMvc.perform(get("/api/analytics/users/" + user.getId() + "/year").param("year", "2020"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCompleted").value(3));
+    }
+
+    @Test
+    void lateRowsAreMergedIntoExistingArchive() throws Exception {
+        habitLogService.createOrUpdate(habit, LocalDate.of(2020, 1, 5), HabitStatus.COMPLETED);
+        habitLogService.createOrUpdate(habit, LocalDate.of(2020, 1, 20), HabitStatus.COMPLETED);
+        retentionArchiver.archiveMonth(PartitionedTable.HABIT_LOGS, OLD_MONTH);
+
+        // запись задним числом в уже архивный месяц видна сразу, вместе с архивом
+        habitLogService.createOrUpdate(habit, LocalDate.of(2020, 1, 10), HabitStatus.SKIPPED);
+        mockMvc.perform(get("/api/habit-logs")
+                        .param("user_id", user.getId().toString())
+                        .param("year", "2020")
+                        .param("month", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+
+        long archived = retentionArchiver.archiveMonth(PartitionedTable.HABIT_LOGS, OLD_MONTH);
+
+        assertEquals(3, archived);
+        assertTrue(habitLogRepository.findAll().isEmpty());
+        List<ArchivedHabitLog> rows = archiveReader.readHabitLogs(user.getId(), OLD_MONTH);
+        assertEquals(List.of(LocalDate.of(2020, 1, 5), LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 20)),
+                rows.stream().map(ArchivedHabitLog::date).toList());
+        assertEquals("SKIPPED", rows.get(1).status());
+    }
+}